@@ -1,7 +1,9 @@
 plugins {
     java
     id("org.springframework.boot") version "3.3.5"
+    id("org.springframework.boot.aot") version "3.3.5"
     id("io.spring.dependency-management") version "1.1.6"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.propvuebrand"
@@ -17,18 +19,116 @@ repositories {
     mavenCentral()
 }
 
+val loadtest by sourceSets.creating
+
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-validation")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("org.springframework.boot:spring-boot-starter-aop")
     implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.3.0")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-smile")
     implementation("com.opencsv:opencsv:5.7.1")
-    runtimeOnly("org.postgresql:postgresql")
+    implementation("org.postgresql:postgresql")
+    implementation("net.ttddyy:datasource-proxy:1.10")
+    implementation("org.hibernate.orm:hibernate-jcache")
+    implementation("com.github.ben-manes.caffeine:jcache")
     testImplementation("org.springframework.boot:spring-boot-starter-test")
     testImplementation("org.assertj:assertj-core:3.24.2")
+    testRuntimeOnly("com.h2database:h2")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    jmhRuntimeOnly("com.h2database:h2")
+    "loadtestImplementation"("com.fasterxml.jackson.core:jackson-databind")
+    "loadtestImplementation"("org.hdrhistogram:HdrHistogram:2.2.2")
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
 }
+
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
+}
+
+tasks.register<Test>("benchmarkTest") {
+    description = "Runs throughput benchmarks against the in-memory database."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    systemProperty("benchmark.rows", providers.gradleProperty("benchmark.rows").getOrElse("200000"))
+    testLogging {
+        showStandardStreams = true
+    }
+}
+
+tasks.register<JavaExec>("loadTest") {
+    description = "Drives the scenario mix against a running instance (bootRun) and compares latency " +
+        "percentiles with src/loadtest/baseline.json; -Ploadtest.<key> overrides scenario.properties."
+    group = "verification"
+    classpath = loadtest.runtimeClasspath
+    mainClass = "com.propvuebrand.fulfillmentcenters.loadtest.LoadTest"
+    systemProperties(providers.gradlePropertiesPrefixedBy("loadtest.").get())
+}
+
+// Conditions (@Profile, @ConditionalOnProperty) are evaluated when AOT code is generated,
+// so the bean graph is fixed for the prod profile; run with -Dspring.aot.enabled=true to use it.
+tasks.named<org.springframework.boot.gradle.tasks.aot.ProcessAot>("processAot") {
+    args("--spring.profiles.active=prod")
+}
+
+val cdsDirectory = layout.buildDirectory.dir("cds")
+val cdsJava = javaToolchains.launcherFor {
+    languageVersion = JavaLanguageVersion.of(21)
+}
+
+tasks.register<Exec>("extractBootJar") {
+    description = "Extracts the boot jar into build/cds (application jar plus lib/) for class data sharing."
+    group = "build"
+    dependsOn(tasks.bootJar)
+    doFirst {
+        commandLine(
+            cdsJava.get().executablePath.asFile, "-Djarmode=tools",
+            "-jar", tasks.bootJar.get().archiveFile.get().asFile,
+            "extract", "--destination", cdsDirectory.get().asFile,
+            "--application-filename", "fulfillment-centers.jar", "--force"
+        )
+    }
+}
+
+tasks.register<Exec>("cdsArchive") {
+    description = "Runs the extracted application up to context refresh and dumps build/cds/application.jsa. " +
+        "Needs the database (docker compose up) because Hibernate connects during refresh."
+    group = "build"
+    dependsOn("extractBootJar")
+    workingDir(cdsDirectory)
+    doFirst {
+        commandLine(
+            cdsJava.get().executablePath.asFile,
+            "-XX:ArchiveClassesAtExit=application.jsa",
+            "-Dspring.context.exit=onRefresh",
+            "-Dspring.aot.enabled=true",
+            "-Dspring.profiles.active=prod",
+            "-Dfulfillment.loader.mode=NONE",
+            "-jar", "fulfillment-centers.jar"
+        )
+    }
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    // Benchmarks share the GeneratedCsv fixture from the test source set
+    includeTests.set(true)
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+    profilers.set(listOf("gc"))
+    resultFormat.set("JSON")
+    providers.gradleProperty("jmh.includes").orNull?.let { includes.set(listOf(it)) }
+}
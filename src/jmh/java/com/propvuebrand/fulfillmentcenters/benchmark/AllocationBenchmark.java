@@ -0,0 +1,60 @@
+package com.propvuebrand.fulfillmentcenters.benchmark;
+
+import com.propvuebrand.fulfillmentcenters.dto.AllocationResult;
+import com.propvuebrand.fulfillmentcenters.service.OrderAllocationService;
+import com.propvuebrand.fulfillmentcenters.service.SellableStockIndex;
+import com.propvuebrand.fulfillmentcenters.util.BulkProductLoader;
+import com.propvuebrand.fulfillmentcenters.util.GeneratedCsv;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Расчёт разбиения заказа по центрам (без резервирования) по индексу остатков SELLABLE
+ * для заказов из 1–50 строк. Результат — число заказов в секунду.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AllocationBenchmark {
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"1", "5", "20", "50"})
+    public int lines;
+
+    private ConfigurableApplicationContext context;
+    private OrderAllocationService orderAllocationService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start();
+        orderAllocationService = context.getBean(OrderAllocationService.class);
+        context.getBean(BulkProductLoader.class).load(GeneratedCsv.reader(rows));
+        context.getBean(SellableStockIndex.class).reload();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AllocationResult allocate() {
+        return orderAllocationService.allocate(randomOrder());
+    }
+
+    private Map<String, Integer> randomOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Map<String, Integer> order = new HashMap<>(lines * 2);
+        while (order.size() < lines) {
+            order.put("p" + random.nextInt(GeneratedCsv.PRODUCT_IDS), 1 + random.nextInt(20));
+        }
+        return order;
+    }
+}
@@ -0,0 +1,23 @@
+package com.propvuebrand.fulfillmentcenters.benchmark;
+
+import com.propvuebrand.fulfillmentcenters.FulfillmentCentersApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Поднимает контекст приложения без веб-сервера на встроенной базе H2 (профиль jmh).
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(FulfillmentCentersApplication.class)
+                .profiles("jmh")
+                .web(WebApplicationType.NONE)
+                .properties(properties)
+                .run();
+    }
+}
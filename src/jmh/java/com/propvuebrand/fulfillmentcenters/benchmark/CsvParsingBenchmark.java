@@ -0,0 +1,40 @@
+package com.propvuebrand.fulfillmentcenters.benchmark;
+
+import com.opencsv.CSVReader;
+import com.propvuebrand.fulfillmentcenters.util.GeneratedCsv;
+import com.propvuebrand.fulfillmentcenters.util.ProductCsvParser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Скорость разбора CSV в формате data.csv без записи в базу (строк в секунду).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CsvParsingBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    private String csv;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        csv = GeneratedCsv.csv(ROWS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void parse(Blackhole blackhole) throws Exception {
+        try (CSVReader reader = new CSVReader(new StringReader(csv))) {
+            reader.readNext();
+            String[] line;
+            while ((line = reader.readNext()) != null) {
+                blackhole.consume(ProductCsvParser.parse(line));
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.propvuebrand.fulfillmentcenters.benchmark;
+
+import com.propvuebrand.fulfillmentcenters.dto.ProductView;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
+import com.propvuebrand.fulfillmentcenters.util.BulkProductLoader;
+import com.propvuebrand.fulfillmentcenters.util.GeneratedCsv;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение страницы из {@value #ROWS} строк сущностями и проекцией {@link ProductView}.
+ * Операция — одна строка, поэтому {@code gc.alloc.rate.norm} из профайлера gc показывает
+ * байты на строку:
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=ListProjectionBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(ListProjectionBenchmark.ROWS)
+public class ListProjectionBenchmark {
+
+    static final int ROWS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start();
+        context.getBean(BulkProductLoader.class).load(GeneratedCsv.reader(ROWS));
+        productRepository = context.getBean(ProductRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Прежний путь: управляемые сущности со снимками для проверки изменений.
+     */
+    @Benchmark
+    public List<Product> entities() {
+        return readWrite.execute(status -> productRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(ROWS)));
+    }
+
+    @Benchmark
+    public List<Product> readOnlyEntities() {
+        return readOnly.execute(status -> productRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(ROWS)));
+    }
+
+    @Benchmark
+    public List<ProductView> views() {
+        return readOnly.execute(status -> productRepository.findViewsAfter(0L, Limit.of(ROWS)));
+    }
+}
@@ -0,0 +1,74 @@
+package com.propvuebrand.fulfillmentcenters.benchmark;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.propvuebrand.fulfillmentcenters.dto.ProductView;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.util.GeneratedCsv;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON против CBOR и Smile для списочных ответов ({@link ProductView}) и тел пакетных запросов
+ * ({@link Product}). Mapper'ы настроены так же, как конвертеры в {@code BinaryContentConfig}.
+ * Размер закодированного списка печатается при подготовке каждого набора параметров:
+ * <pre>
+ * ./gradlew jmh -Pjmh.includes=ProductEncodingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductEncodingBenchmark {
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectWriter viewWriter;
+    private List<ProductView> views;
+    private ObjectReader productReader;
+    private byte[] encodedProducts;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+            case "smile" -> Jackson2ObjectMapperBuilder.json()
+                    .factory(SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build())
+                    .build();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        List<Product> products = GeneratedCsv.products(rows);
+        views = products.stream().map(ProductView::of).toList();
+        JavaType viewList = objectMapper.getTypeFactory().constructCollectionType(List.class, ProductView.class);
+        JavaType productList = objectMapper.getTypeFactory().constructCollectionType(List.class, Product.class);
+        viewWriter = objectMapper.writerFor(viewList);
+        productReader = objectMapper.readerFor(productList);
+        encodedProducts = objectMapper.writerFor(productList).writeValueAsBytes(products);
+
+        System.out.printf("%n%s, %d rows: response %d bytes, batch body %d bytes%n",
+                format, rows, viewWriter.writeValueAsBytes(views).length, encodedProducts.length);
+    }
+
+    @Benchmark
+    public byte[] writeViews() throws Exception {
+        return viewWriter.writeValueAsBytes(views);
+    }
+
+    @Benchmark
+    public List<Product> readProducts() throws Exception {
+        return productReader.readValue(encodedProducts);
+    }
+}
@@ -0,0 +1,38 @@
+package com.propvuebrand.fulfillmentcenters.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.util.GeneratedCsv;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация списков {@link Product} тем же ObjectMapper, что настраивает Spring MVC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProductSerializationBenchmark {
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    private ObjectWriter writer;
+    private List<Product> products;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Product.class));
+        products = GeneratedCsv.products(rows);
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws Exception {
+        return writer.writeValueAsBytes(products);
+    }
+}
@@ -0,0 +1,80 @@
+package com.propvuebrand.fulfillmentcenters.benchmark;
+
+import com.propvuebrand.fulfillmentcenters.dto.ProductView;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
+import com.propvuebrand.fulfillmentcenters.service.ProductService;
+import com.propvuebrand.fulfillmentcenters.util.BulkProductLoader;
+import com.propvuebrand.fulfillmentcenters.util.GeneratedCsv;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение и запись через {@link ProductService} (JPA-путь) на встроенной базе.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProductServiceBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private long minId;
+    private long maxId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start();
+        productService = context.getBean(ProductService.class);
+        context.getBean(BulkProductLoader.class).load(GeneratedCsv.reader(rows));
+        ProductRepository repository = context.getBean(ProductRepository.class);
+        List<Product> all = repository.findAll();
+        minId = all.stream().mapToLong(Product::getId).min().orElseThrow();
+        maxId = all.stream().mapToLong(Product::getId).max().orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Product> getProduct() {
+        return productService.getProduct(randomId());
+    }
+
+    @Benchmark
+    public List<ProductView> getProductByProductId() {
+        return productService.getProductByProductId("p" + ThreadLocalRandom.current().nextInt(GeneratedCsv.PRODUCT_IDS));
+    }
+
+    @Benchmark
+    public List<ProductView> getProductsByStatus() {
+        return productService.getProductsByStatus(ProductStatus.INBOUND);
+    }
+
+    @Benchmark
+    public Product createProduct() {
+        return productService.createProduct(new Product("bench", ProductStatus.INBOUND, "fc0", 1, 1.0));
+    }
+
+    @Benchmark
+    public Optional<Product> updateProduct() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return productService.updateProduct(randomId(), new Product("p" + random.nextInt(GeneratedCsv.PRODUCT_IDS),
+                ProductStatus.SELLABLE, "fc" + random.nextInt(GeneratedCsv.CENTERS), 1 + random.nextInt(50), 25.0));
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(minId, maxId + 1);
+    }
+}
@@ -0,0 +1,85 @@
+package com.propvuebrand.fulfillmentcenters.benchmark;
+
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
+import com.propvuebrand.fulfillmentcenters.service.ColumnarInventory;
+import com.propvuebrand.fulfillmentcenters.service.InventoryAggregateService;
+import com.propvuebrand.fulfillmentcenters.util.BulkProductLoader;
+import com.propvuebrand.fulfillmentcenters.util.GeneratedCsv;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Итоги стоимости: полный SUM по таблице, строка готовых итогов и колоночный снимок.
+ * Для 10M строк нужна куча порядка 8 ГБ: {@code -jvmArgs -Xmx8g}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TotalValueBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private InventoryAggregateService inventoryAggregateService;
+    private ColumnarInventory columnarInventory;
+    private TransactionTemplate readTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start("fulfillment.columnar.enabled=true");
+        productRepository = context.getBean(ProductRepository.class);
+        inventoryAggregateService = context.getBean(InventoryAggregateService.class);
+        columnarInventory = context.getBean(ColumnarInventory.class);
+        readTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readTransaction.setReadOnly(true);
+        context.getBean(BulkProductLoader.class).load(GeneratedCsv.reader(rows));
+        columnarInventory.reload();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Double sellableSumQuery() {
+        return productRepository.getTotalSellableValue(ProductStatus.SELLABLE);
+    }
+
+    @Benchmark
+    public Double centerSumQuery() {
+        return productRepository.getTotalValueByFulfillmentCenter(randomCenter());
+    }
+
+    @Benchmark
+    public Double sellableAggregate() {
+        return readTransaction.execute(status -> inventoryAggregateService.getTotalValueByStatus("SELLABLE"));
+    }
+
+    @Benchmark
+    public Double centerAggregate() {
+        return readTransaction.execute(status -> inventoryAggregateService.getTotalValueByCenter(randomCenter()));
+    }
+
+    @Benchmark
+    public Double sellableColumnar() {
+        return columnarInventory.getTotalValueByStatus(ProductStatus.SELLABLE);
+    }
+
+    @Benchmark
+    public Double centerColumnar() {
+        return columnarInventory.getTotalValueByCenter(randomCenter());
+    }
+
+    private static String randomCenter() {
+        return "fc" + ThreadLocalRandom.current().nextInt(GeneratedCsv.CENTERS);
+    }
+}
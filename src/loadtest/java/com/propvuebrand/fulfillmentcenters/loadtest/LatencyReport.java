@@ -0,0 +1,157 @@
+package com.propvuebrand.fulfillmentcenters.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограммы задержек по операциям в микросекундах, счётчики ошибок и сравнение с базовой линией.
+ */
+final class LatencyReport {
+
+    /**
+     * Записи дольше минуты обрезаются до минуты, чтобы не терять их совсем.
+     */
+    private static final long HIGHEST_MICROS = Duration.ofMinutes(1).toNanos() / 1000;
+
+    /**
+     * p999 по нескольким сотням запросов — это максимум; его не сравниваем, чтобы не ловить шум.
+     */
+    private static final long MIN_SAMPLES_FOR_P999 = 5000;
+
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    LatencyReport() {
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new ConcurrentHistogram(HIGHEST_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    record Percentiles(long count, long p50, long p99, long p999) {
+    }
+
+    record Baseline(int rate, Map<String, Percentiles> operations) {
+    }
+
+    void record(Operation operation, long nanos) {
+        histograms.get(operation).recordValue(Math.min(Math.max(nanos / 1000, 0), HIGHEST_MICROS));
+    }
+
+    void recordError(Operation operation) {
+        errors.get(operation).increment();
+    }
+
+    Map<String, Percentiles> percentiles() {
+        Map<String, Percentiles> result = new LinkedHashMap<>();
+        histograms.forEach((operation, histogram) -> {
+            if (histogram.getTotalCount() > 0) {
+                result.put(operation.key(), new Percentiles(histogram.getTotalCount(),
+                        histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(99),
+                        histogram.getValueAtPercentile(99.9)));
+            }
+        });
+        return result;
+    }
+
+    double errorRate() {
+        long total = 0;
+        long failed = 0;
+        for (Operation operation : Operation.values()) {
+            total += histograms.get(operation).getTotalCount();
+            failed += errors.get(operation).sum();
+        }
+        return total == 0 ? 0 : (double) failed / total;
+    }
+
+    void print(PrintStream out, Duration elapsed) {
+        out.printf("%-16s %9s %8s %9s %9s %9s %9s%n", "operation", "count", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        histograms.forEach((operation, histogram) -> {
+            if (histogram.getTotalCount() > 0) {
+                out.printf("%-16s %9d %8d %9.2f %9.2f %9.2f %9.2f%n", operation.key(), histogram.getTotalCount(),
+                        errors.get(operation).sum(), millis(histogram.getValueAtPercentile(50)),
+                        millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                        millis(histogram.getMaxValue()));
+            }
+        });
+        long total = histograms.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        out.printf("%d requests in %d s (%.0f/s), error rate %.4f%n", total, elapsed.toSeconds(),
+                total / Math.max(elapsed.toMillis() / 1000.0, 0.001), errorRate());
+    }
+
+    /**
+     * Пишет в {@code directory} процентильное распределение каждой операции ({@code .hgrm},
+     * открывается HdrHistogram plotter) и итог в {@code summary.json}.
+     */
+    void write(Path directory, int rate) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+            if (entry.getValue().getTotalCount() > 0) {
+                try (PrintStream out = new PrintStream(
+                        Files.newOutputStream(directory.resolve(entry.getKey().key() + ".hgrm")))) {
+                    entry.getValue().outputPercentileDistribution(out, 1000.0);
+                }
+            }
+        }
+        JSON.writeValue(directory.resolve("summary.json").toFile(), new Baseline(rate, percentiles()));
+    }
+
+    void writeBaseline(Path file, int rate) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        JSON.writeValue(file.toFile(), new Baseline(rate, percentiles()));
+    }
+
+    static Baseline readBaseline(Path file) throws IOException {
+        return JSON.readValue(file.toFile(), Baseline.class);
+    }
+
+    /**
+     * Процентили, которые выросли больше чем на {@code tolerance} и при этом больше чем на {@code minRegression}.
+     * Операции, которых нет в одном из прогонов, не сравниваются.
+     */
+    List<String> regressions(Baseline baseline, double tolerance, Duration minRegression) {
+        long minMicros = minRegression.toNanos() / 1000;
+        List<String> regressions = new ArrayList<>();
+        percentiles().forEach((operation, current) -> {
+            Percentiles base = baseline.operations().get(operation);
+            if (base == null) {
+                return;
+            }
+            check(regressions, operation, "p50", base.p50(), current.p50(), tolerance, minMicros);
+            check(regressions, operation, "p99", base.p99(), current.p99(), tolerance, minMicros);
+            if (Math.min(base.count(), current.count()) >= MIN_SAMPLES_FOR_P999) {
+                check(regressions, operation, "p999", base.p999(), current.p999(), tolerance, minMicros);
+            }
+        });
+        return regressions;
+    }
+
+    private static void check(List<String> regressions, String operation, String percentile,
+                              long base, long current, double tolerance, long minMicros) {
+        if (current > base * (1 + tolerance) && current - base > minMicros) {
+            regressions.add(String.format("%s %s: %.2f ms -> %.2f ms", operation, percentile,
+                    millis(base), millis(current)));
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
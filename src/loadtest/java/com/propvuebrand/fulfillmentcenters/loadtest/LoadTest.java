@@ -0,0 +1,128 @@
+package com.propvuebrand.fulfillmentcenters.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Генератор нагрузки на запущенное приложение ({@code ./gradlew bootRun}), запускается {@code ./gradlew loadTest}.
+ * <p>
+ * Модель открытая: запросы отправляются с постоянной частотой {@code rate}, каждый в своём виртуальном потоке,
+ * а задержка отсчитывается от запланированного момента отправки, а не от фактического. Если приложение
+ * тормозит, запросы не откладываются вместе с ним (coordinated omission), и ожидание попадает в процентили.
+ * Первые {@code warmup-seconds} не записываются.
+ * <p>
+ * Код выхода 1, если доля ошибок больше {@code max-error-rate} или процентили хуже базовой линии.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Scenario scenario = Scenario.load();
+        ProductClient client = new ProductClient(scenario.baseUrl(), scenario.statusPageSize());
+        client.seed(scenario.seedRows());
+
+        System.out.printf("Driving %s at %d requests/s for %d s after %d s of warmup, mix %s%n", scenario.baseUrl(),
+                scenario.rate(), scenario.duration().toSeconds(), scenario.warmup().toSeconds(), scenario.mix());
+        LatencyReport report = new LatencyReport();
+        run(scenario, client, report);
+        report.print(System.out, scenario.duration());
+        report.write(scenario.reportDirectory(), scenario.rate());
+
+        boolean failed = false;
+        if (report.errorRate() > scenario.maxErrorRate()) {
+            System.out.printf("FAILED: error rate %.4f is above %.4f%n", report.errorRate(), scenario.maxErrorRate());
+            failed = true;
+        }
+        if (scenario.updateBaseline()) {
+            if (!failed) {
+                report.writeBaseline(scenario.baseline(), scenario.rate());
+                System.out.println("Baseline written to " + scenario.baseline());
+            }
+        } else {
+            failed |= !compareWithBaseline(scenario, report);
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static void run(Scenario scenario, ProductClient client, LatencyReport report) {
+        long interval = 1_000_000_000L / scenario.rate();
+        long start = System.nanoTime();
+        long measureFrom = start + scenario.warmup().toNanos();
+        long end = measureFrom + scenario.duration().toNanos();
+        Semaphore inFlight = new Semaphore(scenario.maxInFlight());
+        AtomicLong lastErrorLogged = new AtomicLong();
+        SplittableRandom random = new SplittableRandom(42);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intended = start + i * interval;
+                if (intended >= end) {
+                    break;
+                }
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                // При упоре в лимит генератор ждёт, но задержка всё равно считается от intended
+                inFlight.acquireUninterruptibly();
+                Operation planned = scenario.next(random);
+                executor.execute(() -> {
+                    Operation executed = planned;
+                    boolean error = false;
+                    try {
+                        executed = client.execute(planned);
+                    } catch (IOException e) {
+                        error = true;
+                        long now = System.nanoTime();
+                        long previous = lastErrorLogged.get();
+                        if (now - previous > 1_000_000_000L && lastErrorLogged.compareAndSet(previous, now)) {
+                            System.err.println("Request failed: " + e.getMessage());
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } finally {
+                        inFlight.release();
+                    }
+                    if (intended >= measureFrom) {
+                        report.record(executed, System.nanoTime() - intended);
+                        if (error) {
+                            report.recordError(executed);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private static boolean compareWithBaseline(Scenario scenario, LatencyReport report) throws IOException {
+        if (!Files.exists(scenario.baseline())) {
+            System.out.println("No baseline at " + scenario.baseline()
+                    + "; record one with -Ploadtest.update-baseline=true");
+            return true;
+        }
+        LatencyReport.Baseline baseline = LatencyReport.readBaseline(scenario.baseline());
+        if (baseline.rate() != scenario.rate()) {
+            System.out.printf("WARNING: baseline was recorded at %d requests/s, this run used %d%n",
+                    baseline.rate(), scenario.rate());
+        }
+        List<String> regressions = report.regressions(baseline, scenario.tolerance(), scenario.minRegression());
+        if (regressions.isEmpty()) {
+            System.out.println("No latency regressions against " + scenario.baseline());
+            return true;
+        }
+        System.out.printf("FAILED: latency regressions against %s (tolerance %.0f%%):%n",
+                scenario.baseline(), scenario.tolerance() * 100);
+        regressions.forEach(regression -> System.out.println("  " + regression));
+        return false;
+    }
+}
@@ -0,0 +1,26 @@
+package com.propvuebrand.fulfillmentcenters.loadtest;
+
+/**
+ * Вызовы {@code ProductController}, из которых складывается смесь нагрузки.
+ * Ключ используется в {@code mix.*} сценария, в отчёте и в файле базовой линии.
+ */
+enum Operation {
+    GET_BY_ID("get-by-id"),
+    BY_PRODUCT_ID("by-product-id"),
+    BY_STATUS("by-status"),
+    SELLABLE_TOTAL("sellable-total"),
+    CENTER_TOTAL("center-total"),
+    CREATE("create"),
+    UPDATE("update"),
+    DELETE("delete");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+}
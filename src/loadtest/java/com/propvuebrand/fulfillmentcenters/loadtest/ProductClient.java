@@ -0,0 +1,157 @@
+package com.propvuebrand.fulfillmentcenters.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Запросы к {@code /api/products} для одной операции смеси.
+ * <p>
+ * Чтения идут по строкам, прочитанным при старте, и эти строки не меняются. Обновления и удаления
+ * затрагивают только продукты, созданные самим прогоном: каждый такой id в один момент времени
+ * принадлежит одному запросу, поэтому ответы не зависят от гонок между запросами, а исходные
+ * данные остаются нетронутыми. Пока созданных продуктов нет, вместо обновления или удаления выполняется создание.
+ */
+final class ProductClient {
+
+    private static final String[] STATUSES = {"SELLABLE", "UNFULFILLABLE", "INBOUND"};
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final URI products;
+    private final int statusPageSize;
+
+    private final List<Long> seededIds = new ArrayList<>();
+    private final List<String> productIds = new ArrayList<>();
+    private final List<String> centers = new ArrayList<>();
+    private final Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+
+    ProductClient(URI baseUrl, int statusPageSize) {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.products = baseUrl.resolve("/api/products");
+        this.statusPageSize = statusPageSize;
+    }
+
+    /**
+     * Читает первую страницу продуктов, из которой берутся id, productId и центры для чтений.
+     */
+    void seed(int rows) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(get("?limit=" + rows), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("GET " + products + " returned " + response.statusCode());
+        }
+        for (JsonNode product : objectMapper.readTree(response.body())) {
+            seededIds.add(product.get("id").asLong());
+            String productId = product.get("productId").asText();
+            if (!productIds.contains(productId)) {
+                productIds.add(productId);
+            }
+            String center = product.get("fulfillmentCenter").asText();
+            if (!centers.contains(center)) {
+                centers.add(center);
+            }
+        }
+        if (seededIds.isEmpty()) {
+            throw new IOException("No products at " + products + "; load data before running the load test");
+        }
+    }
+
+    /**
+     * Выполняет операцию и возвращает то, что реально выполнено (обновление или удаление без созданных
+     * продуктов становится созданием), либо бросает {@link IOException} на неожиданный статус.
+     */
+    Operation execute(Operation operation) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (operation) {
+            case GET_BY_ID -> expect(operation, discard(get("/" + pick(seededIds, random))), 200);
+            case BY_PRODUCT_ID -> expect(operation, discard(get("/product-id/" + pick(productIds, random))), 200);
+            case BY_STATUS -> expect(operation,
+                    discard(get("/status/" + STATUSES[random.nextInt(STATUSES.length)] + "?limit=" + statusPageSize)), 200);
+            case SELLABLE_TOTAL -> expect(operation, discard(get("/sellable/total-value")), 200);
+            case CENTER_TOTAL -> expect(operation, discard(get("/center/" + pick(centers, random) + "/total-value")), 200);
+            case CREATE -> create(random);
+            case UPDATE -> {
+                Long id = createdIds.poll();
+                if (id == null) {
+                    create(random);
+                    return Operation.CREATE;
+                }
+                expect(operation, discard(request("/" + id)
+                        .PUT(HttpRequest.BodyPublishers.ofString(body(random)))
+                        .build()), 200);
+                createdIds.offer(id);
+            }
+            case DELETE -> {
+                Long id = createdIds.poll();
+                if (id == null) {
+                    create(random);
+                    return Operation.CREATE;
+                }
+                expect(operation, discard(request("/" + id).DELETE().build()), 200);
+            }
+        }
+        return operation;
+    }
+
+    private void create(ThreadLocalRandom random) throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(request("")
+                .POST(HttpRequest.BodyPublishers.ofString(body(random)))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        expect(Operation.CREATE, response.statusCode(), 201);
+        createdIds.offer(objectMapper.readTree(response.body()).get("id").asLong());
+    }
+
+    private String body(ThreadLocalRandom random) throws IOException {
+        ObjectNode product = objectMapper.createObjectNode()
+                .put("productId", pick(productIds, random))
+                .put("status", STATUSES[random.nextInt(STATUSES.length)])
+                .put("fulfillmentCenter", pick(centers, random))
+                .put("quantity", 1 + random.nextInt(50))
+                .put("value", 10.0 + random.nextInt(990));
+        return objectMapper.writeValueAsString(product);
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(products + path))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+    }
+
+    /**
+     * Тело читается целиком и отбрасывается, так что задержка включает передачу ответа.
+     */
+    private int discard(HttpRequest request) throws IOException, InterruptedException {
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static void expect(Operation operation, int status, int expected) throws IOException {
+        if (status != expected) {
+            throw new IOException(operation.key() + " returned " + status);
+        }
+    }
+
+    private static <T> T pick(List<T> values, ThreadLocalRandom random) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
@@ -0,0 +1,102 @@
+package com.propvuebrand.fulfillmentcenters.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.random.RandomGenerator;
+
+/**
+ * Параметры прогона. Значения берутся из {@code scenario.properties} на classpath, затем из файла
+ * {@code loadtest.scenario}, затем из системных свойств {@code loadtest.*} (Gradle передаёт
+ * в них {@code -Ploadtest.*}).
+ */
+record Scenario(URI baseUrl,
+                int rate,
+                Duration warmup,
+                Duration duration,
+                int maxInFlight,
+                Map<Operation, Integer> mix,
+                int seedRows,
+                int statusPageSize,
+                Path baseline,
+                boolean updateBaseline,
+                double tolerance,
+                Duration minRegression,
+                double maxErrorRate,
+                Path reportDirectory) {
+
+    private static final String PREFIX = "loadtest.";
+
+    Scenario {
+        if (rate <= 0 || maxInFlight <= 0 || seedRows <= 0) {
+            throw new IllegalArgumentException("rate, max-in-flight and seed-rows must be positive");
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("Scenario mix has no operations");
+        }
+        mix = Collections.unmodifiableMap(new EnumMap<>(mix));
+    }
+
+    static Scenario load() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream defaults = Scenario.class.getResourceAsStream("/scenario.properties")) {
+            if (defaults != null) {
+                properties.load(defaults);
+            }
+        }
+        String file = System.getProperty(PREFIX + "scenario");
+        if (file != null) {
+            try (Reader reader = Files.newBufferedReader(Path.of(file))) {
+                properties.load(reader);
+            }
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(PREFIX)) {
+                properties.setProperty(name.substring(PREFIX.length()), System.getProperty(name));
+            }
+        }
+
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            mix.put(operation, Integer.parseInt(properties.getProperty("mix." + operation.key(), "0")));
+        }
+        return new Scenario(
+                URI.create(properties.getProperty("base-url", "http://localhost:8080")),
+                Integer.parseInt(properties.getProperty("rate", "200")),
+                Duration.ofSeconds(Long.parseLong(properties.getProperty("warmup-seconds", "10"))),
+                Duration.ofSeconds(Long.parseLong(properties.getProperty("duration-seconds", "60"))),
+                Integer.parseInt(properties.getProperty("max-in-flight", "512")),
+                mix,
+                Integer.parseInt(properties.getProperty("seed-rows", "1000")),
+                Integer.parseInt(properties.getProperty("status-page-size", "100")),
+                Path.of(properties.getProperty("baseline", "src/loadtest/baseline.json")),
+                Boolean.parseBoolean(properties.getProperty("update-baseline", "false")),
+                Double.parseDouble(properties.getProperty("tolerance", "0.2")),
+                Duration.ofMillis(Long.parseLong(properties.getProperty("min-regression-ms", "2"))),
+                Double.parseDouble(properties.getProperty("max-error-rate", "0.01")),
+                Path.of(properties.getProperty("report-dir", "build/loadtest")));
+    }
+
+    /**
+     * Выбирает операцию пропорционально весам {@code mix}.
+     */
+    Operation next(RandomGenerator random) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int point = random.nextInt(total);
+        for (Operation operation : Operation.values()) {
+            point -= mix.getOrDefault(operation, 0);
+            if (point < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+}
@@ -2,12 +2,20 @@ package com.propvuebrand.fulfillmentcenters;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class FulfillmentCentersApplication {
 
+    /**
+     * Сколько шагов запуска хранится для отчёта о запуске; остальные не записываются.
+     */
+    private static final int STARTUP_STEPS_CAPACITY = 4096;
+
     public static void main(String[] args) {
-        SpringApplication.run(FulfillmentCentersApplication.class, args);
+        SpringApplication application = new SpringApplication(FulfillmentCentersApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS_CAPACITY));
+        application.run(args);
     }
 
 }
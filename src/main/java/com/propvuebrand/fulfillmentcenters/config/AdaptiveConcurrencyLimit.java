@@ -0,0 +1,158 @@
+package com.propvuebrand.fulfillmentcenters.config;
+
+import com.propvuebrand.fulfillmentcenters.dto.AdmissionStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Лимит одновременных запросов, подстраиваемый по задержке (градиентный алгоритм).
+ * <p>
+ * Задержки копятся в окне ({@code windowMillis}, но не меньше {@value #MIN_SAMPLES} ответов). По окну считаются
+ * короткая задержка (среднее за окно) и длинная (экспоненциальное среднее коротких). Отношение длинной к короткой
+ * с допуском {@value #TOLERANCE} — градиент от 0.5 до 1: пока задержка не растёт, лимит увеличивается на
+ * корень из себя, при росте задержки уменьшается пропорционально. Первый ответ 5xx в окне сразу снижает лимит
+ * на 10%, остальные ошибки того же окна — нет, иначе пачка ошибок опустила бы лимит до минимума за один миг.
+ * Ошибки считаются ответами окна, но в задержку не входят.
+ * Окно, в котором занято меньше половины лимита, лимит не меняет: нагрузки мало, и задержка о пределе ничего
+ * не говорит.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    static final int MIN_SAMPLES = 10;
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_WINDOWS = 100;
+    private static final double ERROR_BACKOFF = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long accepted;
+    private long rejected;
+
+    private long windowStart = System.nanoTime();
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowErrors;
+    private int windowMaxInFlight;
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimit(String name, int initialLimit, int minLimit, int maxLimit, long windowMillis) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Invalid limits for " + name + ": initial " + initialLimit
+                    + ", min " + minLimit + ", max " + maxLimit);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Занимает место, ожидая не дольше {@code maxWaitNanos}. false — лимит исчерпан, запрос нужно отклонить.
+     * Ожидающих не больше текущего лимита: очередь длиннее лимита только растянула бы задержку.
+     */
+    public boolean tryAcquire(long maxWaitNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight >= currentLimit()) {
+                if (maxWaitNanos <= 0 || queued >= currentLimit()) {
+                    rejected++;
+                    return false;
+                }
+                queued++;
+                try {
+                    long remaining = maxWaitNanos;
+                    while (inFlight >= currentLimit()) {
+                        if (remaining <= 0) {
+                            rejected++;
+                            return false;
+                        }
+                        remaining = released.awaitNanos(remaining);
+                    }
+                } finally {
+                    queued--;
+                }
+            }
+            inFlight++;
+            accepted++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Освобождает место, занятое {@link #tryAcquire}, и учитывает задержку запроса.
+     */
+    public void release(long rttNanos, boolean failed) {
+        lock.lock();
+        try {
+            inFlight--;
+            if (failed) {
+                if (windowErrors++ == 0) {
+                    limit = Math.max(minLimit, limit * ERROR_BACKOFF);
+                }
+            } else {
+                windowRttSum += rttNanos;
+                windowSamples++;
+            }
+            long now = System.nanoTime();
+            if (windowSamples + windowErrors >= MIN_SAMPLES && now - windowStart >= windowNanos) {
+                if (windowSamples > 0) {
+                    update((double) windowRttSum / windowSamples);
+                }
+                windowStart = now;
+                windowRttSum = 0;
+                windowSamples = 0;
+                windowErrors = 0;
+                windowMaxInFlight = inFlight;
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int currentLimit() {
+        return (int) limit;
+    }
+
+    public AdmissionStats.EndpointLimit getStats() {
+        lock.lock();
+        try {
+            return new AdmissionStats.EndpointLimit(name, currentLimit(), minLimit, maxLimit, inFlight, queued,
+                    accepted, rejected, shortRtt / 1_000_000, longRtt / 1_000_000);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(double rtt) {
+        shortRtt = rtt;
+        longRtt = longRtt == 0 ? rtt : longRtt + (rtt - longRtt) / LONG_WINDOWS;
+        // Задержка заметно упала (например, после разгрузки базы) — длинное среднее догоняет её быстрее
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        if (windowMaxInFlight < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+    }
+}
@@ -0,0 +1,200 @@
+package com.propvuebrand.fulfillmentcenters.config;
+
+import com.propvuebrand.fulfillmentcenters.dto.AdmissionStats;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ограничение одновременных запросов к {@code /api/products} по классам эндпоинтов
+ * ({@code fulfillment.admission.enabled=true}). У каждого класса свой {@link AdaptiveConcurrencyLimit},
+ * так что дорогие списки и итоги не занимают все соединения пула, пока ждут дешёвые чтения по id.
+ * Сверх лимита запрос ждёт до {@code fulfillment.admission.max-wait-ms} и получает 429 с {@code Retry-After}.
+ * <p>
+ * Лимиты класса задаются {@code fulfillment.admission.<класс>.initial-limit}, {@code .min-limit},
+ * {@code .max-limit}. Лента изменений и импорт не ограничиваются: они почти всё время ждут, не держа соединение.
+ * Потоковые выдачи держат соединение до конца передачи, поэтому место освобождается по завершении
+ * асинхронной обработки, а не при выходе из фильтра.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String PRODUCTS = "/api/products";
+    private static final String PROPERTY_PREFIX = "fulfillment.admission.";
+
+    public enum EndpointClass {
+        POINT("point", 50, 5, 200),
+        LIST("list", 10, 2, 50),
+        AGGREGATE("aggregate", 5, 1, 20),
+        STREAM("stream", 4, 1, 4),
+        WRITE("write", 20, 2, 100);
+
+        private final String key;
+        private final int initialLimit;
+        private final int minLimit;
+        private final int maxLimit;
+
+        EndpointClass(String key, int initialLimit, int minLimit, int maxLimit) {
+            this.key = key;
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+
+        public String key() {
+            return key;
+        }
+    }
+
+    private final boolean enabled;
+    private final long maxWaitNanos;
+    private final String retryAfterSeconds;
+    private final Map<EndpointClass, AdaptiveConcurrencyLimit> limits = new EnumMap<>(EndpointClass.class);
+
+    @Autowired
+    public AdmissionControlFilter(Environment environment,
+                                  @Value("${fulfillment.admission.enabled:false}") boolean enabled,
+                                  @Value("${fulfillment.admission.max-wait-ms:0}") long maxWaitMillis,
+                                  @Value("${fulfillment.admission.retry-after-seconds:1}") int retryAfterSeconds,
+                                  @Value("${fulfillment.admission.window-ms:100}") long windowMillis) {
+        this.enabled = enabled;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.retryAfterSeconds = Integer.toString(retryAfterSeconds);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String prefix = PROPERTY_PREFIX + endpointClass.key() + ".";
+            limits.put(endpointClass, new AdaptiveConcurrencyLimit(endpointClass.key(),
+                    environment.getProperty(prefix + "initial-limit", Integer.class, endpointClass.initialLimit),
+                    environment.getProperty(prefix + "min-limit", Integer.class, endpointClass.minLimit),
+                    environment.getProperty(prefix + "max-limit", Integer.class, endpointClass.maxLimit),
+                    windowMillis));
+        }
+    }
+
+    public AdmissionStats getStats() {
+        return new AdmissionStats(enabled, Arrays.stream(EndpointClass.values())
+                .map(endpointClass -> limits.get(endpointClass).getStats())
+                .toList());
+    }
+
+    /**
+     * Класс запроса или null, если запрос не ограничивается.
+     */
+    static EndpointClass classify(String method, String path) {
+        if (!path.equals(PRODUCTS) && !path.startsWith(PRODUCTS + "/")) {
+            return null;
+        }
+        String rest = path.substring(PRODUCTS.length());
+        if (rest.startsWith("/changes") || rest.startsWith("/import")) {
+            return null;
+        }
+        if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)) {
+            return EndpointClass.WRITE;
+        }
+        if (rest.endsWith("/stream") || rest.startsWith("/export")) {
+            return EndpointClass.STREAM;
+        }
+        if (rest.endsWith("/total-value") || rest.startsWith("/summary")) {
+            return EndpointClass.AGGREGATE;
+        }
+        if (rest.matches("/\\d+")) {
+            return EndpointClass.POINT;
+        }
+        return EndpointClass.LIST;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || classify(request.getMethod(), path(request)) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdaptiveConcurrencyLimit limit = limits.get(classify(request.getMethod(), path(request)));
+        boolean acquired;
+        try {
+            acquired = limit.tryAcquire(maxWaitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many concurrent requests");
+            return;
+        }
+
+        Permit permit = new Permit(limit, response);
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release(failed);
+            }
+        }
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static final class Permit implements AsyncListener {
+        private final AdaptiveConcurrencyLimit limit;
+        private final HttpServletResponse response;
+        private final long started = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(AdaptiveConcurrencyLimit limit, HttpServletResponse response) {
+            this.limit = limit;
+            this.response = response;
+        }
+
+        void release(boolean failed) {
+            if (released.compareAndSet(false, true)) {
+                limit.release(System.nanoTime() - started, failed || response.getStatus() >= 500);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(false);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.propvuebrand.fulfillmentcenters.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Подключение реплики для чтения ({@code fulfillment.replica.enabled=true}). Основной пул настраивается
+ * как обычно ({@code spring.datasource.*}), пул реплики — {@code fulfillment.replica.datasource.*}
+ * (url, username, password и {@code hikari.*}).
+ */
+@Configuration
+@ConditionalOnProperty(name = "fulfillment.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource dataSource(DataSourceProperties properties,
+                                               Environment environment,
+                                               ReplicaReadRouting routing,
+                                               @Value("${fulfillment.replica.lag-query:}") String lagQuery,
+                                               @Value("${fulfillment.replica.lag-check-interval-ms:1000}") long lagCheckIntervalMillis,
+                                               @Value("${fulfillment.replica.retry-after-ms:5000}") long retryAfterMillis) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = pool(properties, binder, "spring.datasource.hikari", "primary");
+        DataSourceProperties replicaProperties = binder
+                .bind("fulfillment.replica.datasource", DataSourceProperties.class)
+                .orElseThrow(() -> new IllegalStateException("fulfillment.replica.datasource.url is not set"));
+        HikariDataSource replica = pool(replicaProperties, binder, "fulfillment.replica.datasource.hikari", "replica");
+        replica.setReadOnly(true);
+        return new ReplicaRoutingDataSource(primary, replica, routing, lagQuery, lagCheckIntervalMillis, retryAfterMillis);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Binder binder, String hikariPrefix, String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind(hikariPrefix, Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        return pool;
+    }
+}
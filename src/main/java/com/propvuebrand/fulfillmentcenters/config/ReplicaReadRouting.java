@@ -0,0 +1,65 @@
+package com.propvuebrand.fulfillmentcenters.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Разрешение читать с реплики для отдельного вызова. Чтение идёт на реплику, только если транзакция
+ * только для чтения, вызов обёрнут в {@link #run}/{@link #call} и отставание реплики не больше допустимого
+ * для эндпоинта: {@code fulfillment.replica.max-staleness-ms.<endpoint>}, по умолчанию
+ * {@code fulfillment.replica.max-staleness-ms}. Значение 0 оставляет эндпоинт на основной базе.
+ * <p>
+ * Остальные чтения (в том числе сверка итогов и загрузка снимков в память) всегда идут на основную базу.
+ */
+@Component
+public class ReplicaReadRouting {
+
+    private static final String STALENESS_PREFIX = "fulfillment.replica.max-staleness-ms.";
+
+    private final ThreadLocal<Long> maxStaleness = new ThreadLocal<>();
+    private final Environment environment;
+    private final long defaultMaxStalenessMillis;
+
+    @Autowired
+    public ReplicaReadRouting(Environment environment,
+                              @Value("${fulfillment.replica.max-staleness-ms:1000}") long defaultMaxStalenessMillis) {
+        this.environment = environment;
+        this.defaultMaxStalenessMillis = defaultMaxStalenessMillis;
+    }
+
+    public void run(String endpoint, Runnable action) {
+        call(endpoint, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public <T> T call(String endpoint, Supplier<T> action) {
+        Long previous = maxStaleness.get();
+        maxStaleness.set(maxStalenessMillis(endpoint));
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                maxStaleness.remove();
+            } else {
+                maxStaleness.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Допустимое отставание реплики для текущего вызова или null, если вызов не разрешает чтение с реплики.
+     */
+    public Long currentMaxStalenessMillis() {
+        return maxStaleness.get();
+    }
+
+    public long maxStalenessMillis(String endpoint) {
+        return environment.getProperty(STALENESS_PREFIX + endpoint, Long.class, defaultMaxStalenessMillis);
+    }
+}
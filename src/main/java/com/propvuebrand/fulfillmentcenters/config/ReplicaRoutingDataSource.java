@@ -0,0 +1,153 @@
+package com.propvuebrand.fulfillmentcenters.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Основной пул и пул реплики за одним {@link javax.sql.DataSource}. Соединение берётся лениво, когда
+ * уже известно, что транзакция только для чтения; такие соединения идут на реплику, если это разрешил
+ * {@link ReplicaReadRouting}, реплика доступна и её отставание не больше допустимого. Иначе используется
+ * основной пул.
+ * <p>
+ * Отставание измеряется запросом {@code fulfillment.replica.lag-query} (миллисекунды) не чаще раза в
+ * {@code fulfillment.replica.lag-check-interval-ms}; без запроса считается нулевым. Если реплика не отдаёт
+ * соединение, она не используется {@code fulfillment.replica.retry-after-ms}.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final ReplicaReadRouting routing;
+    private final String lagQuery;
+    private final long lagCheckIntervalMillis;
+    private final long retryAfterMillis;
+
+    private volatile long lagMillis;
+    private volatile long lagCheckedAt;
+    private volatile long unavailableUntil;
+
+    private final AtomicLong replicaConnections = new AtomicLong();
+    private final AtomicLong primaryFallbacks = new AtomicLong();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary,
+                                    HikariDataSource replica,
+                                    ReplicaReadRouting routing,
+                                    String lagQuery,
+                                    long lagCheckIntervalMillis,
+                                    long retryAfterMillis) {
+        super(primary);
+        this.primary = primary;
+        this.replica = replica;
+        this.routing = routing;
+        this.lagQuery = lagQuery;
+        this.lagCheckIntervalMillis = lagCheckIntervalMillis;
+        this.retryAfterMillis = retryAfterMillis;
+        setReadOnlyDataSource(new ReadOnlyTarget());
+    }
+
+    public HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    public HikariDataSource getReplica() {
+        return replica;
+    }
+
+    public boolean isReplicaAvailable() {
+        return System.currentTimeMillis() >= unavailableUntil;
+    }
+
+    public long getReplicaLagMillis() {
+        return lagMillis;
+    }
+
+    public long getReplicaConnections() {
+        return replicaConnections.get();
+    }
+
+    public long getPrimaryFallbacks() {
+        return primaryFallbacks.get();
+    }
+
+    @Override
+    public void destroy() {
+        replica.close();
+        primary.close();
+    }
+
+    private Connection readOnlyConnection() throws SQLException {
+        Long maxStaleness = routing.currentMaxStalenessMillis();
+        if (maxStaleness == null || maxStaleness <= 0) {
+            return primary.getConnection();
+        }
+        if (isReplicaAvailable()) {
+            Connection connection = null;
+            try {
+                connection = replica.getConnection();
+                if (currentLag(connection) <= maxStaleness) {
+                    replicaConnections.incrementAndGet();
+                    return connection;
+                }
+                connection.close();
+            } catch (SQLException e) {
+                if (connection != null) {
+                    // Иначе каждая неудачная проверка задержки оставляет соединение занятым в пуле реплики
+                    closeQuietly(connection);
+                }
+                unavailableUntil = System.currentTimeMillis() + retryAfterMillis;
+                log.warn("Replica is unavailable, reading from primary for {} ms: {}", retryAfterMillis, e.getMessage());
+            }
+        }
+        primaryFallbacks.incrementAndGet();
+        return primary.getConnection();
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close replica connection", e);
+        }
+    }
+
+    private long currentLag(Connection connection) throws SQLException {
+        if (!StringUtils.hasText(lagQuery)) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lagCheckedAt >= lagCheckIntervalMillis) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                lagMillis = rs.next() ? rs.getLong(1) : 0;
+            }
+            lagCheckedAt = now;
+        }
+        return lagMillis;
+    }
+
+    private final class ReadOnlyTarget extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return readOnlyConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new UnsupportedOperationException("pooled data source");
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.propvuebrand.fulfillmentcenters.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * Область учёта SQL на каждый публичный метод {@code ProductService}. Снаружи транзакции, чтобы в счёт попали
+ * команды, которые Hibernate выполняет при фиксации.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServiceSqlStatementAspect {
+
+    private final SqlStatementRecorder recorder;
+
+    public ServiceSqlStatementAspect(SqlStatementRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Around("execution(public * com.propvuebrand.fulfillmentcenters.service.ProductService.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        String name = "ProductService." + joinPoint.getSignature().getName();
+        try (SqlStatementRecorder.Scope scope = recorder.open(name)) {
+            try {
+                return joinPoint.proceed();
+            } finally {
+                recorder.publish("service", name, scope.stats());
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.propvuebrand.fulfillmentcenters.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.ConnectionInfo;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogic;
+import net.ttddyy.dsproxy.proxy.ResultSetProxyLogicFactory;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Учёт SQL ({@code fulfillment.sql.instrumentation.enabled}, включён по умолчанию): основной {@code DataSource}
+ * (бин {@code dataSource}, в том числе с репликой) оборачивается прокси datasource-proxy, который сообщает
+ * о каждой команде в {@link SqlStatementRecorder}, а при {@code fulfillment.sql.count-rows} — и о каждой
+ * прочитанной строке.
+ */
+@Configuration
+@ConditionalOnProperty(name = "fulfillment.sql.instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlInstrumentationConfig {
+
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    @Bean
+    public SqlStatementRecorder sqlStatementRecorder(ObjectProvider<MeterRegistry> meterRegistry,
+                                                     @Value("${fulfillment.sql.slow-query-ms:200}") long slowQueryMillis) {
+        return new SqlStatementRecorder(meterRegistry, slowQueryMillis);
+    }
+
+    /**
+     * Без {@code fulfillment.sql.count-rows} {@code ResultSet} не оборачивается вовсе: потоковые выдачи, COPY
+     * и загрузка колоночного снимка читают строки без прокси.
+     */
+    @Bean
+    public static BeanPostProcessor sqlInstrumentingDataSourcePostProcessor(
+            ObjectProvider<SqlStatementRecorder> recorder,
+            @Value("${fulfillment.sql.count-rows:false}") boolean countRows) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!DATA_SOURCE_BEAN.equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                SqlStatementRecorder listener = recorder.getObject();
+                ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(DATA_SOURCE_BEAN, dataSource)
+                        .listener(listener);
+                if (countRows) {
+                    builder.proxyResultSet(new RowCountingResultSetLogicFactory(listener));
+                }
+                return new InstrumentedDataSource(builder.build(), dataSource);
+            }
+        };
+    }
+
+    @Bean
+    public SqlStatementFilter sqlStatementFilter(SqlStatementRecorder recorder) {
+        return new SqlStatementFilter(recorder);
+    }
+
+    @Bean
+    public ServiceSqlStatementAspect serviceSqlStatementAspect(SqlStatementRecorder recorder) {
+        return new ServiceSqlStatementAspect(recorder);
+    }
+
+    /**
+     * Прокси {@code ResultSet}, который замечает только {@code next()}: остальные вызовы уходят в исходный
+     * {@code ResultSet} без контекста вызова и слушателей datasource-proxy.
+     */
+    static final class RowCountingResultSetLogicFactory implements ResultSetProxyLogicFactory {
+        private final SqlStatementRecorder recorder;
+
+        RowCountingResultSetLogicFactory(SqlStatementRecorder recorder) {
+            this.recorder = recorder;
+        }
+
+        @Override
+        public ResultSetProxyLogic create(ResultSet resultSet, ConnectionInfo connectionInfo, ProxyConfig proxyConfig) {
+            return (method, args) -> {
+                Object result;
+                try {
+                    result = method.invoke(resultSet, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (result == Boolean.TRUE && "next".equals(method.getName())) {
+                    recorder.rowFetched();
+                }
+                return result;
+            };
+        }
+    }
+
+    /**
+     * Прокси с доступом к исходному пулу: {@code unwrap} находит Hikari и {@code ReplicaRoutingDataSource},
+     * а при остановке контекста исходный пул закрывается, как если бы он не был обёрнут.
+     */
+    static final class InstrumentedDataSource extends DelegatingDataSource implements DisposableBean {
+        private final DataSource original;
+
+        InstrumentedDataSource(DataSource proxy, DataSource original) {
+            super(proxy);
+            this.original = original;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            if (iface.isInstance(this)) {
+                return (T) this;
+            }
+            return iface.isInstance(original) ? (T) original : original.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return iface.isInstance(this) || iface.isInstance(original) || original.isWrapperFor(iface);
+        }
+
+        @Override
+        public void destroy() throws Exception {
+            if (original instanceof DisposableBean disposable) {
+                disposable.destroy();
+            } else if (original instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.propvuebrand.fulfillmentcenters.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Область учёта SQL на HTTP-запрос; метрики помечаются шаблоном пути ({@code GET /api/products/{id}}).
+ * Потоковые выдачи пишут тело в другом потоке, и их SQL в область запроса не попадает.
+ */
+public class SqlStatementFilter extends OncePerRequestFilter {
+
+    private final SqlStatementRecorder recorder;
+
+    public SqlStatementFilter(SqlStatementRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try (SqlStatementRecorder.Scope scope = recorder.open(request.getMethod() + " " + request.getRequestURI())) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                recorder.publish("http", request.getMethod() + " " + (pattern == null ? "UNMAPPED" : pattern),
+                        scope.stats());
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.propvuebrand.fulfillmentcenters.config;
+
+import com.propvuebrand.fulfillmentcenters.dto.SqlStatementStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Учёт SQL по областям: HTTP-запрос, вызов {@code ProductService}, проверка в тесте. Слушает прокси
+ * {@code DataSource} и добавляет команды, время в базе и прочитанные строки во все открытые на текущем потоке
+ * области, так что вызов сервиса учитывается и в своей области, и в области запроса. Строки считаются,
+ * только если включён {@code fulfillment.sql.count-rows}.
+ * <p>
+ * Команды дольше {@code fulfillment.sql.slow-query-ms} пишутся в лог вместе с параметрами и областью;
+ * у пакетных команд — только первые {@value #MAX_LOGGED_PARAMETER_SETS} набора параметров.
+ * Итоги областей публикуются в Micrometer: {@code fulfillment.sql.statements}, {@code fulfillment.sql.rows}
+ * и {@code fulfillment.sql.time} с тегами {@code scope} и {@code name}.
+ */
+public class SqlStatementRecorder implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementRecorder.class);
+
+    static final int MAX_LOGGED_PARAMETER_SETS = 3;
+
+    private final ThreadLocal<Scope> current = new ThreadLocal<>();
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final long slowQueryMillis;
+
+    public SqlStatementRecorder(ObjectProvider<MeterRegistry> meterRegistry, long slowQueryMillis) {
+        this.meterRegistry = meterRegistry;
+        this.slowQueryMillis = slowQueryMillis;
+    }
+
+    /**
+     * Открывает область на текущем потоке; закрывать в том же потоке, в обратном порядке открытия.
+     */
+    public Scope open(String label) {
+        return open(label, false);
+    }
+
+    /**
+     * То же, но область ещё и запоминает тексты команд (для сообщений в тестах).
+     */
+    public Scope open(String label, boolean captureQueries) {
+        Scope scope = new Scope(label, current.get(), captureQueries);
+        current.set(scope);
+        return scope;
+    }
+
+    public void publish(String scope, String name, SqlStatementStats stats) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        Tags tags = Tags.of("scope", scope, "name", name);
+        registry.summary("fulfillment.sql.statements", tags).record(stats.statements());
+        registry.summary("fulfillment.sql.rows", tags).record(stats.rows());
+        registry.timer("fulfillment.sql.time", tags).record(stats.dbTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        Scope innermost = current.get();
+        for (Scope scope = innermost; scope != null; scope = scope.parent) {
+            scope.statements++;
+            scope.dbTimeMillis += elapsed;
+            if (scope.queries != null) {
+                queryInfoList.forEach(query -> scope.queries.add(query.getQuery()));
+            }
+        }
+        if (slowQueryMillis > 0 && elapsed >= slowQueryMillis) {
+            log.warn("Slow SQL ({} ms) in {}: {}", elapsed, innermost == null ? "no scope" : innermost.label,
+                    queryInfoList.stream().map(SqlStatementRecorder::describe).collect(Collectors.joining("; ")));
+        }
+    }
+
+    /**
+     * Вызывается прокси {@code ResultSet} на каждый {@code next()}, вернувший true.
+     */
+    public void rowFetched() {
+        for (Scope scope = current.get(); scope != null; scope = scope.parent) {
+            scope.rows++;
+        }
+    }
+
+    private static String describe(QueryInfo query) {
+        StringBuilder description = new StringBuilder(query.getQuery());
+        List<List<ParameterSetOperation>> parameterSets = query.getParametersList();
+        for (List<ParameterSetOperation> parameters
+                : parameterSets.subList(0, Math.min(parameterSets.size(), MAX_LOGGED_PARAMETER_SETS))) {
+            description.append(parameters.stream()
+                    .map(operation -> {
+                        Object[] args = operation.getArgs();
+                        Object value = "setNull".equals(operation.getMethod().getName()) ? null : args[1];
+                        return args[0] + "=" + value;
+                    })
+                    .collect(Collectors.joining(", ", " [", "]")));
+        }
+        if (parameterSets.size() > MAX_LOGGED_PARAMETER_SETS) {
+            description.append(" ... ").append(parameterSets.size() - MAX_LOGGED_PARAMETER_SETS)
+                    .append(" more parameter sets");
+        }
+        return description.toString();
+    }
+
+    public final class Scope implements AutoCloseable {
+        private final String label;
+        private final Scope parent;
+        private final List<String> queries;
+        private long statements;
+        private long rows;
+        private long dbTimeMillis;
+
+        private Scope(String label, Scope parent, boolean captureQueries) {
+            this.label = label;
+            this.parent = parent;
+            this.queries = captureQueries ? new ArrayList<>() : null;
+        }
+
+        public SqlStatementStats stats() {
+            return new SqlStatementStats(statements, rows, dbTimeMillis, queries == null ? List.of() : List.copyOf(queries));
+        }
+
+        @Override
+        public void close() {
+            if (parent == null) {
+                current.remove();
+            } else {
+                current.set(parent);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.propvuebrand.fulfillmentcenters.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.propvuebrand.fulfillmentcenters.dto.StartupReport;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Отчёт о запуске для отслеживания в CI: время от старта JVM до готовности и до первого обслуженного
+ * запроса, а также самые долгие шаги из {@link BufferingApplicationStartup}. Отчёт пишется в лог
+ * и, если задан {@code fulfillment.startup.report-file}, в JSON-файл — при готовности и ещё раз после
+ * первого запроса.
+ */
+@Component
+public class StartupTimelineRecorder extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimelineRecorder.class);
+
+    private static final int REPORTED_STEPS = 25;
+
+    private final ObjectMapper objectMapper;
+    private final String reportFile;
+    private final long jvmStartedAt = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+
+    private volatile long readyAt;
+    private volatile List<StartupReport.Step> slowestSteps = List.of();
+    private volatile long firstRequestAt;
+    private volatile String firstRequestUri;
+
+    @Autowired
+    public StartupTimelineRecorder(ObjectMapper objectMapper,
+                                   @Value("${fulfillment.startup.report-file:}") String reportFile) {
+        this.objectMapper = objectMapper;
+        this.reportFile = reportFile;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        readyAt = event.getTimestamp();
+        if (event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup) {
+            // Буфер больше не нужен: забираем шаги и освобождаем память
+            slowestSteps = startup.drainBufferedTimeline().getEvents().stream()
+                    .sorted(Comparator.comparing((StartupTimeline.TimelineEvent e) -> e.getDuration()).reversed())
+                    .limit(REPORTED_STEPS)
+                    .map(e -> new StartupReport.Step(e.getStartupStep().getName(), tags(e.getStartupStep()),
+                            e.getDuration().toMillis()))
+                    .toList();
+        }
+        publish();
+    }
+
+    public StartupReport getReport() {
+        long ready = readyAt;
+        if (ready == 0) {
+            return null;
+        }
+        long firstRequest = firstRequestAt;
+        return new StartupReport(Instant.ofEpochMilli(jvmStartedAt), ready - jvmStartedAt,
+                firstRequest == 0 ? null : firstRequest - jvmStartedAt, firstRequestUri, slowestSteps);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!firstRequestSeen.get() && firstRequestSeen.compareAndSet(false, true)) {
+                firstRequestUri = request.getRequestURI();
+                firstRequestAt = System.currentTimeMillis();
+                publish();
+            }
+        }
+    }
+
+    private synchronized void publish() {
+        StartupReport report = getReport();
+        if (report == null) {
+            // Запрос до готовности: отчёт запишется при готовности
+            return;
+        }
+        log.info("Startup: ready {} ms after JVM start, first request {}", report.readyMillis(),
+                report.firstRequestMillis() == null ? "not served yet" : report.firstRequestMillis() + " ms");
+        if (!StringUtils.hasText(reportFile)) {
+            return;
+        }
+        try {
+            Files.write(Path.of(reportFile),
+                    objectMapper.writer().with(SerializationFeature.INDENT_OUTPUT).writeValueAsBytes(report));
+        } catch (IOException e) {
+            log.warn("Cannot write startup report to {}", reportFile, e);
+        }
+    }
+
+    private static String tags(StartupStep step) {
+        return StreamSupport.stream(step.getTags().spliterator(), false)
+                .map(tag -> tag.getKey() + "=" + tag.getValue())
+                .collect(Collectors.joining(", "));
+    }
+}
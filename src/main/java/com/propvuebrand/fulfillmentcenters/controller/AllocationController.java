@@ -0,0 +1,46 @@
+package com.propvuebrand.fulfillmentcenters.controller;
+
+import com.propvuebrand.fulfillmentcenters.dto.AllocationRequest;
+import com.propvuebrand.fulfillmentcenters.dto.AllocationResult;
+import com.propvuebrand.fulfillmentcenters.service.OrderAllocationService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/api/allocations")
+public class AllocationController {
+    private final OrderAllocationService orderAllocationService;
+    private final int maxLines;
+
+    @Autowired
+    public AllocationController(OrderAllocationService orderAllocationService,
+                                @Value("${fulfillment.allocation.max-lines:100}") int maxLines) {
+        this.orderAllocationService = orderAllocationService;
+        this.maxLines = maxLines;
+    }
+
+    /**
+     * Разбивает заказ по центрам выполнения с наименьшим числом отправок. С {@code reserve=true}
+     * остаток списывается; если заказ нельзя собрать целиком, ничего не списывается и возвращается 409.
+     */
+    @PostMapping
+    public ResponseEntity<AllocationResult> allocate(@Valid @RequestBody AllocationRequest request,
+                                                     @RequestParam(defaultValue = "false") boolean reserve) {
+        if (request.lines().size() > maxLines) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "order has " + request.lines().size() + " lines, at most " + maxLines + " allowed");
+        }
+        if (!reserve) {
+            return ResponseEntity.ok(orderAllocationService.allocate(request.lines()));
+        }
+        AllocationResult result = orderAllocationService.reserve(request.lines());
+        return result.fulfillable()
+                ? ResponseEntity.ok(result)
+                : ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+    }
+}
@@ -0,0 +1,95 @@
+package com.propvuebrand.fulfillmentcenters.controller;
+
+import com.propvuebrand.fulfillmentcenters.dto.ChangeFeedPage;
+import com.propvuebrand.fulfillmentcenters.service.ChangeFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Лента изменений продуктов. Клиент запоминает последний полученный номер и продолжает с него;
+ * если события после этого номера уже удалены из журнала, возвращается 410 и данные нужно перечитать.
+ */
+@RestController
+@RequestMapping("/api/products/changes")
+public class ChangeFeedController {
+    private final ChangeFeed changeFeed;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final long maxWaitMillis;
+    private final long sseTimeoutMillis;
+
+    @Autowired
+    public ChangeFeedController(ChangeFeed changeFeed,
+                                @Value("${fulfillment.feed.default-limit:500}") int defaultLimit,
+                                @Value("${fulfillment.feed.max-limit:5000}") int maxLimit,
+                                @Value("${fulfillment.feed.max-wait-ms:30000}") long maxWaitMillis,
+                                @Value("${fulfillment.feed.sse-timeout-ms:1800000}") long sseTimeoutMillis) {
+        this.changeFeed = changeFeed;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.maxWaitMillis = maxWaitMillis;
+        this.sseTimeoutMillis = sseTimeoutMillis;
+    }
+
+    /**
+     * События с номером больше {@code after}. Если их нет и задан {@code waitMs}, ответ ждёт
+     * первого нового события, но не дольше {@code waitMs} (не больше {@code fulfillment.feed.max-wait-ms}).
+     */
+    @GetMapping
+    public DeferredResult<ChangeFeedPage> getChanges(@RequestParam(defaultValue = "0") long after,
+                                                     @RequestParam(required = false) Integer limit,
+                                                     @RequestParam(defaultValue = "0") long waitMs) {
+        checkAvailable(after);
+        int pageSize = limit == null ? defaultLimit : Math.max(1, Math.min(limit, maxLimit));
+        ChangeFeedPage page = changeFeed.read(after, pageSize);
+        if (!page.changes().isEmpty() || waitMs <= 0) {
+            DeferredResult<ChangeFeedPage> result = new DeferredResult<>();
+            result.setResult(page);
+            return result;
+        }
+        DeferredResult<ChangeFeedPage> result = new DeferredResult<>(Math.min(waitMs, maxWaitMillis));
+        result.onTimeout(() -> result.setResult(changeFeed.read(after, pageSize)));
+        changeFeed.await(after, pageSize, result);
+        return result;
+    }
+
+    /**
+     * Поток SSE: события {@code change} с номером в поле {@code id}. При переподключении браузер
+     * передаёт последний номер в {@code Last-Event-ID}; без него поток начинается с {@code after},
+     * а если не задан и он — с текущего момента. Событие {@code reset} означает, что номер устарел.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long after,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        long from;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                from = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Last-Event-ID must be a sequence number");
+            }
+        } else {
+            from = after != null ? after : changeFeed.latestSequence();
+        }
+        checkAvailable(from);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMillis);
+        changeFeed.subscribe(from, emitter);
+        return emitter;
+    }
+
+    private void checkAvailable(long after) {
+        if (!changeFeed.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "change feed is disabled");
+        }
+        if (after < 0 || changeFeed.isExpired(after)) {
+            throw new ResponseStatusException(HttpStatus.GONE,
+                    "changes after " + after + " are no longer available, latest is " + changeFeed.latestSequence());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.propvuebrand.fulfillmentcenters.controller;
+
+import com.propvuebrand.fulfillmentcenters.config.AdmissionControlFilter;
+import com.propvuebrand.fulfillmentcenters.dto.AdmissionStats;
+import com.propvuebrand.fulfillmentcenters.dto.AggregateDriftReport;
+import com.propvuebrand.fulfillmentcenters.dto.CacheRegionStats;
+import com.propvuebrand.fulfillmentcenters.dto.DataSourceStats;
+import com.propvuebrand.fulfillmentcenters.dto.WriteBehindStats;
+import com.propvuebrand.fulfillmentcenters.service.CacheStatisticsService;
+import com.propvuebrand.fulfillmentcenters.service.DataSourceStatsService;
+import com.propvuebrand.fulfillmentcenters.service.InventoryAggregateService;
+import com.propvuebrand.fulfillmentcenters.service.QuantityWriteBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+public class InventoryAdminController {
+    private final InventoryAggregateService inventoryAggregateService;
+    private final QuantityWriteBuffer quantityWriteBuffer;
+    private final CacheStatisticsService cacheStatisticsService;
+    private final DataSourceStatsService dataSourceStatsService;
+    private final AdmissionControlFilter admissionControlFilter;
+
+    @Autowired
+    public InventoryAdminController(InventoryAggregateService inventoryAggregateService,
+                                    QuantityWriteBuffer quantityWriteBuffer,
+                                    CacheStatisticsService cacheStatisticsService,
+                                    DataSourceStatsService dataSourceStatsService,
+                                    AdmissionControlFilter admissionControlFilter) {
+        this.inventoryAggregateService = inventoryAggregateService;
+        this.quantityWriteBuffer = quantityWriteBuffer;
+        this.cacheStatisticsService = cacheStatisticsService;
+        this.dataSourceStatsService = dataSourceStatsService;
+        this.admissionControlFilter = admissionControlFilter;
+    }
+
+    @GetMapping("/aggregates/consistency")
+    public AggregateDriftReport checkAggregates() {
+        return inventoryAggregateService.checkConsistency();
+    }
+
+    @PostMapping("/aggregates/repair")
+    public AggregateDriftReport repairAggregates() {
+        return inventoryAggregateService.repair();
+    }
+
+    @GetMapping("/write-behind")
+    public WriteBehindStats getWriteBehindStats() {
+        return quantityWriteBuffer.getStats();
+    }
+
+    @PostMapping("/write-behind/flush")
+    public WriteBehindStats flushWriteBehind() {
+        quantityWriteBuffer.flush();
+        return quantityWriteBuffer.getStats();
+    }
+
+    @GetMapping("/cache")
+    public List<CacheRegionStats> getCacheStats() {
+        return cacheStatisticsService.getRegionStats();
+    }
+
+    @GetMapping("/datasources")
+    public DataSourceStats getDataSourceStats() {
+        return dataSourceStatsService.getStats();
+    }
+
+    @GetMapping("/admission")
+    public AdmissionStats getAdmissionStats() {
+        return admissionControlFilter.getStats();
+    }
+}
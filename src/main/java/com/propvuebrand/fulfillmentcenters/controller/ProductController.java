@@ -1,41 +1,187 @@
 package com.propvuebrand.fulfillmentcenters.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.propvuebrand.fulfillmentcenters.config.ReplicaReadRouting;
+import com.propvuebrand.fulfillmentcenters.dto.BatchItemResult;
+import com.propvuebrand.fulfillmentcenters.dto.BulkDeleteResult;
+import com.propvuebrand.fulfillmentcenters.dto.InventorySummaryRow;
+import com.propvuebrand.fulfillmentcenters.dto.ProductView;
+import com.propvuebrand.fulfillmentcenters.dto.QuantityAdjustment;
+import com.propvuebrand.fulfillmentcenters.dto.QuantityDelta;
 import com.propvuebrand.fulfillmentcenters.model.Product;
 import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.service.ChangeSequenceTracker;
+import com.propvuebrand.fulfillmentcenters.service.OptimisticRetry;
+import com.propvuebrand.fulfillmentcenters.service.ProductBatchService;
 import com.propvuebrand.fulfillmentcenters.service.ProductService;
+import com.propvuebrand.fulfillmentcenters.util.ProductCsvWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-After";
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+    private static final MediaType APPLICATION_GZIP = MediaType.parseMediaType("application/gzip");
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+    /** Представления по {@code Accept} в порядке предпочтения при равном качестве и суффиксы их тегов. */
+    private static final Map<MediaType, String> REPRESENTATIONS = new LinkedHashMap<>();
+
+    static {
+        REPRESENTATIONS.put(MediaType.APPLICATION_JSON, "");
+        REPRESENTATIONS.put(MediaType.APPLICATION_CBOR, "+cbor");
+        REPRESENTATIONS.put(MediaType.parseMediaType("application/x-jackson-smile"), "+smile");
+    }
+
     private final ProductService productService;
+    private final ProductBatchService productBatchService;
+    private final OptimisticRetry optimisticRetry;
+    private final ChangeSequenceTracker changeSequenceTracker;
+    private final ReplicaReadRouting replicaReadRouting;
+    private final ObjectMapper objectMapper;
+    private final int defaultLimit;
+    private final int maxLimit;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService,
+                             ProductBatchService productBatchService,
+                             OptimisticRetry optimisticRetry,
+                             ChangeSequenceTracker changeSequenceTracker,
+                             ReplicaReadRouting replicaReadRouting,
+                             ObjectMapper objectMapper,
+                             @Value("${fulfillment.pagination.default-limit:100}") int defaultLimit,
+                             @Value("${fulfillment.pagination.max-limit:1000}") int maxLimit) {
         this.productService = productService;
+        this.productBatchService = productBatchService;
+        this.optimisticRetry = optimisticRetry;
+        this.changeSequenceTracker = changeSequenceTracker;
+        this.replicaReadRouting = replicaReadRouting;
+        this.objectMapper = objectMapper;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
     }
 
+    /**
+     * Без параметров возвращает весь список. С {@code after} и/или {@code limit} — страницу
+     * по возрастанию id, начиная после {@code after}; ссылка на следующую страницу
+     * передаётся в заголовках {@code Link} и {@code X-Next-After}.
+     * <p>
+     * Списки и итоги помечаются ETag из состояния журнала изменений ({@link ChangeSequenceTracker}); если он совпал
+     * с {@code If-None-Match}, ответ 304 отдаётся без чтения данных. Тег берётся до чтения данных; у CBOR и Smile
+     * он свой ({@link #negotiatedTag}). Без журнала тега нет и ответ всегда 200.
+     */
     @GetMapping
-    public List<Product> getAllProducts() {
-        return productService.getAllProducts();
+    public ResponseEntity<List<ProductView>> getAllProducts(@RequestParam(required = false) Long after,
+                                                        @RequestParam(required = false) Integer limit,
+                                                        WebRequest request) {
+        String etag = negotiatedTag(request, changeSequenceTracker.globalTag());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        if (after == null && limit == null) {
+            return ResponseEntity.ok().eTag(etag).body(productService.getAllProducts());
+        }
+        int pageSize = pageSize(limit);
+        return page(productService.getAllProducts(cursor(after), pageSize), pageSize, etag);
     }
 
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        return ndjson(null, null);
+    }
+
+    /**
+     * ETag одиночного продукта — его {@code @Version}; на совпавший {@code If-None-Match}
+     * Spring отвечает 304 без тела.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProduct(@PathVariable Long id) {
+    public ResponseEntity<Product> getProduct(@PathVariable Long id, WebRequest request) {
         return productService.getProduct(id)
-                .map(ResponseEntity::ok)
+                .map(product -> ResponseEntity.ok().eTag(negotiatedTag(request, productTag(product))).body(product))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping("/product-id/{productId}")
-    public List<Product> getProductByProductId(@PathVariable String productId) {
-        return productService.getProductByProductId(productId);
+    public ResponseEntity<List<ProductView>> getProductByProductId(@PathVariable String productId,
+                                                               @RequestParam(required = false) Long after,
+                                                               @RequestParam(required = false) Integer limit,
+                                                               WebRequest request) {
+        String etag = negotiatedTag(request, changeSequenceTracker.globalTag());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        if (after == null && limit == null) {
+            return ResponseEntity.ok().eTag(etag).body(productService.getProductByProductId(productId));
+        }
+        int pageSize = pageSize(limit);
+        return page(productService.getProductByProductId(productId, cursor(after), pageSize), pageSize, etag);
+    }
+
+    /**
+     * Выгрузка в CSV в формате data.csv. Строки читаются курсором JDBC и сразу пишутся в ответ,
+     * поэтому память не зависит от числа строк. {@code gzip=true} отдаёт файл {@code products.csv.gz}.
+     */
+    @GetMapping("/export.csv")
+    public ResponseEntity<StreamingResponseBody> exportCsv(@RequestParam(required = false) String status,
+                                                           @RequestParam(required = false) String center,
+                                                           @RequestParam(defaultValue = "false") boolean gzip) {
+        ProductStatus productStatus = status == null ? null : productStatus(status);
+        StreamingResponseBody body = out -> {
+            GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(out, EXPORT_BUFFER_SIZE) : null;
+            Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(gzip ? gzipStream : out, StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE);
+            ProductCsvWriter csv = new ProductCsvWriter(writer);
+            csv.writeHeader();
+            replicaReadRouting.run("export", () -> productService.streamProducts(productStatus, center, null, csv::write));
+            csv.flush();
+            if (gzipStream != null) {
+                gzipStream.finish();
+            }
+        };
+        String filename = gzip ? "products.csv.gz" : "products.csv";
+        return ResponseEntity.ok()
+                .contentType(gzip ? APPLICATION_GZIP : TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    @GetMapping(value = "/product-id/{productId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProductsByProductId(@PathVariable String productId) {
+        return ndjson(null, productId);
     }
 
     @PostMapping
@@ -44,33 +190,326 @@ public class ProductController {
         return productService.createProduct(product);
     }
 
+    /**
+     * С {@code If-Match} обновление выполняется только при совпадении версии, иначе 412;
+     * без него конфликт версий повторяется с новой версией.
+     */
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(@PathVariable Long id,
-                                                 @Valid @RequestBody Product product) {
-        return productService.updateProduct(id, product)
-                .map(ResponseEntity::ok)
+                                                 @Valid @RequestBody Product product,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                 WebRequest request) {
+        Optional<Product> updated;
+        if (ifMatch == null) {
+            updated = optimisticRetry.execute(() -> productService.updateProduct(id, product));
+        } else {
+            Long expectedVersion = expectedVersion(ifMatch);
+            try {
+                updated = productService.updateProduct(id, product, expectedVersion);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+        }
+        return updated
+                .map(saved -> ResponseEntity.ok().eTag(negotiatedTag(request, productTag(saved))).body(saved))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Изменяет количество на {@code delta} со знаком. Если остаток стал бы отрицательным,
+     * возвращает 409 и текущее состояние продукта. В режиме отложенной записи возвращает 202
+     * с ожидаемым состоянием.
+     */
+    @PatchMapping("/{id}/quantity")
+    public ResponseEntity<Product> adjustQuantity(@PathVariable Long id,
+                                                  @Valid @RequestBody QuantityDelta quantityDelta,
+                                                  WebRequest request) {
+        QuantityAdjustment adjustment = productService.adjustQuantity(id, quantityDelta.delta());
+        return switch (adjustment.outcome()) {
+            case ADJUSTED -> ResponseEntity.ok().eTag(negotiatedTag(request, productTag(adjustment.product())))
+                    .body(adjustment.product());
+            case ACCEPTED -> ResponseEntity.accepted().body(adjustment.product());
+            case NOT_FOUND -> ResponseEntity.notFound().build();
+            case INSUFFICIENT_QUANTITY -> ResponseEntity.status(HttpStatus.CONFLICT).body(adjustment.product());
+        };
+    }
+
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
-        return productService.deleteProduct(id)
+    public ResponseEntity<Void> deleteProduct(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        boolean deleted;
+        if (ifMatch == null) {
+            deleted = optimisticRetry.execute(() -> productService.deleteProduct(id));
+        } else {
+            Long expectedVersion = expectedVersion(ifMatch);
+            try {
+                deleted = productService.deleteProduct(id, expectedVersion);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+        }
+        return deleted
                 ? ResponseEntity.ok().build()
                 : ResponseEntity.notFound().build();
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> createProducts(@RequestBody List<Product> products) {
+        checkBatchSize(products);
+        List<BatchItemResult> failures = productBatchService.validate(products, false);
+        if (!failures.isEmpty()) {
+            return ResponseEntity.badRequest().body(failures);
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(productBatchService.createProducts(products));
+    }
+
+    @PutMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> updateProducts(@RequestBody List<Product> products) {
+        checkBatchSize(products);
+        List<BatchItemResult> failures = productBatchService.validate(products, true);
+        if (!failures.isEmpty()) {
+            return ResponseEntity.badRequest().body(failures);
+        }
+        return ResponseEntity.ok(productBatchService.updateProducts(products));
+    }
+
+    @DeleteMapping("/batch")
+    public List<BatchItemResult> deleteProducts(@RequestBody List<Long> ids) {
+        checkBatchSize(ids);
+        if (ids.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids must not contain null");
+        }
+        return productBatchService.deleteProducts(ids);
+    }
+
+    /**
+     * Удаляет все продукты, подходящие под фильтры (нужен хотя бы один), одним оператором.
+     * Если подходит больше {@code maxRows} строк (не больше {@code fulfillment.bulk-delete.max-rows}),
+     * ничего не удаляется и возвращается 422. {@code dryRun=true} только считает строки.
+     */
+    @DeleteMapping
+    public ResponseEntity<BulkDeleteResult> deleteMatching(@RequestParam(required = false) String status,
+                                                           @RequestParam(required = false) String center,
+                                                           @RequestParam(required = false) String productId,
+                                                           @RequestParam(required = false) Long maxRows,
+                                                           @RequestParam(defaultValue = "false") boolean dryRun) {
+        if (status == null && center == null && productId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "at least one of status, center, productId is required");
+        }
+        if (maxRows != null && maxRows <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "maxRows must be positive");
+        }
+        long limit = maxRows == null
+                ? productBatchService.getMaxDeleteRows()
+                : Math.min(maxRows, productBatchService.getMaxDeleteRows());
+        BulkDeleteResult result = productBatchService.deleteMatching(
+                status == null ? null : productStatus(status), center, productId, limit, dryRun);
+        return result.limitExceeded()
+                ? ResponseEntity.unprocessableEntity().body(result)
+                : ResponseEntity.ok(result);
+    }
+
     @GetMapping("/status/{status}")
-    public List<Product> getProductsByStatus(@PathVariable String status) {
-        return productService.getProductsByStatus(ProductStatus.valueOf(status.toUpperCase()));
+    public ResponseEntity<List<ProductView>> getProductsByStatus(@PathVariable String status,
+                                                             @RequestParam(required = false) Long after,
+                                                             @RequestParam(required = false) Integer limit,
+                                                             WebRequest request) {
+        ProductStatus productStatus = productStatus(status);
+        String etag = negotiatedTag(request, changeSequenceTracker.globalTag());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        if (after == null && limit == null) {
+            return ResponseEntity.ok().eTag(etag).body(productService.getProductsByStatus(productStatus));
+        }
+        int pageSize = pageSize(limit);
+        return page(productService.getProductsByStatus(productStatus, cursor(after), pageSize), pageSize, etag);
+    }
+
+    @GetMapping(value = "/status/{status}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamProductsByStatus(@PathVariable String status) {
+        return ndjson(productStatus(status), null);
     }
 
     @GetMapping("/sellable/total-value")
-    public Double getTotalSellableValue() {
-        return productService.getTotalSellableValue();
+    public ResponseEntity<Double> getTotalSellableValue(WebRequest request) {
+        String etag = negotiatedTag(request, changeSequenceTracker.globalTag());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(productService.getTotalSellableValue());
     }
 
     @GetMapping("/center/{center}/total-value")
-    public Double getTotalValueByFulfillmentCenter(@PathVariable String center) {
-        return productService.getTotalValueByFulfillmentCenter(center);
+    public ResponseEntity<Double> getTotalValueByFulfillmentCenter(@PathVariable String center, WebRequest request) {
+        String etag = negotiatedTag(request, changeSequenceTracker.centerTag(center));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(productService.getTotalValueByFulfillmentCenter(center));
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<List<InventorySummaryRow>> getInventorySummary(@RequestParam(required = false) String productId,
+                                                                         WebRequest request) {
+        String etag = negotiatedTag(request, changeSequenceTracker.globalTag());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(productService.getInventorySummary(productId));
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        if (limit <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        return Math.min(limit, maxLimit);
+    }
+
+    /**
+     * Статус из пути или параметра без учёта регистра; неизвестное значение — 400, а не 500.
+     */
+    private static ProductStatus productStatus(String status) {
+        try {
+            return ProductStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "unknown status '" + status + "', expected one of " + Arrays.toString(ProductStatus.values()));
+        }
+    }
+
+    private static long cursor(Long after) {
+        return after == null ? 0L : after;
+    }
+
+    private static ResponseEntity<List<ProductView>> page(List<ProductView> products, int pageSize, String etag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+        if (products.size() == pageSize) {
+            long next = products.getLast().id();
+            String nextPage = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", next)
+                    .replaceQueryParam("limit", pageSize)
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + nextPage + ">; rel=\"next\"");
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(next));
+        }
+        return response.body(products);
+    }
+
+    /**
+     * Ответы отдаются в JSON, CBOR или Smile по {@code Accept}, поэтому у каждого представления свой тег:
+     * к тегу добавляется суффикс выбранного формата ({@code "12+cbor"}), а в ответ — {@code Vary: Accept}.
+     * Заголовок ставится до проверки {@code If-None-Match}, так что его получает и 304.
+     */
+    private static String negotiatedTag(WebRequest request, String tag) {
+        if (request instanceof NativeWebRequest nativeRequest) {
+            HttpServletResponse response = nativeRequest.getNativeResponse(HttpServletResponse.class);
+            if (response != null && !response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT)) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            }
+        }
+        String suffix = representationSuffix(request.getHeader(HttpHeaders.ACCEPT));
+        return suffix.isEmpty() || tag == null ? tag : tag.substring(0, tag.length() - 1) + suffix + "\"";
+    }
+
+    /**
+     * Суффикс представления, которое выберет Spring: первое по качеству из {@code Accept}, совместимое с одним
+     * из {@link #REPRESENTATIONS}. Без {@code Accept} или с нераспознаваемым заголовком — JSON.
+     */
+    static String representationSuffix(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return "";
+        }
+        List<MediaType> requested;
+        try {
+            requested = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return "";
+        }
+        requested.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : requested) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            for (Map.Entry<MediaType, String> representation : REPRESENTATIONS.entrySet()) {
+                if (type.isCompatibleWith(representation.getKey())) {
+                    return representation.getValue();
+                }
+            }
+        }
+        return "";
+    }
+
+    /**
+     * В режиме отложенной записи к версии добавляется незаписанная дельта количества,
+     * иначе клиент получил бы 304 при изменившемся количестве.
+     */
+    private String productTag(Product product) {
+        long pending = productService.getPendingQuantityDelta(product.getId());
+        return "\"" + product.getVersion() + (pending == 0 ? "" : "." + pending) + "\"";
+    }
+
+    /**
+     * Версия из {@code If-Match}: {@code *} означает «любая версия». Слабый или чужой тег
+     * не может совпасть при строгом сравнении, поэтому сразу даёт 412. Незаписанная дельта
+     * после точки ({@link #productTag}) и суффикс формата не проверяются: UPDATE сравнивает только версию строки.
+     */
+    private static Long expectedVersion(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return null;
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            String value = tag.substring(1, tag.length() - 1);
+            int representation = value.indexOf('+');
+            if (representation >= 0) {
+                value = value.substring(0, representation);
+            }
+            int pending = value.indexOf('.');
+            try {
+                return Long.parseLong(pending < 0 ? value : value.substring(0, pending));
+            } catch (NumberFormatException e) {
+                // падаем в 412 ниже
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match does not match the current version");
+    }
+
+    /**
+     * Пишет продукты в ответ по одному объекту JSON на строку по мере чтения из курсора.
+     */
+    private ResponseEntity<StreamingResponseBody> ndjson(ProductStatus status, String productId) {
+        ObjectWriter writer = objectMapper.writerFor(ProductView.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                replicaReadRouting.run("stream", () -> productService.streamProducts(status, productId, product -> {
+                    try {
+                        writer.writeValue(generator, product);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private void checkBatchSize(List<?> items) {
+        if (items.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "batch must not be empty");
+        }
+        if (items.size() > productBatchService.getMaxBatchSize()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "batch size " + items.size() + " exceeds " + productBatchService.getMaxBatchSize());
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package com.propvuebrand.fulfillmentcenters.controller;
+
+import com.propvuebrand.fulfillmentcenters.dto.ImportJobStatus;
+import com.propvuebrand.fulfillmentcenters.service.ProductImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/products/import")
+public class ProductImportController {
+    private final ProductImportService productImportService;
+
+    @Autowired
+    public ProductImportController(ProductImportService productImportService) {
+        this.productImportService = productImportService;
+    }
+
+    /**
+     * Принимает CSV в формате data.csv (можно сжатый gzip) в части {@code file} и запускает импорт в фоне.
+     * Состояние задачи — по адресу из заголовка {@code Location}. Если очередь задач заполнена — 429.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportJobStatus> importProducts(@RequestParam("file") MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "file must not be empty");
+        }
+        ImportJobStatus job;
+        try {
+            job = productImportService.submit(file);
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "too many imports in progress, retry later");
+        }
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.id()).toUri())
+                .body(job);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ImportJobStatus> getImport(@PathVariable String jobId) {
+        return productImportService.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping
+    public List<ImportJobStatus> getImports() {
+        return productImportService.getJobs();
+    }
+}
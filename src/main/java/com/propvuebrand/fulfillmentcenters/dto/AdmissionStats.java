@@ -0,0 +1,25 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+import java.util.List;
+
+/**
+ * Текущие лимиты одновременных запросов по классам эндпоинтов и отказы по ним.
+ */
+public record AdmissionStats(boolean enabled, List<EndpointLimit> endpoints) {
+
+    /**
+     * @param shortRttMillis средняя задержка за последнее окно
+     * @param longRttMillis  сглаженная задержка, относительно которой оценивается перегрузка
+     */
+    public record EndpointLimit(String name,
+                                int limit,
+                                int minLimit,
+                                int maxLimit,
+                                int inFlight,
+                                int queued,
+                                long accepted,
+                                long rejected,
+                                double shortRttMillis,
+                                double longRttMillis) {
+    }
+}
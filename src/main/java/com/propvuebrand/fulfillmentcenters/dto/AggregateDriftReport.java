@@ -0,0 +1,23 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Результат сверки хранимых итогов с пересчётом по таблице products.
+ */
+public record AggregateDriftReport(Instant checkedAt, int checkedAggregates, List<Drift> drifts) {
+
+    public boolean consistent() {
+        return drifts.isEmpty();
+    }
+
+    public record Drift(String aggregateKey,
+                        long expectedQuantity,
+                        long actualQuantity,
+                        long expectedLotCount,
+                        long actualLotCount,
+                        double expectedTotalValue,
+                        double actualTotalValue) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.util.Map;
+
+/**
+ * Заказ: требуемое количество по каждому productId.
+ */
+public record AllocationRequest(@NotEmpty Map<@NotBlank String, @NotNull @Positive Integer> lines) {
+}
@@ -0,0 +1,17 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Разбиение заказа по центрам выполнения. {@code unallocated} — количество, на которое не хватило остатка;
+ * {@code reserved} — остаток уже списан под отправки.
+ */
+public record AllocationResult(boolean fulfillable,
+                               boolean reserved,
+                               List<Shipment> shipments,
+                               Map<String, Integer> unallocated) {
+
+    public record Shipment(String fulfillmentCenter, Map<String, Integer> lines) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+import java.util.List;
+
+/**
+ * Результат обработки одного элемента пакетного запроса; {@code index} — позиция в исходном списке.
+ */
+public record BatchItemResult(int index, Long id, BatchItemStatus status, List<String> errors) {
+
+    public static BatchItemResult of(int index, Long id, BatchItemStatus status) {
+        return new BatchItemResult(index, id, status, List.of());
+    }
+
+    public static BatchItemResult invalid(int index, Long id, List<String> errors) {
+        return new BatchItemResult(index, id, BatchItemStatus.INVALID, errors);
+    }
+}
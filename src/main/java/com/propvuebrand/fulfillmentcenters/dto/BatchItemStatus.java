@@ -0,0 +1,10 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+public enum BatchItemStatus {
+    CREATED,
+    UPDATED,
+    DELETED,
+    NOT_FOUND,
+    CONFLICT,
+    INVALID
+}
@@ -0,0 +1,12 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+/**
+ * Результат удаления по фильтру: сколько строк подошло и сколько удалено.
+ * {@code deleted} равно 0 при пробном запуске и при превышении лимита.
+ */
+public record BulkDeleteResult(long matched, long deleted, long limit, boolean dryRun) {
+
+    public boolean limitExceeded() {
+        return matched > limit;
+    }
+}
@@ -0,0 +1,10 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+public record CacheRegionStats(String region,
+                               long hits,
+                               long misses,
+                               long puts,
+                               long evictions,
+                               long removals,
+                               float hitPercentage) {
+}
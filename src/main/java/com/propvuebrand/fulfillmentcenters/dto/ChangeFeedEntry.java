@@ -0,0 +1,12 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+import com.propvuebrand.fulfillmentcenters.event.ChangeType;
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
+
+import java.time.Instant;
+
+/**
+ * Событие ленты изменений. {@code product} — состояние после изменения, для удаления — до него.
+ */
+public record ChangeFeedEntry(long sequence, ChangeType type, ProductSnapshot product, Instant changedAt) {
+}
@@ -0,0 +1,9 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+import java.util.List;
+
+/**
+ * Порция ленты изменений. Следующий запрос продолжается с {@code after = nextAfter}.
+ */
+public record ChangeFeedPage(List<ChangeFeedEntry> changes, long nextAfter, long latestSequence) {
+}
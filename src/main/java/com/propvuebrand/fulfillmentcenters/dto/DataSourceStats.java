@@ -0,0 +1,17 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+import java.util.List;
+
+/**
+ * Состояние пулов соединений и маршрутизации чтения на реплику. Без реплики в {@code pools} один основной пул.
+ */
+public record DataSourceStats(boolean replicaEnabled,
+                              boolean replicaAvailable,
+                              long replicaLagMillis,
+                              long replicaConnections,
+                              long primaryFallbacks,
+                              List<Pool> pools) {
+
+    public record Pool(String name, int active, int idle, int total, int waiting, int maxSize) {
+    }
+}
@@ -0,0 +1,32 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+import com.propvuebrand.fulfillmentcenters.util.BulkLoadReport;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Состояние задачи импорта CSV. {@code progress} — доля прочитанных байт загруженного файла
+ * (для сжатого файла считается по сжатым байтам), {@code rejectedLines} ограничен первой тысячей строк.
+ */
+public record ImportJobStatus(String id,
+                              State state,
+                              String filename,
+                              Instant submittedAt,
+                              Instant finishedAt,
+                              long readRows,
+                              long loadedRows,
+                              long rejectedRows,
+                              double progress,
+                              double rowsPerSecond,
+                              String error,
+                              List<BulkLoadReport.RejectedLine> rejectedLines) {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    public boolean finished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+}
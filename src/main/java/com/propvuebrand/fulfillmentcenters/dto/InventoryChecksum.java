@@ -0,0 +1,8 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+/**
+ * Сводка по строкам products для сверки колоночного снимка с таблицей. Сумма версий меняется
+ * при любом пропущенном изменении строки, число строк — при пропущенном создании или удалении.
+ */
+public record InventoryChecksum(long rows, long totalQuantity, long versionSum) {
+}
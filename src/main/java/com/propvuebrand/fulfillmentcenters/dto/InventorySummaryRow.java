@@ -0,0 +1,13 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+
+/**
+ * Итог по одной паре (центр выполнения, статус): количество, число партий и стоимость.
+ */
+public record InventorySummaryRow(String fulfillmentCenter,
+                                  ProductStatus status,
+                                  Long quantity,
+                                  Long lotCount,
+                                  Double totalValue) {
+}
@@ -0,0 +1,22 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+
+/**
+ * Строка продукта для списочных ответов. Читается конструкторным выражением JPQL, поэтому
+ * Hibernate не создаёт управляемых сущностей и не хранит их снимки для проверки изменений.
+ * Версия не входит: для условных запросов служит ETag одиночного продукта.
+ */
+public record ProductView(Long id,
+                          String productId,
+                          ProductStatus status,
+                          String fulfillmentCenter,
+                          Integer quantity,
+                          Double value) {
+
+    public static ProductView of(Product product) {
+        return new ProductView(product.getId(), product.getProductId(), product.getStatus(),
+                product.getFulfillmentCenter(), product.getQuantity(), product.getValue());
+    }
+}
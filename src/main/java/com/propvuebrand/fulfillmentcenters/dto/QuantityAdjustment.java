@@ -0,0 +1,30 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+import com.propvuebrand.fulfillmentcenters.model.Product;
+
+public record QuantityAdjustment(Outcome outcome, Product product) {
+
+    public enum Outcome {
+        ADJUSTED,
+        /** Изменение принято в буфер отложенной записи. */
+        ACCEPTED,
+        NOT_FOUND,
+        INSUFFICIENT_QUANTITY
+    }
+
+    public static QuantityAdjustment adjusted(Product product) {
+        return new QuantityAdjustment(Outcome.ADJUSTED, product);
+    }
+
+    public static QuantityAdjustment accepted(Product product) {
+        return new QuantityAdjustment(Outcome.ACCEPTED, product);
+    }
+
+    public static QuantityAdjustment notFound() {
+        return new QuantityAdjustment(Outcome.NOT_FOUND, null);
+    }
+
+    public static QuantityAdjustment insufficient(Product product) {
+        return new QuantityAdjustment(Outcome.INSUFFICIENT_QUANTITY, product);
+    }
+}
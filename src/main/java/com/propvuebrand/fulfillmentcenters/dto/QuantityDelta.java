@@ -0,0 +1,9 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Изменение количества со знаком: положительное — приход, отрицательное — списание.
+ */
+public record QuantityDelta(@NotNull Integer delta) {
+}
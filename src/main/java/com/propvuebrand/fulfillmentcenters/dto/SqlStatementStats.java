@@ -0,0 +1,14 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+import java.util.List;
+
+/**
+ * SQL, выполненный в рамках запроса, вызова сервиса или проверки в тесте.
+ *
+ * @param statements   выполненные команды; пакет (JDBC batch) считается одной командой
+ * @param rows         строки, прочитанные из результатов
+ * @param dbTimeMillis суммарное время выполнения команд
+ * @param queries      тексты команд, если их попросили собирать, иначе пусто
+ */
+public record SqlStatementStats(long statements, long rows, long dbTimeMillis, List<String> queries) {
+}
@@ -0,0 +1,18 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Время запуска от старта JVM: до готовности приложения и до первого обслуженного запроса
+ * (null, пока запросов не было), плюс самые долгие шаги запуска Spring.
+ */
+public record StartupReport(Instant jvmStartedAt,
+                            long readyMillis,
+                            Long firstRequestMillis,
+                            String firstRequestUri,
+                            List<Step> slowestSteps) {
+
+    public record Step(String name, String tags, long durationMillis) {
+    }
+}
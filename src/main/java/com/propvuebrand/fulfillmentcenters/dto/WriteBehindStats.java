@@ -0,0 +1,19 @@
+package com.propvuebrand.fulfillmentcenters.dto;
+
+/**
+ * Состояние буфера отложенной записи количеств.
+ *
+ * @param pendingDeltas          принятые, но ещё не записанные изменения
+ * @param pendingProducts        число продуктов, по которым есть незаписанные изменения
+ * @param oldestPendingAgeMillis возраст самого старого незаписанного изменения
+ * @param lastFlushLagMillis     возраст самого старого изменения в момент последнего сброса
+ */
+public record WriteBehindStats(boolean enabled,
+                               long pendingDeltas,
+                               int pendingProducts,
+                               long oldestPendingAgeMillis,
+                               long lastFlushLagMillis,
+                               long flushes,
+                               long flushedDeltas,
+                               long rejectedDeltas) {
+}
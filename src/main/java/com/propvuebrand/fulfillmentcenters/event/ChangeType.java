@@ -0,0 +1,7 @@
+package com.propvuebrand.fulfillmentcenters.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
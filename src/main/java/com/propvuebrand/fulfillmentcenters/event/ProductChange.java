@@ -0,0 +1,25 @@
+package com.propvuebrand.fulfillmentcenters.event;
+
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
+
+/**
+ * Одно изменение строки products: {@code before} пуст для создания, {@code after} — для удаления.
+ */
+public record ProductChange(ChangeType type, ProductSnapshot before, ProductSnapshot after) {
+
+    public static ProductChange created(ProductSnapshot after) {
+        return new ProductChange(ChangeType.CREATED, null, after);
+    }
+
+    public static ProductChange updated(ProductSnapshot before, ProductSnapshot after) {
+        return new ProductChange(ChangeType.UPDATED, before, after);
+    }
+
+    public static ProductChange deleted(ProductSnapshot before) {
+        return new ProductChange(ChangeType.DELETED, before, null);
+    }
+
+    public Long id() {
+        return after != null ? after.id() : before.id();
+    }
+}
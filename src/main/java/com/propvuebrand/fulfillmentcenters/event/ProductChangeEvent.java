@@ -0,0 +1,16 @@
+package com.propvuebrand.fulfillmentcenters.event;
+
+import java.util.List;
+
+/**
+ * Публикуется внутри транзакции, изменившей products. Синхронные слушатели
+ * ({@code @EventListener}) выполняются в той же транзакции, слушатели
+ * {@code @TransactionalEventListener} — после её фиксации.
+ * Пакетные операции публикуют одно событие на всю пачку.
+ */
+public record ProductChangeEvent(List<ProductChange> changes) {
+
+    public static ProductChangeEvent of(ProductChange change) {
+        return new ProductChangeEvent(List.of(change));
+    }
+}
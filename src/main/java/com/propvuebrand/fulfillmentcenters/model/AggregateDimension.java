@@ -0,0 +1,6 @@
+package com.propvuebrand.fulfillmentcenters.model;
+
+public enum AggregateDimension {
+    STATUS,
+    CENTER
+}
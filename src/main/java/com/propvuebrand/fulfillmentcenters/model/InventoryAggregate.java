@@ -0,0 +1,76 @@
+package com.propvuebrand.fulfillmentcenters.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Текущий итог по статусу или центру выполнения: количество, число партий
+ * и стоимость {@code SUM(value * quantity)}. Обновляется дельтами в транзакции записи продукта.
+ */
+@Entity
+@Table(name = "inventory_aggregates")
+public class InventoryAggregate {
+    @Id
+    private String aggregateKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AggregateDimension dimension;
+
+    @Column(nullable = false)
+    private String dimensionValue;
+
+    private long quantity;
+
+    private long lotCount;
+
+    private double totalValue;
+
+    public InventoryAggregate() {
+    }
+
+    public InventoryAggregate(AggregateDimension dimension, String dimensionValue) {
+        this.aggregateKey = keyOf(dimension, dimensionValue);
+        this.dimension = dimension;
+        this.dimensionValue = dimensionValue;
+    }
+
+    public static String keyOf(AggregateDimension dimension, String dimensionValue) {
+        return dimension.name() + ":" + dimensionValue;
+    }
+
+    public String getAggregateKey() {
+        return aggregateKey;
+    }
+
+    public AggregateDimension getDimension() {
+        return dimension;
+    }
+
+    public String getDimensionValue() {
+        return dimensionValue;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public long getLotCount() {
+        return lotCount;
+    }
+
+    public void setLotCount(long lotCount) {
+        this.lotCount = lotCount;
+    }
+
+    public double getTotalValue() {
+        return totalValue;
+    }
+
+    public void setTotalValue(double totalValue) {
+        this.totalValue = totalValue;
+    }
+}
@@ -3,12 +3,23 @@ package com.propvuebrand.fulfillmentcenters.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "products")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Product {
+    /**
+     * Размер блока идентификаторов, который Hibernate забирает из products_seq за одно обращение.
+     * Без IDENTITY Hibernate может объединять вставки в JDBC batch.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @NotNull
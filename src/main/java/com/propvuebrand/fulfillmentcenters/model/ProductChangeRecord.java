@@ -0,0 +1,66 @@
+package com.propvuebrand.fulfillmentcenters.model;
+
+import com.propvuebrand.fulfillmentcenters.event.ChangeType;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Строка журнала изменений products для ленты изменений. Сущность описывает схему таблицы,
+ * запись и чтение идут через {@code ProductChangeLogRepository} (JDBC); номер выдаёт столбец identity.
+ * Для удаления хранится состояние до удаления, для остальных изменений — после; при переносе строки
+ * в другой центр прежний центр хранится в {@code previousFulfillmentCenter}. Индексы по центрам и времени
+ * нужны тегам {@code ChangeSequenceTracker}, которые читаются на каждый условный запрос.
+ */
+@Entity
+@Table(name = "product_changes", indexes = {
+        @Index(name = "idx_product_changes_center", columnList = "fulfillment_center, sequence_number"),
+        @Index(name = "idx_product_changes_previous_center", columnList = "previous_fulfillment_center, sequence_number"),
+        @Index(name = "idx_product_changes_changed_at", columnList = "changed_at")
+})
+public class ProductChangeRecord {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long sequenceNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ChangeType changeType;
+
+    @Column(nullable = false)
+    private Long rowId;
+
+    private String productId;
+
+    @Enumerated(EnumType.STRING)
+    private ProductStatus status;
+
+    private String fulfillmentCenter;
+
+    private String previousFulfillmentCenter;
+
+    private Integer quantity;
+
+    private Double value;
+
+    private Long version;
+
+    @Column(nullable = false)
+    private Instant changedAt;
+
+    public Long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public Long getRowId() {
+        return rowId;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
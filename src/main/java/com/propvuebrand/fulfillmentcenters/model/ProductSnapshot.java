@@ -0,0 +1,32 @@
+package com.propvuebrand.fulfillmentcenters.model;
+
+/**
+ * Неизменяемый снимок строки products на момент изменения.
+ */
+public record ProductSnapshot(Long id,
+                              String productId,
+                              ProductStatus status,
+                              String fulfillmentCenter,
+                              int quantity,
+                              double value,
+                              long version) {
+
+    public static ProductSnapshot of(Product product) {
+        return new ProductSnapshot(
+                product.getId(),
+                product.getProductId(),
+                product.getStatus(),
+                product.getFulfillmentCenter(),
+                product.getQuantity(),
+                product.getValue(),
+                product.getVersion() == null ? 0L : product.getVersion());
+    }
+
+    public double totalValue() {
+        return value * quantity;
+    }
+
+    public ProductSnapshot withQuantity(int quantity, long version) {
+        return new ProductSnapshot(id, productId, status, fulfillmentCenter, quantity, value, version);
+    }
+}
@@ -0,0 +1,30 @@
+package com.propvuebrand.fulfillmentcenters.repository;
+
+import com.propvuebrand.fulfillmentcenters.model.InventoryAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InventoryAggregateRepository extends JpaRepository<InventoryAggregate, String> {
+
+    @Modifying
+    @Query("UPDATE InventoryAggregate a SET a.quantity = a.quantity + :quantity, "
+            + "a.lotCount = a.lotCount + :lots, a.totalValue = a.totalValue + :value "
+            + "WHERE a.aggregateKey = :key")
+    int applyDelta(@Param("key") String key,
+                   @Param("quantity") long quantity,
+                   @Param("lots") long lots,
+                   @Param("value") double value);
+
+    @Query("SELECT p.status, SUM(p.quantity), COUNT(p), SUM(p.value * p.quantity) FROM Product p GROUP BY p.status")
+    List<Object[]> computeTotalsByStatus();
+
+    @Query("SELECT p.fulfillmentCenter, SUM(p.quantity), COUNT(p), SUM(p.value * p.quantity) "
+            + "FROM Product p GROUP BY p.fulfillmentCenter")
+    List<Object[]> computeTotalsByCenter();
+}
@@ -0,0 +1,140 @@
+package com.propvuebrand.fulfillmentcenters.repository;
+
+import com.propvuebrand.fulfillmentcenters.dto.ChangeFeedEntry;
+import com.propvuebrand.fulfillmentcenters.event.ChangeType;
+import com.propvuebrand.fulfillmentcenters.event.ProductChange;
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Журнал изменений products (таблица product_changes): запись пачкой и чтение по номеру.
+ * Номер ({@code sequence_number}) назначает база при вставке.
+ */
+@Repository
+public class ProductChangeLogRepository {
+
+    static final String INSERT_SQL =
+            "INSERT INTO product_changes (change_type, row_id, product_id, status, fulfillment_center, "
+                    + "previous_fulfillment_center, quantity, value, version, changed_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    static final String SELECT_AFTER_SQL =
+            "SELECT sequence_number, change_type, row_id, product_id, status, fulfillment_center, quantity, value, version, "
+                    + "changed_at FROM product_changes WHERE sequence_number > ? ORDER BY sequence_number LIMIT ?";
+
+    static final String HEAD_SQL =
+            "SELECT (SELECT MAX(sequence_number) FROM product_changes), "
+                    + "(SELECT COUNT(*) FROM product_changes WHERE changed_at > ?)";
+
+    static final String CENTER_HEAD_SQL =
+            "SELECT (SELECT MAX(sequence_number) FROM product_changes WHERE fulfillment_center = ?), "
+                    + "(SELECT MAX(sequence_number) FROM product_changes WHERE previous_fulfillment_center = ?), "
+                    + "(SELECT COUNT(*) FROM product_changes WHERE changed_at > ? "
+                    + "AND (fulfillment_center = ? OR previous_fulfillment_center = ?))";
+
+    private static final RowMapper<ChangeFeedEntry> ENTRY_ROW_MAPPER = (rs, rowNum) -> new ChangeFeedEntry(
+            rs.getLong("sequence_number"),
+            ChangeType.valueOf(rs.getString("change_type")),
+            new ProductSnapshot(
+                    rs.getLong("row_id"),
+                    rs.getString("product_id"),
+                    ProductStatus.valueOf(rs.getString("status")),
+                    rs.getString("fulfillment_center"),
+                    rs.getInt("quantity"),
+                    rs.getDouble("value"),
+                    rs.getLong("version")),
+            rs.getTimestamp("changed_at").toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProductChangeLogRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Пишет изменения в текущей транзакции. Для удаления сохраняется состояние до него, для остальных — после;
+     * если изменение перенесло строку в другой центр, прежний центр пишется в previous_fulfillment_center.
+     */
+    public void insertAll(List<ProductChange> changes, Instant changedAt) {
+        Timestamp timestamp = Timestamp.from(changedAt);
+        jdbcTemplate.batchUpdate(INSERT_SQL, changes, changes.size(), (ps, change) -> {
+            ProductSnapshot product = change.after() != null ? change.after() : change.before();
+            ps.setString(1, change.type().name());
+            ps.setLong(2, product.id());
+            ps.setString(3, product.productId());
+            ps.setString(4, product.status().name());
+            ps.setString(5, product.fulfillmentCenter());
+            ps.setString(6, previousCenter(change));
+            ps.setInt(7, product.quantity());
+            ps.setDouble(8, product.value());
+            ps.setLong(9, product.version());
+            ps.setTimestamp(10, timestamp);
+        });
+    }
+
+    public List<ChangeFeedEntry> findAfter(long after, int limit) {
+        return jdbcTemplate.query(SELECT_AFTER_SQL, ENTRY_ROW_MAPPER, after, limit);
+    }
+
+    public long maxSequence() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(sequence_number) FROM product_changes", Long.class);
+        return max == null ? 0 : max;
+    }
+
+    /**
+     * Состояние конца журнала: наибольший номер и число записей новее {@code since}.
+     */
+    public Head head(Instant since) {
+        return jdbcTemplate.queryForObject(HEAD_SQL, (rs, rowNum) ->
+                new Head(rs.getLong(1), rs.getLong(2)), Timestamp.from(since));
+    }
+
+    /**
+     * То же для записей, которые касаются центра {@code center}: строка в нём или ушла из него.
+     */
+    public Head centerHead(String center, Instant since) {
+        return jdbcTemplate.queryForObject(CENTER_HEAD_SQL, (rs, rowNum) ->
+                        new Head(Math.max(rs.getLong(1), rs.getLong(2)), rs.getLong(3)),
+                center, center, Timestamp.from(since), center, center);
+    }
+
+    /**
+     * Наименьший хранимый номер или 0, если журнал пуст.
+     */
+    public long minSequence() {
+        Long min = jdbcTemplate.queryForObject("SELECT MIN(sequence_number) FROM product_changes", Long.class);
+        return min == null ? 0 : min;
+    }
+
+    /**
+     * Последняя запись не удаляется: по ней клиент отличает удалённые номера от ещё не выданных.
+     */
+    public int deleteOlderThan(Instant cutoff) {
+        return jdbcTemplate.update("DELETE FROM product_changes WHERE changed_at < ? "
+                + "AND sequence_number < (SELECT MAX(sequence_number) FROM product_changes)", Timestamp.from(cutoff));
+    }
+
+    private static String previousCenter(ProductChange change) {
+        if (change.before() == null || change.after() == null) {
+            return null;
+        }
+        String previous = change.before().fulfillmentCenter();
+        return Objects.equals(previous, change.after().fulfillmentCenter()) ? null : previous;
+    }
+
+    /**
+     * {@code latestSequence} — 0, если подходящих записей нет.
+     */
+    public record Head(long latestSequence, long recentChanges) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.propvuebrand.fulfillmentcenters.repository;
+
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Выдаёт идентификаторы из products_seq для вставок в обход Hibernate.
+ * Блоки совпадают с тем, как их понимает pooled-оптимизатор Hibernate: значение {@code hi},
+ * полученное из последовательности, означает диапазон {@code [hi - allocationSize + 1, hi]},
+ * поэтому JDBC-вставки и JPA могут брать идентификаторы из одной последовательности без пересечений.
+ */
+@Component
+public class ProductIdAllocator {
+
+    public static final String SEQUENCE_NAME = "products_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextValueSql;
+
+    @Autowired
+    public ProductIdAllocator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextValueSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect()
+                .getSequenceSupport()
+                .getSequenceNextValString(SEQUENCE_NAME);
+    }
+
+    /**
+     * Присваивает идентификаторы всем продуктам без id, забирая из последовательности
+     * по одному значению на каждые {@link Product#ID_ALLOCATION_SIZE} строк.
+     */
+    public void assignIds(Iterable<Product> products) {
+        long next = 0;
+        long hi = -1;
+        for (Product product : products) {
+            if (product.getId() != null) {
+                continue;
+            }
+            if (next > hi) {
+                hi = nextBlockHi();
+                next = hi - Product.ID_ALLOCATION_SIZE + 1;
+            }
+            product.setId(next++);
+        }
+    }
+
+    private long nextBlockHi() {
+        Long hi = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+        // Начальное значение последовательности Hibernate обрабатывает особо
+        // (забирает следующее и начинает с 1), поэтому первый блок пропускаем.
+        while (hi != null && hi <= Product.ID_ALLOCATION_SIZE) {
+            hi = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+        }
+        if (hi == null) {
+            throw new IllegalStateException("Sequence " + SEQUENCE_NAME + " returned no value");
+        }
+        return hi;
+    }
+}
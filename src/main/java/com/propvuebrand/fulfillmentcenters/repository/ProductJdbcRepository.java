@@ -0,0 +1,354 @@
+package com.propvuebrand.fulfillmentcenters.repository;
+
+import com.propvuebrand.fulfillmentcenters.dto.InventoryChecksum;
+import com.propvuebrand.fulfillmentcenters.dto.ProductView;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Низкоуровневые операции над таблицей products в обход JPA: пакетная вставка
+ * через JDBC batch или PostgreSQL COPY и потоковое чтение курсором.
+ */
+@Repository
+public class ProductJdbcRepository {
+
+    static final String INSERT_SQL =
+            "INSERT INTO products (id, product_id, status, fulfillment_center, quantity, value, version) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+    static final String COPY_SQL =
+            "COPY products (id, product_id, status, fulfillment_center, quantity, value, version) "
+                    + "FROM STDIN WITH (FORMAT csv)";
+
+    static final String COLUMNS = "id, product_id, status, fulfillment_center, quantity, value, version";
+
+    static final String SELECT_SQL = "SELECT " + COLUMNS + " FROM products";
+
+    static final String ADJUST_QUANTITY_SQL =
+            "UPDATE products SET quantity = quantity + ?, version = version + 1 WHERE id = ? AND quantity + ? >= 0";
+
+    private static final int IN_LIST_CHUNK = 1000;
+
+    public static final RowMapper<Product> PRODUCT_ROW_MAPPER = (rs, rowNum) -> {
+        Product product = new Product(
+                rs.getString("product_id"),
+                ProductStatus.valueOf(rs.getString("status")),
+                rs.getString("fulfillment_center"),
+                rs.getInt("quantity"),
+                rs.getDouble("value"));
+        product.setId(rs.getLong("id"));
+        product.setVersion(rs.getLong("version"));
+        return product;
+    };
+
+    public static final RowMapper<ProductView> PRODUCT_VIEW_ROW_MAPPER = (rs, rowNum) -> new ProductView(
+            rs.getLong("id"),
+            rs.getString("product_id"),
+            ProductStatus.valueOf(rs.getString("status")),
+            rs.getString("fulfillment_center"),
+            rs.getInt("quantity"),
+            rs.getDouble("value"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductIdAllocator productIdAllocator;
+    private final int fetchSize;
+
+    private volatile Boolean copySupported;
+    private volatile String databaseProduct;
+
+    @Autowired
+    public ProductJdbcRepository(JdbcTemplate jdbcTemplate,
+                                 ProductIdAllocator productIdAllocator,
+                                 @Value("${fulfillment.stream.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productIdAllocator = productIdAllocator;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Вставляет продукты одной пачкой: через COPY, если база — PostgreSQL, иначе через JDBC batch.
+     * Идентификаторы берутся из products_seq и проставляются в переданные объекты.
+     * Должен вызываться внутри транзакции, чтобы пачка фиксировалась целиком.
+     */
+    public long insertAll(List<Product> products) {
+        if (products.isEmpty()) {
+            return 0;
+        }
+        productIdAllocator.assignIds(products);
+        long inserted = isCopySupported() ? copyInsert(products) : batchInsert(products);
+        products.forEach(product -> product.setVersion(0L));
+        return inserted;
+    }
+
+    /**
+     * Ожидает, что у продуктов уже проставлены id.
+     */
+    public long batchInsert(List<Product> products) {
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, products, products.size(), (ps, product) -> {
+            ps.setLong(1, product.getId());
+            ps.setString(2, product.getProductId());
+            ps.setString(3, product.getStatus().name());
+            ps.setString(4, product.getFulfillmentCenter());
+            ps.setInt(5, product.getQuantity());
+            ps.setDouble(6, product.getValue());
+        });
+        long inserted = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // драйвер может вернуть SUCCESS_NO_INFO (-2) для пакетных вставок
+                inserted += count < 0 ? 1 : count;
+            }
+        }
+        return inserted;
+    }
+
+    public long copyInsert(List<Product> products) {
+        StringBuilder csv = new StringBuilder(products.size() * 48);
+        for (Product product : products) {
+            csv.append(product.getId()).append(',');
+            appendCsvField(csv, product.getProductId()).append(',');
+            csv.append(product.getStatus().name()).append(',');
+            appendCsvField(csv, product.getFulfillmentCenter()).append(',');
+            csv.append(product.getQuantity()).append(',');
+            csv.append(product.getValue()).append(",0\n");
+        }
+        Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            try {
+                return copyManager.copyIn(COPY_SQL, new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new DataAccessResourceFailureException("COPY into products failed", e);
+            }
+        });
+        return copied == null ? 0 : copied;
+    }
+
+    /**
+     * Атомарно меняет количество на {@code delta}, если остаток не станет отрицательным.
+     * Возвращает число изменённых строк: 0 — строки нет или остатка не хватает.
+     */
+    public int adjustQuantity(Long id, int delta) {
+        return jdbcTemplate.update(ADJUST_QUANTITY_SQL, delta, id, delta);
+    }
+
+    /**
+     * Читает строку из базы в обход кэшей Hibernate.
+     */
+    public Optional<Product> findById(Long id) {
+        return jdbcTemplate.query(SELECT_SQL + " WHERE id = ?", PRODUCT_ROW_MAPPER, id).stream().findFirst();
+    }
+
+    /**
+     * Применяет дельты количества одним JDBC batch. Строка меняется, только если остаток
+     * не становится отрицательным. Возвращает число изменённых строк для каждой пары (id, дельта).
+     */
+    public int[] adjustQuantities(List<Long> ids, List<Long> deltas) {
+        return jdbcTemplate.batchUpdate(ADJUST_QUANTITY_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, deltas.get(i));
+                ps.setLong(2, ids.get(i));
+                ps.setLong(3, deltas.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ids.size();
+            }
+        });
+    }
+
+    public List<Product> findAllByIds(List<Long> ids) {
+        List<Product> products = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += IN_LIST_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_LIST_CHUNK, ids.size()));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            products.addAll(jdbcTemplate.query(SELECT_SQL + " WHERE id IN (" + placeholders + ")",
+                    PRODUCT_ROW_MAPPER, chunk.toArray()));
+        }
+        return products;
+    }
+
+    /**
+     * Читает продукты курсором в порядке id и передаёт их по одному в {@code consumer},
+     * не накапливая результат в памяти. Фильтры {@code status}, {@code center} и {@code productId}
+     * необязательны. PostgreSQL читает курсором по {@code fulfillment.stream.fetch-size} строк
+     * только внутри транзакции, поэтому вызывающий код должен её открыть.
+     */
+    public void streamProducts(ProductStatus status, String center, String productId,
+                               Consumer<Product> consumer) {
+        streamProducts(status, center, productId, PRODUCT_ROW_MAPPER, consumer);
+    }
+
+    public <T> void streamProducts(ProductStatus status, String center, String productId,
+                                   RowMapper<T> rowMapper, Consumer<T> consumer) {
+        List<Object> args = new ArrayList<>(3);
+        String sql = SELECT_SQL + where(status, center, productId, args) + " ORDER BY id";
+
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(sql);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, rs -> consumer.accept(rowMapper.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * Блокирует ({@code FOR UPDATE}) все партии SELLABLE с положительным остатком для этих productId.
+     * Строки блокируются по возрастанию id, поэтому параллельные резервирования не взаимоблокируются.
+     */
+    public List<Product> lockSellableLots(Collection<String> productIds) {
+        String placeholders = String.join(",", Collections.nCopies(productIds.size(), "?"));
+        List<Object> args = new ArrayList<>(productIds.size() + 1);
+        args.add(ProductStatus.SELLABLE.name());
+        args.addAll(productIds);
+        return jdbcTemplate.query(SELECT_SQL + " WHERE status = ? AND quantity > 0 AND product_id IN (" + placeholders
+                + ") ORDER BY id FOR UPDATE", PRODUCT_ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Остаток SELLABLE по парам (productId, центр) одним запросом {@code GROUP BY}.
+     */
+    public Map<String, Map<String, Long>> sellableQuantities(Collection<String> productIds) {
+        String placeholders = String.join(",", Collections.nCopies(productIds.size(), "?"));
+        List<Object> args = new ArrayList<>(productIds.size() + 1);
+        args.add(ProductStatus.SELLABLE.name());
+        args.addAll(productIds);
+        Map<String, Map<String, Long>> quantities = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, fulfillment_center, SUM(quantity) AS quantity FROM products "
+                        + "WHERE status = ? AND quantity > 0 AND product_id IN (" + placeholders + ") "
+                        + "GROUP BY product_id, fulfillment_center",
+                (RowCallbackHandler) rs -> quantities.computeIfAbsent(rs.getString("product_id"), key -> new HashMap<>())
+                        .put(rs.getString("fulfillment_center"), rs.getLong("quantity")),
+                args.toArray());
+        return quantities;
+    }
+
+    public long countMatching(ProductStatus status, String center, String productId) {
+        List<Object> args = new ArrayList<>(3);
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM products" + where(status, center, productId, args), Long.class, args.toArray());
+        return count == null ? 0 : count;
+    }
+
+    public InventoryChecksum checksum() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*), COALESCE(SUM(quantity), 0), COALESCE(SUM(version), 0) FROM products",
+                (rs, rowNum) -> new InventoryChecksum(rs.getLong(1), rs.getLong(2), rs.getLong(3)));
+    }
+
+    /**
+     * Удаляет строку одним оператором и возвращает удалённое состояние (пустой список, если
+     * строки нет или её версия не равна {@code expectedVersion}).
+     */
+    public List<Product> deleteById(Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return deleteReturning(" WHERE id = ?", List.of(id));
+        }
+        return deleteReturning(" WHERE id = ? AND version = ?", List.of(id, expectedVersion));
+    }
+
+    /**
+     * Удаляет все строки, подходящие под фильтры, одним оператором и возвращает их состояние до удаления.
+     */
+    public List<Product> deleteMatching(ProductStatus status, String center, String productId) {
+        List<Object> args = new ArrayList<>(3);
+        String where = where(status, center, productId, args);
+        return deleteReturning(where, args);
+    }
+
+    /**
+     * Удалённые строки нужны для события изменения, поэтому DELETE возвращает их сам:
+     * {@code RETURNING} в PostgreSQL, {@code OLD TABLE} в H2. Для прочих баз строки
+     * сначала блокируются и читаются, затем удаляются тем же условием.
+     */
+    private List<Product> deleteReturning(String where, List<Object> args) {
+        Object[] params = args.toArray();
+        return switch (databaseProduct()) {
+            case "PostgreSQL" -> jdbcTemplate.query(
+                    "DELETE FROM products" + where + " RETURNING " + COLUMNS, PRODUCT_ROW_MAPPER, params);
+            case "H2" -> jdbcTemplate.query(
+                    "SELECT " + COLUMNS + " FROM OLD TABLE (DELETE FROM products" + where + ")", PRODUCT_ROW_MAPPER, params);
+            default -> {
+                List<Product> deleted = jdbcTemplate.query(SELECT_SQL + where + " FOR UPDATE", PRODUCT_ROW_MAPPER, params);
+                if (!deleted.isEmpty()) {
+                    jdbcTemplate.update("DELETE FROM products" + where, params);
+                }
+                yield deleted;
+            }
+        };
+    }
+
+    private String databaseProduct() {
+        String product = databaseProduct;
+        if (product == null) {
+            product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            databaseProduct = product;
+        }
+        return product;
+    }
+
+    private static String where(ProductStatus status, String center, String productId, List<Object> args) {
+        StringBuilder where = new StringBuilder();
+        String separator = " WHERE ";
+        if (status != null) {
+            where.append(separator).append("status = ?");
+            args.add(status.name());
+            separator = " AND ";
+        }
+        if (center != null) {
+            where.append(separator).append("fulfillment_center = ?");
+            args.add(center);
+            separator = " AND ";
+        }
+        if (productId != null) {
+            where.append(separator).append("product_id = ?");
+            args.add(productId);
+        }
+        return where.toString();
+    }
+
+    public boolean isCopySupported() {
+        Boolean supported = copySupported;
+        if (supported == null) {
+            supported = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.isWrapperFor(PGConnection.class));
+            copySupported = supported;
+        }
+        return Boolean.TRUE.equals(supported);
+    }
+
+    private static StringBuilder appendCsvField(StringBuilder csv, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return csv.append(value);
+        }
+        return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
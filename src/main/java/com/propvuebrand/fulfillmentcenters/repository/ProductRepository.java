@@ -1,9 +1,15 @@
 package com.propvuebrand.fulfillmentcenters.repository;
 
+import com.propvuebrand.fulfillmentcenters.dto.InventorySummaryRow;
+import com.propvuebrand.fulfillmentcenters.dto.ProductView;
 import com.propvuebrand.fulfillmentcenters.model.Product;
 import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -11,13 +17,58 @@ import java.util.List;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
-    List<Product> findByStatus(ProductStatus status);
+    String VIEW_SELECT = "SELECT new com.propvuebrand.fulfillmentcenters.dto.ProductView("
+            + "p.id, p.productId, p.status, p.fulfillmentCenter, p.quantity, p.value) FROM Product p";
 
     List<Product> findByProductId(String productId);
 
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long after, Limit limit);
+
+    List<Product> findByStatusAndIdGreaterThanOrderByIdAsc(ProductStatus status, Long after, Limit limit);
+
+    List<Product> findByProductIdAndIdGreaterThanOrderByIdAsc(String productId, Long after, Limit limit);
+
+    // Проекции для списочных эндпоинтов: без сущностей в контексте персистентности
+
+    @Query(VIEW_SELECT + " ORDER BY p.id")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    List<ProductView> findAllViews();
+
+    // Не кэшируются: для проекций кэш запросов хранит строки целиком, а регион ограничен только числом записей
+
+    @Query(VIEW_SELECT + " WHERE p.status = :status ORDER BY p.id")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    List<ProductView> findViewsByStatus(@Param("status") ProductStatus status);
+
+    @Query(VIEW_SELECT + " WHERE p.productId = :productId ORDER BY p.id")
+    List<ProductView> findViewsByProductId(@Param("productId") String productId);
+
+    @Query(VIEW_SELECT + " WHERE p.id > :after ORDER BY p.id")
+    List<ProductView> findViewsAfter(@Param("after") Long after, Limit limit);
+
+    @Query(VIEW_SELECT + " WHERE p.status = :status AND p.id > :after ORDER BY p.id")
+    List<ProductView> findViewsByStatusAfter(@Param("status") ProductStatus status, @Param("after") Long after,
+                                             Limit limit);
+
+    @Query(VIEW_SELECT + " WHERE p.productId = :productId AND p.id > :after ORDER BY p.id")
+    List<ProductView> findViewsByProductIdAfter(@Param("productId") String productId, @Param("after") Long after,
+                                                Limit limit);
+
     @Query("SELECT SUM(p.value * p.quantity) FROM Product p WHERE p.status = :status")
     Double getTotalSellableValue(@Param("status") ProductStatus status);
 
     @Query("SELECT SUM(p.value * p.quantity) FROM Product p WHERE p.fulfillmentCenter = :center")
     Double getTotalValueByFulfillmentCenter(@Param("center") String center);
-}
\ No newline at end of file
+
+    @Query("SELECT new com.propvuebrand.fulfillmentcenters.dto.InventorySummaryRow("
+            + "p.fulfillmentCenter, p.status, SUM(p.quantity), COUNT(p), SUM(p.value * p.quantity)) "
+            + "FROM Product p GROUP BY p.fulfillmentCenter, p.status "
+            + "ORDER BY p.fulfillmentCenter, p.status")
+    List<InventorySummaryRow> summarizeByCenterAndStatus();
+
+    @Query("SELECT new com.propvuebrand.fulfillmentcenters.dto.InventorySummaryRow("
+            + "p.fulfillmentCenter, p.status, SUM(p.quantity), COUNT(p), SUM(p.value * p.quantity)) "
+            + "FROM Product p WHERE p.productId = :productId GROUP BY p.fulfillmentCenter, p.status "
+            + "ORDER BY p.fulfillmentCenter, p.status")
+    List<InventorySummaryRow> summarizeByCenterAndStatus(@Param("productId") String productId);
+}
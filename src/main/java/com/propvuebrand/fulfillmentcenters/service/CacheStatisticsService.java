@@ -0,0 +1,45 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.CacheRegionStats;
+import org.springframework.stereotype.Service;
+
+import javax.cache.management.CacheStatisticsMXBean;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Статистика регионов кэша второго уровня. Провайдер JCache публикует её через JMX
+ * для регионов с {@code monitoring.statistics = true} (см. application.conf).
+ */
+@Service
+public class CacheStatisticsService {
+
+    private static final ObjectName STATISTICS_PATTERN;
+
+    static {
+        try {
+            STATISTICS_PATTERN = new ObjectName("javax.cache:type=CacheStatistics,*");
+        } catch (MalformedObjectNameException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    public List<CacheRegionStats> getRegionStats() {
+        return mBeanServer.queryNames(STATISTICS_PATTERN, null).stream()
+                .map(name -> {
+                    CacheStatisticsMXBean stats = JMX.newMXBeanProxy(mBeanServer, name, CacheStatisticsMXBean.class);
+                    return new CacheRegionStats(name.getKeyProperty("Cache"),
+                            stats.getCacheHits(), stats.getCacheMisses(), stats.getCachePuts(),
+                            stats.getCacheEvictions(), stats.getCacheRemovals(), stats.getCacheHitPercentage());
+                })
+                .sorted(Comparator.comparing(CacheRegionStats::region))
+                .toList();
+    }
+}
@@ -0,0 +1,422 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.ChangeFeedEntry;
+import com.propvuebrand.fulfillmentcenters.dto.ChangeFeedPage;
+import com.propvuebrand.fulfillmentcenters.event.ProductChangeEvent;
+import com.propvuebrand.fulfillmentcenters.repository.ProductChangeLogRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Лента изменений products с монотонно растущим номером. Изменение пишется в журнал product_changes
+ * в той же транзакции, что и сами данные (перед фиксацией), а номер выдаёт столбец identity базы, поэтому
+ * зафиксированное изменение всегда есть в журнале, а экземпляры приложения на одной базе не конфликтуют
+ * по номерам. Если запись в журнал не удалась, откатывается и само изменение.
+ * <p>
+ * Номер выдаётся при вставке, а не при фиксации, поэтому транзакция с меньшим номером может зафиксироваться
+ * позже. Чтение отдаёт события только до первого пропуска в нумерации; пропуск старше
+ * {@code fulfillment.feed.gap-timeout-ms} считается откатом и перешагивается. Порядок номеров не обязан
+ * совпадать с порядком фиксаций, поэтому потребитель применяет событие, только если {@code product.version}
+ * больше версии строки, которую он уже видел (для удалённой строки версия запоминается), — так же поступает
+ * {@link ColumnarInventory}.
+ * <p>
+ * Последние {@code fulfillment.feed.buffer-size} событий держатся в памяти ({@link #tail}): после фиксации
+ * и по опросу поток доставки один раз дочитывает журнал, и чтения, долгие опросы и подписки около конца ленты
+ * отвечают из памяти. Поток, зафиксировавший изменение, только ставит дочитывание в очередь; оповещения,
+ * пришедшие до его начала, сливаются в одно. Чтение ровно с конца хвоста идёт в журнал, чтобы не отстать
+ * от ещё не дочитанной записи.
+ * <p>
+ * Журнал хранится {@code fulfillment.feed.retention-hours} часов; для номера, который уже удалён из журнала,
+ * {@link #isExpired} возвращает true, и клиенту нужно перечитать данные целиком.
+ */
+@Service
+public class ChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeed.class);
+
+    private static final int DELIVERY_PAGE_SIZE = 500;
+
+    private final ProductChangeLogRepository changeLogRepository;
+    private final boolean enabled;
+    private final Duration retention;
+    private final Duration gapTimeout;
+
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Растёт при каждом оповещении: доставка по нему замечает событие, пришедшее во время чтения
+    private final AtomicLong notifications = new AtomicLong();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final ExecutorService deliveryExecutor;
+
+    /** Хвост ленты: события с номерами из (tailFrom, tailHead], слот — номер по модулю длины; пропуск — null. */
+    private final ChangeFeedEntry[] tail;
+    // Охраняются tail
+    private long tailFrom = -1;
+    private long tailHead = -1;
+    private long tailLatest;
+
+    @Autowired
+    public ChangeFeed(ProductChangeLogRepository changeLogRepository,
+                      @Value("${fulfillment.feed.enabled:true}") boolean enabled,
+                      @Value("${fulfillment.feed.retention-hours:168}") long retentionHours,
+                      @Value("${fulfillment.feed.gap-timeout-ms:5000}") long gapTimeoutMillis,
+                      @Value("${fulfillment.feed.delivery-threads:4}") int deliveryThreads,
+                      @Value("${fulfillment.feed.buffer-size:10000}") int bufferSize) {
+        this.changeLogRepository = changeLogRepository;
+        this.enabled = enabled;
+        this.retention = Duration.ofHours(retentionHours);
+        this.gapTimeout = Duration.ofMillis(gapTimeoutMillis);
+        this.tail = new ChangeFeedEntry[bufferSize];
+        AtomicInteger counter = new AtomicInteger();
+        this.deliveryExecutor = Executors.newFixedThreadPool(deliveryThreads, runnable -> {
+            Thread thread = new Thread(runnable, "change-feed-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Пишет изменения в журнал внутри транзакции, которая их сделала.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void record(ProductChangeEvent event) {
+        if (enabled && !event.changes().isEmpty()) {
+            changeLogRepository.insertAll(event.changes(), Instant.now());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        if (enabled && !event.changes().isEmpty()) {
+            notifyConsumers();
+        }
+    }
+
+    /**
+     * Наибольший записанный номер. События до него могут быть ещё не видны, если перед ними есть пропуск.
+     */
+    public long latestSequence() {
+        return changeLogRepository.maxSequence();
+    }
+
+    /**
+     * True, если события после {@code after} уже удалены из журнала или номер больше последнего
+     * выданного (например, журнал очищен). Клиенту нужно перечитать данные и начать с {@link #latestSequence()}.
+     */
+    public boolean isExpired(long after) {
+        synchronized (tail) {
+            if (after >= tailFrom && after <= tailHead && tailFrom >= 0) {
+                return false;
+            }
+        }
+        long latest = latestSequence();
+        if (after > latest) {
+            return true;
+        }
+        if (after == latest) {
+            return false;
+        }
+        return after + 1 < changeLogRepository.minSequence();
+    }
+
+    /**
+     * До {@code limit} событий с номером больше {@code after}, без пропусков в нумерации, кроме тех,
+     * что старше {@code fulfillment.feed.gap-timeout-ms}. Внутри хвоста отвечает из памяти.
+     */
+    public ChangeFeedPage read(long after, int limit) {
+        ChangeFeedPage cached = readTail(after, limit, false);
+        return cached != null ? cached : readLog(after, limit);
+    }
+
+    private ChangeFeedPage readLog(long after, int limit) {
+        long latest = latestSequence();
+        Instant settled = Instant.now().minus(gapTimeout);
+        List<ChangeFeedEntry> entries = new ArrayList<>();
+        long expected = after + 1;
+        for (ChangeFeedEntry entry : changeLogRepository.findAfter(after, limit)) {
+            // Меньший номер ещё может зафиксироваться: дальше пропуска не читаем, пока он не устареет
+            if (entry.sequence() != expected && entry.changedAt().isAfter(settled)) {
+                break;
+            }
+            entries.add(entry);
+            expected = entry.sequence() + 1;
+        }
+        return page(entries, after, latest);
+    }
+
+    /**
+     * Долгий опрос: результат заполняется сразу, если после {@code after} уже есть события, иначе —
+     * при первом новом событии; по истечении ожидания контроллер отдаёт пустую порцию.
+     */
+    public void await(long after, int limit, DeferredResult<ChangeFeedPage> result) {
+        Waiter waiter = new Waiter(after, limit, result);
+        waiters.add(waiter);
+        result.onCompletion(() -> waiters.remove(waiter));
+        // Событие могло прийти между проверкой в контроллере и регистрацией
+        complete(waiter);
+    }
+
+    /**
+     * Подписка SSE: сначала отправляются события после {@code after}, затем новые по мере фиксации.
+     */
+    public void subscribe(long after, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(after, emitter);
+        subscribers.add(subscriber);
+        Runnable remove = () -> subscribers.remove(subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(error -> remove.run());
+        schedule(subscriber);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @Scheduled(fixedDelayString = "${fulfillment.feed.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Замечает изменения других экземпляров и пропуски в нумерации, которые устарели без нового события.
+     */
+    @Scheduled(fixedDelayString = "${fulfillment.feed.poll-interval-ms:1000}")
+    public void poll() {
+        if (enabled) {
+            notifyConsumers();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${fulfillment.feed.prune-interval-ms:3600000}",
+            fixedDelayString = "${fulfillment.feed.prune-interval-ms:3600000}")
+    public void prune() {
+        if (!enabled) {
+            return;
+        }
+        int deleted = changeLogRepository.deleteOlderThan(Instant.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Pruned {} change log entries older than {}", deleted, retention);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        deliveryExecutor.shutdownNow();
+    }
+
+    /**
+     * Ставит дочитывание журнала в поток доставки. Пока оно не началось, новые оповещения к нему не добавляют работы.
+     */
+    private void notifyConsumers() {
+        notifications.incrementAndGet();
+        if (refreshScheduled.compareAndSet(false, true)) {
+            try {
+                deliveryExecutor.execute(this::refresh);
+            } catch (RejectedExecutionException e) {
+                refreshScheduled.set(false);
+            }
+        }
+    }
+
+    private void refresh() {
+        try {
+            while (true) {
+                long seen = notifications.get();
+                refreshTail();
+                for (Waiter waiter : waiters) {
+                    complete(waiter);
+                }
+                for (Subscriber subscriber : subscribers) {
+                    schedule(subscriber);
+                }
+                refreshScheduled.set(false);
+                // Оповещение, пришедшее во время дочитывания, могло не застать его в очереди
+                if (notifications.get() == seen || !refreshScheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            refreshScheduled.set(false);
+            log.warn("Failed to refresh the change feed tail, retrying on the next poll", e);
+        }
+    }
+
+    /**
+     * Дочитывает журнал после {@code tailHead} по тем же правилам пропусков, что и {@link #read}.
+     * Первый вызов начинает хвост с последнего номера журнала.
+     */
+    private void refreshTail() {
+        long latest = latestSequence();
+        long head;
+        synchronized (tail) {
+            if (tailHead < 0) {
+                tailFrom = latest;
+                tailHead = latest;
+            }
+            head = tailHead;
+        }
+        while (true) {
+            ChangeFeedPage page = readLog(head, DELIVERY_PAGE_SIZE);
+            if (page.changes().isEmpty()) {
+                break;
+            }
+            synchronized (tail) {
+                page.changes().forEach(this::append);
+            }
+            head = page.nextAfter();
+            if (page.changes().size() < DELIVERY_PAGE_SIZE) {
+                break;
+            }
+        }
+        synchronized (tail) {
+            tailLatest = Math.max(tailLatest, latest);
+        }
+    }
+
+    private void append(ChangeFeedEntry entry) {
+        // Перешагнутый пропуск: слоты между концом хвоста и событием очищаются
+        long skipped = Math.min(entry.sequence() - tailHead - 1, tail.length);
+        for (long sequence = entry.sequence() - skipped; sequence < entry.sequence(); sequence++) {
+            tail[slot(sequence)] = null;
+        }
+        tail[slot(entry.sequence())] = entry;
+        tailHead = entry.sequence();
+        tailFrom = Math.max(tailFrom, tailHead - tail.length);
+    }
+
+    /**
+     * Порция из хвоста или null, если {@code after} вне него. С {@code atHead} конец хвоста тоже отвечает
+     * из памяти (пустой порцией): так читают ожидающие, которых разбудит следующее дочитывание.
+     */
+    private ChangeFeedPage readTail(long after, int limit, boolean atHead) {
+        synchronized (tail) {
+            if (tailFrom < 0 || after < tailFrom || after > tailHead || (after == tailHead && !atHead)) {
+                return null;
+            }
+            List<ChangeFeedEntry> entries = new ArrayList<>();
+            for (long sequence = after + 1; sequence <= tailHead && entries.size() < limit; sequence++) {
+                ChangeFeedEntry entry = tail[slot(sequence)];
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+            return page(entries, after, Math.max(tailLatest, tailHead));
+        }
+    }
+
+    private ChangeFeedPage readNearHead(long after, int limit) {
+        ChangeFeedPage cached = readTail(after, limit, true);
+        return cached != null ? cached : readLog(after, limit);
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % tail.length);
+    }
+
+    private void complete(Waiter waiter) {
+        if (!waiters.contains(waiter)) {
+            return;
+        }
+        ChangeFeedPage page = readNearHead(waiter.after, waiter.limit);
+        if (!page.changes().isEmpty() && waiters.remove(waiter)) {
+            waiter.result.setResult(page);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            deliveryExecutor.execute(() -> deliver(subscriber));
+        }
+    }
+
+    /**
+     * Отправляет подписчику всё, что он ещё не получил. Для одного подписчика одновременно
+     * выполняется не больше одной доставки, поэтому события уходят по порядку.
+     */
+    private void deliver(Subscriber subscriber) {
+        try {
+            while (true) {
+                if (isExpired(subscriber.lastSent)) {
+                    subscriber.emitter.send(SseEmitter.event().name("reset").data(latestSequence()));
+                    subscriber.emitter.complete();
+                    subscribers.remove(subscriber);
+                    return;
+                }
+                long seen = notifications.get();
+                ChangeFeedPage page = readNearHead(subscriber.lastSent, DELIVERY_PAGE_SIZE);
+                for (ChangeFeedEntry entry : page.changes()) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(Long.toString(entry.sequence()))
+                            .name("change")
+                            .data(entry, MediaType.APPLICATION_JSON));
+                    subscriber.lastSent = entry.sequence();
+                }
+                if (page.changes().isEmpty()) {
+                    subscriber.scheduled.set(false);
+                    // Новое событие могло прийти, пока флаг был поднят
+                    if (notifications.get() == seen || !subscriber.scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private static ChangeFeedPage page(List<ChangeFeedEntry> entries, long after, long latest) {
+        long nextAfter = entries.isEmpty() ? after : entries.getLast().sequence();
+        return new ChangeFeedPage(List.copyOf(entries), nextAfter, latest);
+    }
+
+    private record Waiter(long after, int limit, DeferredResult<ChangeFeedPage> result) {
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile long lastSent;
+
+        Subscriber(long after, SseEmitter emitter) {
+            this.lastSent = after;
+            this.emitter = emitter;
+        }
+    }
+}
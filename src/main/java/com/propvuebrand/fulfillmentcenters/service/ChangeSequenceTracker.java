@@ -0,0 +1,69 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.repository.ProductChangeLogRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * ETag для списков и итогов из состояния журнала product_changes: общий и по центрам выполнения.
+ * Журнал общий для всех экземпляров на базе, поэтому запись через любой из них меняет тег, а теги
+ * разных экземпляров совпадают. На {@code If-None-Match} отвечает один короткий запрос к журналу без чтения данных.
+ * <p>
+ * Номер выдаётся при вставке, а не при фиксации, поэтому одного наибольшего номера мало: транзакция с меньшим
+ * номером может зафиксироваться после того, как тег уже выдан. В тег входит и число записей моложе
+ * {@code fulfillment.feed.gap-timeout-ms} — за это время, как и в ленте, запоздавший номер либо фиксируется,
+ * либо считается откатом. Тег нужно брать до чтения данных: тогда ответ никогда не получит тег новее своих данных.
+ * <p>
+ * Без журнала ({@code fulfillment.feed.enabled=false}) теги не выдаются.
+ */
+@Component
+public class ChangeSequenceTracker {
+
+    private final ProductChangeLogRepository changeLogRepository;
+    private final boolean enabled;
+    private final Duration gapTimeout;
+
+    @Autowired
+    public ChangeSequenceTracker(ProductChangeLogRepository changeLogRepository,
+                                 @Value("${fulfillment.feed.enabled:true}") boolean enabled,
+                                 @Value("${fulfillment.feed.gap-timeout-ms:5000}") long gapTimeoutMillis) {
+        this.changeLogRepository = changeLogRepository;
+        this.enabled = enabled;
+        this.gapTimeout = Duration.ofMillis(gapTimeoutMillis);
+    }
+
+    /**
+     * Тег всей таблицы или null, если журнал не ведётся.
+     */
+    public String globalTag() {
+        if (!enabled) {
+            return null;
+        }
+        ProductChangeLogRepository.Head head = changeLogRepository.head(settledBefore());
+        return "\"" + head.latestSequence() + "-" + head.recentChanges() + "\"";
+    }
+
+    /**
+     * Тег центра или null, если журнал не ведётся. Пока записей о центре в журнале нет (в том числе после
+     * очистки старых), тег следует за общим: иначе он мог бы вернуться к значению, выданному до удалённых записей.
+     */
+    public String centerTag(String center) {
+        if (!enabled) {
+            return null;
+        }
+        Instant since = settledBefore();
+        ProductChangeLogRepository.Head head = changeLogRepository.centerHead(center, since);
+        if (head.latestSequence() == 0) {
+            return "\"c0-" + changeLogRepository.head(since).latestSequence() + "\"";
+        }
+        return "\"c" + head.latestSequence() + "-" + head.recentChanges() + "\"";
+    }
+
+    private Instant settledBefore() {
+        return Instant.now().minus(gapTimeout);
+    }
+}
@@ -0,0 +1,524 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.InventoryChecksum;
+import com.propvuebrand.fulfillmentcenters.dto.ProductView;
+import com.propvuebrand.fulfillmentcenters.event.ChangeType;
+import com.propvuebrand.fulfillmentcenters.event.ProductChange;
+import com.propvuebrand.fulfillmentcenters.event.ProductChangeEvent;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.ProductJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Колоночный снимок таблицы products в памяти для чтения без обращения к базе.
+ * Каждая колонка хранится в примитивном массиве: productId и центр — кодами словаря,
+ * статус — ординалом {@link ProductStatus}. Для каждого статуса и для живых строк ведутся битовые карты,
+ * поэтому фильтр по статусу — это обход установленных битов, а итоги считаются проходом по двум колонкам
+ * без создания объектов {@link Product}.
+ * <p>
+ * Снимок загружается после старта приложения и обновляется после фиксации каждой транзакции записи.
+ * Пока загрузка не завершена, {@link #isReady()} возвращает false и чтение идёт через JPA.
+ * Изменения применяются только с версией новее уже известной; версии удалённых строк помнятся
+ * {@value #TOMBSTONE_TTL_MINUTES} минут ({@link DeletedVersions}), чтобы запоздавшее изменение не вернуло строку.
+ */
+@Service
+public class ColumnarInventory {
+
+    private static final Logger log = LoggerFactory.getLogger(ColumnarInventory.class);
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MIN_ROWS_TO_COMPACT = 4096;
+    private static final ProductStatus[] STATUSES = ProductStatus.values();
+    private static final long TOMBSTONE_TTL_MINUTES = 10;
+
+    private final ProductJdbcRepository productJdbcRepository;
+    private final TransactionTemplate readTransaction;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Dictionary productIds = new Dictionary();
+    private final Dictionary centers = new Dictionary();
+    private final Map<Long, Integer> rowById = new HashMap<>();
+    private final DeletedVersions deletedVersions = new DeletedVersions(Duration.ofMinutes(TOMBSTONE_TTL_MINUTES));
+
+    private long[] ids;
+    private int[] productCodes;
+    private int[] centerCodes;
+    private byte[] statuses;
+    private int[] quantities;
+    private double[] values;
+    private long[] versions;
+    private long[] liveBits;
+    private long[][] statusBits;
+    private int size;
+    private int deletedRows;
+
+    /** Транзакции, которые уже записали изменения в журнал ленты, но ещё не применили их здесь. */
+    private final AtomicInteger commitsInFlight = new AtomicInteger();
+
+    /** Изменения, пришедшие во время загрузки; применяются повторно после неё. */
+    private List<ProductChange> changesDuringLoad;
+    private volatile boolean ready;
+
+    @Autowired
+    public ColumnarInventory(ProductJdbcRepository productJdbcRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${fulfillment.columnar.enabled:false}") boolean enabled) {
+        this.productJdbcRepository = productJdbcRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Если снимок уже загружен из файла ({@link InventorySnapshotService}), таблица не перечитывается.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled && !ready) {
+            reload();
+        }
+    }
+
+    /**
+     * Перечитывает всю таблицу курсором.
+     */
+    public void reload() {
+        load("products table", sink -> readTransaction.executeWithoutResult(status ->
+                productJdbcRepository.streamProducts(null, null, null,
+                        product -> sink.accept(ProductChange.created(ProductSnapshot.of(product))))));
+    }
+
+    /**
+     * Собирает снимок заново из {@code source}, который передаёт изменения в данный ему приёмник.
+     * Записи, зафиксированные во время загрузки, накапливаются и применяются поверх загруженных строк
+     * с проверкой версии. Если источник упал, снимок остаётся неготовым и чтение идёт через JPA.
+     */
+    public void load(String description, Consumer<Consumer<ProductChange>> source) {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            changesDuringLoad = new ArrayList<>();
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            source.accept(change -> {
+                lock.writeLock().lock();
+                try {
+                    apply(change);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringLoad = null;
+                clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            changesDuringLoad.forEach(this::apply);
+            changesDuringLoad = null;
+            ready = true;
+            log.info("Columnar inventory loaded {} rows from {} in {} ms",
+                    size - deletedRows, description, (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Передаёт все живые строки в {@code consumer} под блокировкой чтения и возвращает их число.
+     * Записи ждут окончания обхода, поэтому {@code consumer} не должен делать ввод-вывод.
+     */
+    public int forEachLive(Consumer<ProductSnapshot> consumer) {
+        lock.readLock().lock();
+        try {
+            int count = 0;
+            for (int row = 0; row < size; row++) {
+                if (isLive(row)) {
+                    consumer.accept(new ProductSnapshot(ids[row], productIds.decode(productCodes[row]),
+                            STATUSES[statuses[row]], centers.decode(centerCodes[row]), quantities[row], values[row],
+                            versions[row]));
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Применяется раньше остальных обработчиков фиксации, чтобы чтение сразу после записи видело её.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (changesDuringLoad != null) {
+                changesDuringLoad.addAll(event.changes());
+            }
+            event.changes().forEach(this::apply);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Считается раньше записи в журнал ленты ({@link ChangeFeed}), а снимается после {@link #onProductChange},
+     * поэтому, пока счётчик равен нулю, всё, что есть в журнале, уже применено к снимку.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onCommitStarting(ProductChangeEvent event) {
+        commitsInFlight.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void onCommitFinished(ProductChangeEvent event) {
+        commitsInFlight.decrementAndGet();
+    }
+
+    public boolean hasCommitsInFlight() {
+        return commitsInFlight.get() > 0;
+    }
+
+    public List<ProductView> getProductsByStatus(ProductStatus status) {
+        lock.readLock().lock();
+        try {
+            List<ProductView> result = new ArrayList<>();
+            long[] bits = statusBits[status.ordinal()];
+            int words = wordCount(size);
+            for (int w = 0; w < words; w++) {
+                long word = bits[w];
+                while (word != 0) {
+                    int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                    result.add(materialize(row));
+                    word &= word - 1;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<ProductView> getProductsByProductId(String productId) {
+        lock.readLock().lock();
+        try {
+            int code = productIds.find(productId);
+            if (code < 0) {
+                return List.of();
+            }
+            List<ProductView> result = new ArrayList<>();
+            for (int row = 0; row < size; row++) {
+                if (productCodes[row] == code && isLive(row)) {
+                    result.add(materialize(row));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Как и {@code SUM} по пустой выборке, возвращает null, если подходящих строк нет.
+     */
+    public Double getTotalValueByStatus(ProductStatus status) {
+        lock.readLock().lock();
+        try {
+            long[] bits = statusBits[status.ordinal()];
+            int words = wordCount(size);
+            double total = 0;
+            boolean found = false;
+            for (int w = 0; w < words; w++) {
+                long word = bits[w];
+                found |= word != 0;
+                while (word != 0) {
+                    int row = (w << 6) + Long.numberOfTrailingZeros(word);
+                    total += values[row] * quantities[row];
+                    word &= word - 1;
+                }
+            }
+            return found ? total : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Double getTotalValueByCenter(String center) {
+        lock.readLock().lock();
+        try {
+            int code = centers.find(center);
+            if (code < 0) {
+                return null;
+            }
+            double total = 0;
+            boolean found = false;
+            for (int row = 0; row < size; row++) {
+                if (centerCodes[row] == code && isLive(row)) {
+                    total += values[row] * quantities[row];
+                    found = true;
+                }
+            }
+            return found ? total : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public InventoryChecksum checksum() {
+        lock.readLock().lock();
+        try {
+            long quantity = 0;
+            long versionSum = 0;
+            for (int row = 0; row < size; row++) {
+                if (isLive(row)) {
+                    quantity += quantities[row];
+                    versionSum += versions[row];
+                }
+            }
+            return new InventoryChecksum(size - deletedRows, quantity, versionSum);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int liveRows() {
+        lock.readLock().lock();
+        try {
+            return size - deletedRows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(ProductChange change) {
+        if (change.type() == ChangeType.DELETED) {
+            remove(change.before());
+        } else {
+            upsert(change.after());
+        }
+    }
+
+    private void upsert(ProductSnapshot snapshot) {
+        if (deletedVersions.isDeleted(snapshot.id(), snapshot.version())) {
+            return;
+        }
+        Integer existing = rowById.get(snapshot.id());
+        int row;
+        if (existing != null) {
+            if (versions[existing] > snapshot.version()) {
+                return;
+            }
+            row = existing;
+            clearBit(statusBits[statuses[row]], row);
+        } else {
+            if (size == ids.length) {
+                grow();
+            }
+            row = size++;
+            rowById.put(snapshot.id(), row);
+        }
+        ids[row] = snapshot.id();
+        productCodes[row] = productIds.encode(snapshot.productId());
+        centerCodes[row] = centers.encode(snapshot.fulfillmentCenter());
+        statuses[row] = (byte) snapshot.status().ordinal();
+        quantities[row] = snapshot.quantity();
+        values[row] = snapshot.value();
+        versions[row] = snapshot.version();
+        setBit(liveBits, row);
+        setBit(statusBits[statuses[row]], row);
+    }
+
+    private void remove(ProductSnapshot deleted) {
+        deletedVersions.put(deleted.id(), deleted.version());
+        Integer row = rowById.remove(deleted.id());
+        if (row != null) {
+            clearBit(liveBits, row);
+            clearBit(statusBits[statuses[row]], row);
+            deletedRows++;
+        }
+    }
+
+    private ProductView materialize(int row) {
+        return new ProductView(
+                ids[row],
+                productIds.decode(productCodes[row]),
+                STATUSES[statuses[row]],
+                centers.decode(centerCodes[row]),
+                quantities[row],
+                values[row]);
+    }
+
+    /**
+     * Удалённые строки только помечаются; когда их становится больше четверти, массивы уплотняются.
+     */
+    private void compactIfNeeded() {
+        if (size < MIN_ROWS_TO_COMPACT || deletedRows * 4 < size) {
+            return;
+        }
+        int target = 0;
+        for (int row = 0; row < size; row++) {
+            if (!isLive(row)) {
+                continue;
+            }
+            if (target != row) {
+                ids[target] = ids[row];
+                productCodes[target] = productCodes[row];
+                centerCodes[target] = centerCodes[row];
+                statuses[target] = statuses[row];
+                quantities[target] = quantities[row];
+                values[target] = values[row];
+                versions[target] = versions[row];
+                rowById.put(ids[target], target);
+            }
+            target++;
+        }
+        size = target;
+        deletedRows = 0;
+        Arrays.fill(liveBits, 0);
+        for (long[] bits : statusBits) {
+            Arrays.fill(bits, 0);
+        }
+        for (int row = 0; row < size; row++) {
+            setBit(liveBits, row);
+            setBit(statusBits[statuses[row]], row);
+        }
+    }
+
+    private void clear() {
+        rowById.clear();
+        deletedVersions.clear();
+        productIds.clear();
+        centers.clear();
+        allocate(INITIAL_CAPACITY);
+        size = 0;
+        deletedRows = 0;
+    }
+
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        productCodes = new int[capacity];
+        centerCodes = new int[capacity];
+        statuses = new byte[capacity];
+        quantities = new int[capacity];
+        values = new double[capacity];
+        versions = new long[capacity];
+        liveBits = new long[wordCount(capacity)];
+        statusBits = new long[STATUSES.length][wordCount(capacity)];
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        productCodes = Arrays.copyOf(productCodes, capacity);
+        centerCodes = Arrays.copyOf(centerCodes, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        values = Arrays.copyOf(values, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        liveBits = Arrays.copyOf(liveBits, wordCount(capacity));
+        for (int s = 0; s < statusBits.length; s++) {
+            statusBits[s] = Arrays.copyOf(statusBits[s], wordCount(capacity));
+        }
+    }
+
+    private boolean isLive(int row) {
+        return (liveBits[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private static void setBit(long[] bits, int row) {
+        bits[row >>> 6] |= 1L << row;
+    }
+
+    private static void clearBit(long[] bits, int row) {
+        bits[row >>> 6] &= ~(1L << row);
+    }
+
+    private static int wordCount(int rows) {
+        return (rows + 63) >>> 6;
+    }
+
+    /**
+     * Словарь строк: каждому различному значению выдаётся последовательный код.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> entries = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = entries.size();
+                entries.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        int find(String value) {
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        String decode(int code) {
+            return entries.get(code);
+        }
+
+        void clear() {
+            codes.clear();
+            entries.clear();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.config.ReplicaRoutingDataSource;
+import com.propvuebrand.fulfillmentcenters.dto.DataSourceStats;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+@Service
+public class DataSourceStatsService {
+
+    private final DataSource dataSource;
+
+    @Autowired
+    public DataSourceStatsService(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Пул ищется через {@code unwrap}: основной {@code DataSource} может быть обёрнут прокси учёта SQL.
+     */
+    public DataSourceStats getStats() {
+        try {
+            if (dataSource.isWrapperFor(ReplicaRoutingDataSource.class)) {
+                ReplicaRoutingDataSource routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+                return new DataSourceStats(true, routing.isReplicaAvailable(), routing.getReplicaLagMillis(),
+                        routing.getReplicaConnections(), routing.getPrimaryFallbacks(),
+                        List.of(pool(routing.getPrimary()), pool(routing.getReplica())));
+            }
+            List<DataSourceStats.Pool> pools = dataSource.isWrapperFor(HikariDataSource.class)
+                    ? List.of(pool(dataSource.unwrap(HikariDataSource.class)))
+                    : List.of();
+            return new DataSourceStats(false, false, 0, 0, 0, pools);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot unwrap data source", e);
+        }
+    }
+
+    private static DataSourceStats.Pool pool(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            // Пул ещё не запущен: соединений не было
+            return new DataSourceStats.Pool(dataSource.getPoolName(), 0, 0, 0, 0, dataSource.getMaximumPoolSize());
+        }
+        return new DataSourceStats.Pool(dataSource.getPoolName(), pool.getActiveConnections(), pool.getIdleConnections(),
+                pool.getTotalConnections(), pool.getThreadsAwaitingConnection(), dataSource.getMaximumPoolSize());
+    }
+}
@@ -0,0 +1,55 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Версии удалённых строк для представлений в памяти, которые обновляются после фиксации. Обработчики
+ * фиксации параллельных транзакций выполняются в любом порядке, поэтому изменение, пришедшее после удаления,
+ * с версией не новее удалённой строки — запоздавшее и не должно вернуть строку.
+ * <p>
+ * Опоздание измеряется долями секунды, поэтому запись хранится {@code ttl} и удаляется при следующем
+ * {@link #put}. Не потокобезопасен: вызывается под блокировкой записи владельца.
+ */
+final class DeletedVersions {
+
+    private final long ttlNanos;
+    private final Map<Long, long[]> entries = new LinkedHashMap<>();
+
+    DeletedVersions(Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    void put(Long id, long version) {
+        long now = System.nanoTime();
+        prune(now);
+        long[] entry = entries.remove(id);
+        entries.put(id, new long[]{entry == null ? version : Math.max(entry[0], version), now});
+    }
+
+    /**
+     * true, если строка удалена в версии не старше {@code version}.
+     */
+    boolean isDeleted(Long id, long version) {
+        long[] entry = entries.get(id);
+        return entry != null && version <= entry[0];
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    private void prune(long now) {
+        // Порядок вставки совпадает с порядком удаления, поэтому старые записи — в начале
+        Iterator<long[]> iterator = entries.values().iterator();
+        while (iterator.hasNext() && now - iterator.next()[1] > ttlNanos) {
+            iterator.remove();
+        }
+    }
+}
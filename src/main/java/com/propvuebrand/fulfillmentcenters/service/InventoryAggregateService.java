@@ -0,0 +1,241 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.AggregateDriftReport;
+import com.propvuebrand.fulfillmentcenters.event.ProductChange;
+import com.propvuebrand.fulfillmentcenters.event.ProductChangeEvent;
+import com.propvuebrand.fulfillmentcenters.model.AggregateDimension;
+import com.propvuebrand.fulfillmentcenters.model.InventoryAggregate;
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
+import com.propvuebrand.fulfillmentcenters.repository.InventoryAggregateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Итоги по статусам и центрам выполнения, которые поддерживаются дельтами
+ * в той же транзакции, что и изменение продукта, поэтому чтение итога — это чтение одной строки.
+ * Периодическая сверка пересчитывает итоги по таблице products и сообщает о расхождениях.
+ */
+@Service
+public class InventoryAggregateService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryAggregateService.class);
+
+    private static final double ABSOLUTE_TOLERANCE = 1e-6;
+    private static final double RELATIVE_TOLERANCE = 1e-9;
+
+    private final InventoryAggregateRepository aggregateRepository;
+    private final TransactionTemplate newTransaction;
+    private final TransactionTemplate snapshotTransaction;
+    private final boolean enabled;
+
+    @Autowired
+    public InventoryAggregateService(InventoryAggregateRepository aggregateRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${fulfillment.aggregates.enabled:true}") boolean enabled) {
+        this.aggregateRepository = aggregateRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Double getTotalValueByStatus(String status) {
+        return getTotalValue(AggregateDimension.STATUS, status);
+    }
+
+    public Double getTotalValueByCenter(String center) {
+        return getTotalValue(AggregateDimension.CENTER, center);
+    }
+
+    /**
+     * Как и {@code SUM} по пустой выборке, возвращает null, если партий нет.
+     */
+    private Double getTotalValue(AggregateDimension dimension, String value) {
+        return aggregateRepository.findById(InventoryAggregate.keyOf(dimension, value))
+                .filter(aggregate -> aggregate.getLotCount() > 0)
+                .map(InventoryAggregate::getTotalValue)
+                .orElse(null);
+    }
+
+    @EventListener
+    public void onProductChange(ProductChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        // Ключи упорядочены, чтобы параллельные транзакции блокировали строки итогов в одном порядке
+        Map<String, Delta> deltas = new TreeMap<>();
+        for (ProductChange change : event.changes()) {
+            if (change.before() != null) {
+                accumulate(deltas, change.before(), -1);
+            }
+            if (change.after() != null) {
+                accumulate(deltas, change.after(), 1);
+            }
+        }
+        deltas.values().forEach(this::apply);
+    }
+
+    public AggregateDriftReport checkConsistency() {
+        return snapshotTransaction.execute(status -> computeDrift());
+    }
+
+    /**
+     * Применяет к итогам поправки, равные найденному расхождению. Сверка и поправка идут
+     * в одной транзакции REPEATABLE READ, поэтому изменения, зафиксированные параллельно,
+     * не теряются: их дельты уже применены или будут применены поверх поправки.
+     */
+    public AggregateDriftReport repair() {
+        return snapshotTransaction.execute(status -> {
+            AggregateDriftReport report = computeDrift();
+            for (AggregateDriftReport.Drift drift : report.drifts()) {
+                String[] key = drift.aggregateKey().split(":", 2);
+                Delta delta = new Delta(AggregateDimension.valueOf(key[0]), key[1]);
+                delta.quantity = drift.expectedQuantity() - drift.actualQuantity();
+                delta.lots = drift.expectedLotCount() - drift.actualLotCount();
+                delta.totalValue = drift.expectedTotalValue() - drift.actualTotalValue();
+                apply(delta);
+            }
+            if (!report.consistent()) {
+                log.warn("Repaired {} drifted inventory aggregates", report.drifts().size());
+            }
+            return report;
+        });
+    }
+
+    @Scheduled(initialDelayString = "${fulfillment.aggregates.check-interval-ms:600000}",
+            fixedDelayString = "${fulfillment.aggregates.check-interval-ms:600000}")
+    public void scheduledConsistencyCheck() {
+        if (!enabled) {
+            return;
+        }
+        AggregateDriftReport report = checkConsistency();
+        if (!report.consistent()) {
+            log.warn("Inventory aggregates drifted from products: {}", report.drifts());
+        }
+    }
+
+    private AggregateDriftReport computeDrift() {
+        Map<String, Delta> expected = new HashMap<>();
+        for (Object[] row : aggregateRepository.computeTotalsByStatus()) {
+            expected.put(InventoryAggregate.keyOf(AggregateDimension.STATUS, row[0].toString()),
+                    totals(AggregateDimension.STATUS, row[0].toString(), row));
+        }
+        for (Object[] row : aggregateRepository.computeTotalsByCenter()) {
+            expected.put(InventoryAggregate.keyOf(AggregateDimension.CENTER, (String) row[0]),
+                    totals(AggregateDimension.CENTER, (String) row[0], row));
+        }
+
+        List<AggregateDriftReport.Drift> drifts = new ArrayList<>();
+        List<InventoryAggregate> stored = aggregateRepository.findAll();
+        for (InventoryAggregate aggregate : stored) {
+            Delta totals = expected.remove(aggregate.getAggregateKey());
+            long quantity = totals == null ? 0 : totals.quantity;
+            long lots = totals == null ? 0 : totals.lots;
+            double value = totals == null ? 0 : totals.totalValue;
+            if (quantity != aggregate.getQuantity() || lots != aggregate.getLotCount()
+                    || !closeEnough(value, aggregate.getTotalValue())) {
+                drifts.add(new AggregateDriftReport.Drift(aggregate.getAggregateKey(),
+                        quantity, aggregate.getQuantity(), lots, aggregate.getLotCount(),
+                        value, aggregate.getTotalValue()));
+            }
+        }
+        // Итоги, для которых строки нет совсем
+        expected.forEach((key, totals) -> drifts.add(new AggregateDriftReport.Drift(key,
+                totals.quantity, 0, totals.lots, 0, totals.totalValue, 0)));
+
+        return new AggregateDriftReport(Instant.now(), stored.size() + expected.size(), drifts);
+    }
+
+    private void apply(Delta delta) {
+        if (delta.isZero()) {
+            return;
+        }
+        String key = InventoryAggregate.keyOf(delta.dimension, delta.dimensionValue);
+        if (aggregateRepository.applyDelta(key, delta.quantity, delta.lots, delta.totalValue) == 0) {
+            createIfMissing(delta.dimension, delta.dimensionValue);
+            aggregateRepository.applyDelta(key, delta.quantity, delta.lots, delta.totalValue);
+        }
+    }
+
+    /**
+     * Нулевая строка итога создаётся в отдельной транзакции, чтобы гонка двух транзакций
+     * за новый центр не откатывала исходную запись продукта.
+     */
+    private void createIfMissing(AggregateDimension dimension, String value) {
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                String key = InventoryAggregate.keyOf(dimension, value);
+                if (!aggregateRepository.existsById(key)) {
+                    aggregateRepository.saveAndFlush(new InventoryAggregate(dimension, value));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Aggregate {}:{} was created concurrently", dimension, value);
+        }
+    }
+
+    private static void accumulate(Map<String, Delta> deltas, ProductSnapshot snapshot, int sign) {
+        add(deltas, AggregateDimension.STATUS, snapshot.status().name(), snapshot, sign);
+        add(deltas, AggregateDimension.CENTER, snapshot.fulfillmentCenter(), snapshot, sign);
+    }
+
+    private static void add(Map<String, Delta> deltas, AggregateDimension dimension, String value,
+                            ProductSnapshot snapshot, int sign) {
+        Delta delta = deltas.computeIfAbsent(InventoryAggregate.keyOf(dimension, value),
+                key -> new Delta(dimension, value));
+        delta.quantity += (long) sign * snapshot.quantity();
+        delta.lots += sign;
+        delta.totalValue += sign * snapshot.totalValue();
+    }
+
+    private static Delta totals(AggregateDimension dimension, String value, Object[] row) {
+        Delta totals = new Delta(dimension, value);
+        totals.quantity = ((Number) row[1]).longValue();
+        totals.lots = ((Number) row[2]).longValue();
+        totals.totalValue = ((Number) row[3]).doubleValue();
+        return totals;
+    }
+
+    private static boolean closeEnough(double expected, double actual) {
+        double difference = Math.abs(expected - actual);
+        return difference <= ABSOLUTE_TOLERANCE || difference <= RELATIVE_TOLERANCE * Math.abs(expected);
+    }
+
+    private static final class Delta {
+        private final AggregateDimension dimension;
+        private final String dimensionValue;
+        private long quantity;
+        private long lots;
+        private double totalValue;
+
+        private Delta(AggregateDimension dimension, String dimensionValue) {
+            this.dimension = dimension;
+            this.dimensionValue = dimensionValue;
+        }
+
+        private boolean isZero() {
+            return quantity == 0 && lots == 0 && totalValue == 0;
+        }
+    }
+}
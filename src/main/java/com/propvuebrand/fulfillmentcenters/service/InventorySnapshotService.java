@@ -0,0 +1,231 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.ChangeFeedEntry;
+import com.propvuebrand.fulfillmentcenters.dto.ChangeFeedPage;
+import com.propvuebrand.fulfillmentcenters.dto.InventoryChecksum;
+import com.propvuebrand.fulfillmentcenters.event.ProductChange;
+import com.propvuebrand.fulfillmentcenters.repository.ProductJdbcRepository;
+import com.propvuebrand.fulfillmentcenters.util.InventorySnapshotFile;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Файл снимка {@link ColumnarInventory} для тёплого перезапуска ({@code fulfillment.snapshot.enabled=true}).
+ * Снимок пишется каждые {@code fulfillment.snapshot.interval-ms} и при остановке вместе с номером ленты
+ * изменений, до которого он полон. При старте файл отображается в память и загружается в колоночный снимок,
+ * а из ленты применяются только изменения после этого номера; таблица products целиком не читается.
+ * <p>
+ * Лента не гарантирует, что после знака придут все изменения, не попавшие в файл: транзакция с меньшим
+ * номером могла зафиксироваться уже после записи файла, а изменения других экземпляров на той же базе в этот
+ * колоночный снимок не попадают вовсе. Поэтому результат сверяется с таблицей одним агрегирующим запросом
+ * (число строк, сумма количеств и сумма версий), и при расхождении снимок отбрасывается.
+ * <p>
+ * Если файла нет, лента выключена, её журнал уже очищен дальше знака, событие на знаке не совпадает
+ * (например, база пересоздана) или сверка не сошлась, колоночный снимок загружается из базы как обычно.
+ */
+@Service
+public class InventorySnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventorySnapshotService.class);
+
+    private static final int REPLAY_PAGE_SIZE = 1000;
+    private static final int WATERMARK_ATTEMPTS = 50;
+    private static final long WATERMARK_RETRY_MILLIS = 10;
+
+    private final ColumnarInventory columnarInventory;
+    private final ChangeFeed changeFeed;
+    private final ProductJdbcRepository productJdbcRepository;
+    private final boolean enabled;
+    private final Path file;
+
+    @Autowired
+    public InventorySnapshotService(ColumnarInventory columnarInventory,
+                                    ChangeFeed changeFeed,
+                                    ProductJdbcRepository productJdbcRepository,
+                                    @Value("${fulfillment.snapshot.enabled:false}") boolean enabled,
+                                    @Value("${fulfillment.snapshot.file:inventory.snapshot}") Path file) {
+        this.columnarInventory = columnarInventory;
+        this.changeFeed = changeFeed;
+        this.productJdbcRepository = productJdbcRepository;
+        this.enabled = enabled;
+        this.file = file;
+    }
+
+    /**
+     * Выполняется раньше загрузки колоночного снимка из базы, которая после успешного тёплого старта не нужна.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled && columnarInventory.isEnabled()) {
+            warmStart();
+        }
+    }
+
+    /**
+     * Загружает снимок из файла и догоняет ленту. Возвращает false, если снимок не подошёл.
+     */
+    public boolean warmStart() {
+        if (!Files.exists(file)) {
+            log.info("No inventory snapshot at {}", file);
+            return false;
+        }
+        if (!changeFeed.isEnabled()) {
+            log.warn("Inventory snapshot {} is ignored: the change feed is disabled, changes since it cannot be replayed",
+                    file);
+            return false;
+        }
+        try {
+            InventorySnapshotFile.Header header = InventorySnapshotFile.readHeader(file);
+            if (!matchesFeed(header)) {
+                log.info("Inventory snapshot {} at change {} does not match the change log, ignoring it",
+                        file, header.watermark());
+                return false;
+            }
+            columnarInventory.load("snapshot " + file, sink -> {
+                try {
+                    InventorySnapshotFile.read(file, row -> sink.accept(ProductChange.created(row)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                replay(header.watermark(), sink);
+                verify();
+            });
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot load inventory snapshot {}", file, e);
+            return false;
+        }
+    }
+
+    @Scheduled(initialDelayString = "${fulfillment.snapshot.interval-ms:300000}",
+            fixedDelayString = "${fulfillment.snapshot.interval-ms:300000}")
+    public void scheduledWrite() {
+        if (enabled) {
+            write();
+        }
+    }
+
+    @PreDestroy
+    public void writeOnShutdown() {
+        if (enabled) {
+            write();
+        }
+    }
+
+    /**
+     * Пишет снимок, если колоночный снимок готов и есть номер ленты, к которому его привязать.
+     * Знаком становится последний номер журнала, взятый в момент, когда ни одна транзакция этого экземпляра
+     * не находится между записью в журнал и применением к колоночному снимку: тогда всё до знака уже в снимке,
+     * а всё после него будет применено при старте. Если такой момент не наступил за несколько попыток,
+     * снимок не пишется до следующего раза. Изменения, сделанные другими экземплярами, этим не покрываются —
+     * их находит сверка при старте.
+     */
+    public boolean write() {
+        if (!columnarInventory.isReady() || !changeFeed.isEnabled()) {
+            return false;
+        }
+        long watermark = appliedWatermark();
+        if (watermark < 0) {
+            log.debug("Writes kept the columnar inventory behind the change log, inventory snapshot skipped");
+            return false;
+        }
+        List<ChangeFeedEntry> marker = watermark == 0 ? List.of() : changeFeed.read(watermark - 1, 1).changes();
+        if (marker.isEmpty() || marker.getFirst().sequence() != watermark) {
+            log.debug("No change log entry to anchor an inventory snapshot at {}", watermark);
+            return false;
+        }
+        long started = System.nanoTime();
+        InventorySnapshotFile.Encoder encoder = new InventorySnapshotFile.Encoder();
+        columnarInventory.forEachLive(encoder::add);
+        try {
+            encoder.writeTo(file, watermark, marker.getFirst().changedAt().toEpochMilli(), marker.getFirst().product().id());
+        } catch (IOException e) {
+            log.warn("Failed to write inventory snapshot {}", file, e);
+            return false;
+        }
+        log.info("Wrote inventory snapshot {} with {} rows at change {} in {} ms",
+                file, encoder.rows(), watermark, (System.nanoTime() - started) / 1_000_000);
+        return true;
+    }
+
+    /**
+     * Номер журнала, взятый раньше проверки: запись с меньшим номером сделана транзакцией, которая к моменту
+     * проверки уже применила изменения. -1, если транзакции так и не стихли.
+     */
+    private long appliedWatermark() {
+        for (int attempt = 0; attempt < WATERMARK_ATTEMPTS; attempt++) {
+            long watermark = changeFeed.latestSequence();
+            if (!columnarInventory.hasCommitsInFlight()) {
+                return watermark;
+            }
+            try {
+                Thread.sleep(WATERMARK_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matchesFeed(InventorySnapshotFile.Header header) {
+        long watermark = header.watermark();
+        if (watermark == 0 || changeFeed.isExpired(watermark)) {
+            return false;
+        }
+        List<ChangeFeedEntry> marker = changeFeed.read(watermark - 1, 1).changes();
+        return !marker.isEmpty()
+                && marker.getFirst().sequence() == watermark
+                // В файле время записи на знаке хранится в миллисекундах
+                && marker.getFirst().changedAt().toEpochMilli() == header.watermarkChangedAt()
+                && marker.getFirst().product().id() == header.watermarkRowId();
+    }
+
+    /**
+     * Сравнивает загруженное с таблицей. Запись, зафиксированная между запросом и подсчётом, тоже даёт
+     * расхождение; тогда снимок просто перечитывается из базы.
+     */
+    private void verify() {
+        InventoryChecksum table = productJdbcRepository.checksum();
+        InventoryChecksum loaded = columnarInventory.checksum();
+        if (!table.equals(loaded)) {
+            throw new IllegalStateException("snapshot and change log replay give " + loaded
+                    + ", the products table has " + table);
+        }
+    }
+
+    private void replay(long after, Consumer<ProductChange> sink) {
+        long replayed = 0;
+        ChangeFeedPage page;
+        do {
+            page = changeFeed.read(after, REPLAY_PAGE_SIZE);
+            for (ChangeFeedEntry entry : page.changes()) {
+                sink.accept(switch (entry.type()) {
+                    case CREATED -> ProductChange.created(entry.product());
+                    case UPDATED -> ProductChange.updated(null, entry.product());
+                    case DELETED -> ProductChange.deleted(entry.product());
+                });
+                replayed++;
+            }
+            after = page.nextAfter();
+        } while (!page.changes().isEmpty());
+        log.info("Replayed {} changes after the inventory snapshot", replayed);
+    }
+}
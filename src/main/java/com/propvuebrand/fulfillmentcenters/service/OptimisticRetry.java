@@ -0,0 +1,59 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Повторяет операцию при конфликте версий ({@code @Version}). Операция должна открывать
+ * собственную транзакцию (вызов через прокси сервиса), чтобы каждая попытка читала свежую версию.
+ * Между попытками — экспоненциальная пауза со случайным разбросом, чтобы конкурирующие
+ * писатели не сталкивались снова в тот же момент.
+ */
+@Component
+public class OptimisticRetry {
+
+    private static final Logger log = LoggerFactory.getLogger(OptimisticRetry.class);
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticRetry(@Value("${fulfillment.retry.max-attempts:5}") int maxAttempts,
+                           @Value("${fulfillment.retry.initial-backoff-ms:5}") long initialBackoffMillis,
+                           @Value("${fulfillment.retry.max-backoff-ms:200}") long maxBackoffMillis) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T execute(Supplier<T> operation) {
+        long backoff = initialBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Optimistic lock conflict, attempt {} of {}", attempt, maxAttempts);
+                sleep(ThreadLocalRandom.current().nextLong(backoff + 1));
+                backoff = Math.min(backoff * 2, maxBackoffMillis);
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+}
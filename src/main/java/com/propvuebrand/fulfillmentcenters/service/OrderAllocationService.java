@@ -0,0 +1,159 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.AllocationResult;
+import com.propvuebrand.fulfillmentcenters.event.ProductChange;
+import com.propvuebrand.fulfillmentcenters.event.ProductChangeEvent;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
+import com.propvuebrand.fulfillmentcenters.repository.ProductJdbcRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Подбор центров выполнения под заказ с наименьшим числом отправок. Точная задача — покрытие множества,
+ * поэтому используется жадный выбор: каждый следующий центр покрывает наибольшее оставшееся количество
+ * (при равенстве — больше строк целиком, затем по имени). Если один центр может собрать весь заказ,
+ * он и будет выбран.
+ * <p>
+ * Расчёт без резервирования читает остатки из {@link SellableStockIndex}. Резервирование блокирует
+ * партии заказанных продуктов, заново считает разбиение по заблокированным строкам и списывает
+ * остаток в той же транзакции, поэтому не зависит от задержки индекса.
+ */
+@Service
+public class OrderAllocationService {
+
+    private final SellableStockIndex sellableStockIndex;
+    private final ProductJdbcRepository productJdbcRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public OrderAllocationService(SellableStockIndex sellableStockIndex,
+                                  ProductJdbcRepository productJdbcRepository,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.sellableStockIndex = sellableStockIndex;
+        this.productJdbcRepository = productJdbcRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public AllocationResult allocate(Map<String, Integer> lines) {
+        Map<String, Map<String, Long>> availability = sellableStockIndex.isReady()
+                ? sellableStockIndex.availability(lines.keySet())
+                : productJdbcRepository.sellableQuantities(lines.keySet());
+        return plan(lines, availability);
+    }
+
+    /**
+     * Считает разбиение и списывает остаток. Если заказ нельзя собрать целиком, ничего не списывается.
+     * Внутри центра остаток списывается с самых больших партий, чтобы изменить как можно меньше строк.
+     */
+    @Transactional
+    public AllocationResult reserve(Map<String, Integer> lines) {
+        List<Product> lots = productJdbcRepository.lockSellableLots(lines.keySet());
+        Map<String, Map<String, Long>> availability = new HashMap<>();
+        for (Product lot : lots) {
+            availability.computeIfAbsent(lot.getProductId(), key -> new HashMap<>())
+                    .merge(lot.getFulfillmentCenter(), (long) lot.getQuantity(), Long::sum);
+        }
+        AllocationResult plan = plan(lines, availability);
+        if (!plan.fulfillable()) {
+            return plan;
+        }
+
+        lots.sort(Comparator.comparing(Product::getQuantity).reversed().thenComparing(Product::getId));
+        List<Long> ids = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        List<ProductChange> changes = new ArrayList<>();
+        for (AllocationResult.Shipment shipment : plan.shipments()) {
+            shipment.lines().forEach((productId, quantity) -> {
+                int remaining = quantity;
+                for (Product lot : lots) {
+                    if (remaining == 0) {
+                        break;
+                    }
+                    if (!lot.getProductId().equals(productId)
+                            || !lot.getFulfillmentCenter().equals(shipment.fulfillmentCenter())) {
+                        continue;
+                    }
+                    int take = Math.min(remaining, lot.getQuantity());
+                    ids.add(lot.getId());
+                    deltas.add((long) -take);
+                    ProductSnapshot before = ProductSnapshot.of(lot);
+                    changes.add(ProductChange.updated(before,
+                            before.withQuantity(before.quantity() - take, before.version() + 1)));
+                    remaining -= take;
+                }
+            });
+        }
+        // Строки заблокированы, поэтому условие quantity + delta >= 0 выполнится для каждой
+        productJdbcRepository.adjustQuantities(ids, deltas);
+        eventPublisher.publishEvent(new ProductChangeEvent(changes));
+        return new AllocationResult(true, true, plan.shipments(), plan.unallocated());
+    }
+
+    static AllocationResult plan(Map<String, Integer> lines, Map<String, Map<String, Long>> availability) {
+        Map<String, Long> remaining = new LinkedHashMap<>();
+        lines.forEach((productId, quantity) -> remaining.put(productId, (long) quantity));
+        // Остаток по центру и продукту, уменьшается по мере назначения
+        Map<String, Map<String, Long>> byCenter = new HashMap<>();
+        availability.forEach((productId, centers) -> centers.forEach((center, quantity) ->
+                byCenter.computeIfAbsent(center, key -> new HashMap<>()).put(productId, quantity)));
+        TreeSet<String> candidates = new TreeSet<>(byCenter.keySet());
+
+        List<AllocationResult.Shipment> shipments = new ArrayList<>();
+        while (!remaining.isEmpty()) {
+            String best = null;
+            long bestCovered = 0;
+            int bestFullLines = -1;
+            for (String center : candidates) {
+                Map<String, Long> stock = byCenter.get(center);
+                long covered = 0;
+                int fullLines = 0;
+                for (Map.Entry<String, Long> line : remaining.entrySet()) {
+                    long available = stock.getOrDefault(line.getKey(), 0L);
+                    covered += Math.min(available, line.getValue());
+                    if (available >= line.getValue()) {
+                        fullLines++;
+                    }
+                }
+                if (covered > bestCovered || (covered == bestCovered && covered > 0 && fullLines > bestFullLines)) {
+                    best = center;
+                    bestCovered = covered;
+                    bestFullLines = fullLines;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            candidates.remove(best);
+            Map<String, Long> stock = byCenter.get(best);
+            Map<String, Integer> shipmentLines = new LinkedHashMap<>();
+            var iterator = remaining.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Long> line = iterator.next();
+                long take = Math.min(stock.getOrDefault(line.getKey(), 0L), line.getValue());
+                if (take > 0) {
+                    shipmentLines.put(line.getKey(), (int) take);
+                    line.setValue(line.getValue() - take);
+                    if (line.getValue() == 0) {
+                        iterator.remove();
+                    }
+                }
+            }
+            shipments.add(new AllocationResult.Shipment(best, shipmentLines));
+        }
+
+        Map<String, Integer> unallocated = new LinkedHashMap<>();
+        remaining.forEach((productId, quantity) -> unallocated.put(productId, quantity.intValue()));
+        return new AllocationResult(remaining.isEmpty(), false, shipments, unallocated);
+    }
+}
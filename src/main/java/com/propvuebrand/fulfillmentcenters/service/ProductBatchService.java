@@ -0,0 +1,197 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.BatchItemResult;
+import com.propvuebrand.fulfillmentcenters.dto.BatchItemStatus;
+import com.propvuebrand.fulfillmentcenters.dto.BulkDeleteResult;
+import com.propvuebrand.fulfillmentcenters.event.ProductChange;
+import com.propvuebrand.fulfillmentcenters.event.ProductChangeEvent;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.ProductJdbcRepository;
+import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетные операции над продуктами. Весь список обрабатывается в одной транзакции,
+ * а Hibernate объединяет INSERT/UPDATE в JDBC batch (см. hibernate.jdbc.batch_size).
+ */
+@Service
+@Transactional
+public class ProductBatchService {
+    private final ProductRepository productRepository;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductJdbcRepository productJdbcRepository;
+    private final int maxBatchSize;
+    private final long maxDeleteRows;
+
+    @Autowired
+    public ProductBatchService(ProductRepository productRepository,
+                               ProductJdbcRepository productJdbcRepository,
+                               Validator validator,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${fulfillment.batch.max-size:5000}") int maxBatchSize,
+                               @Value("${fulfillment.bulk-delete.max-rows:10000}") long maxDeleteRows) {
+        this.productRepository = productRepository;
+        this.productJdbcRepository = productJdbcRepository;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDeleteRows = maxDeleteRows;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getMaxDeleteRows() {
+        return maxDeleteRows;
+    }
+
+    /**
+     * Проверяет весь список до записи. Возвращает только элементы с ошибками;
+     * пустой результат означает, что список можно записывать.
+     */
+    public List<BatchItemResult> validate(List<Product> products, boolean requireId) {
+        List<BatchItemResult> failures = new ArrayList<>();
+        Set<Long> seenIds = new HashSet<>();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            if (product == null) {
+                failures.add(BatchItemResult.invalid(i, null, List.of("item must not be null")));
+                continue;
+            }
+            List<String> errors = new ArrayList<>();
+            validator.validate(product).forEach(violation ->
+                    errors.add(violation.getPropertyPath() + " " + violation.getMessage()));
+            if (requireId && product.getId() == null) {
+                errors.add("id must not be null");
+            } else if (requireId && !seenIds.add(product.getId())) {
+                errors.add("id " + product.getId() + " is duplicated in the batch");
+            }
+            if (!errors.isEmpty()) {
+                errors.sort(null);
+                failures.add(BatchItemResult.invalid(i, product.getId(), errors));
+            }
+        }
+        return failures;
+    }
+
+    public List<BatchItemResult> createProducts(List<Product> products) {
+        products.forEach(product -> {
+            product.setId(null);
+            product.setVersion(null);
+        });
+        List<Product> saved = productRepository.saveAll(products);
+        productRepository.flush();
+
+        List<BatchItemResult> results = new ArrayList<>(saved.size());
+        List<ProductChange> changes = new ArrayList<>(saved.size());
+        for (int i = 0; i < saved.size(); i++) {
+            results.add(BatchItemResult.of(i, saved.get(i).getId(), BatchItemStatus.CREATED));
+            changes.add(ProductChange.created(ProductSnapshot.of(saved.get(i))));
+        }
+        eventPublisher.publishEvent(new ProductChangeEvent(changes));
+        return results;
+    }
+
+    public List<BatchItemResult> updateProducts(List<Product> products) {
+        Map<Long, Product> existing = productRepository.findAllById(
+                        products.stream().map(Product::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<BatchItemResult> results = new ArrayList<>(products.size());
+        List<ProductSnapshot> before = new ArrayList<>();
+        List<Product> updated = new ArrayList<>();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            Product current = existing.get(product.getId());
+            if (current == null) {
+                results.add(BatchItemResult.of(i, product.getId(), BatchItemStatus.NOT_FOUND));
+            } else if (product.getVersion() != null && !product.getVersion().equals(current.getVersion())) {
+                results.add(BatchItemResult.of(i, product.getId(), BatchItemStatus.CONFLICT));
+            } else {
+                // Изменения управляемой сущности уйдут одним batch UPDATE при flush
+                before.add(ProductSnapshot.of(current));
+                updated.add(current);
+                current.setProductId(product.getProductId());
+                current.setStatus(product.getStatus());
+                current.setFulfillmentCenter(product.getFulfillmentCenter());
+                current.setQuantity(product.getQuantity());
+                current.setValue(product.getValue());
+                results.add(BatchItemResult.of(i, product.getId(), BatchItemStatus.UPDATED));
+            }
+        }
+        productRepository.flush();
+
+        List<ProductChange> changes = new ArrayList<>(updated.size());
+        for (int i = 0; i < updated.size(); i++) {
+            changes.add(ProductChange.updated(before.get(i), ProductSnapshot.of(updated.get(i))));
+        }
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangeEvent(changes));
+        }
+        return results;
+    }
+
+    public List<BatchItemResult> deleteProducts(List<Long> ids) {
+        List<ProductChange> changes = new ArrayList<>();
+        Set<Long> existing = new HashSet<>();
+        for (Product product : productRepository.findAllById(new HashSet<>(ids))) {
+            existing.add(product.getId());
+            changes.add(ProductChange.deleted(ProductSnapshot.of(product)));
+        }
+        if (!existing.isEmpty()) {
+            productRepository.deleteAllByIdInBatch(existing);
+            eventPublisher.publishEvent(new ProductChangeEvent(changes));
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            results.add(BatchItemResult.of(i, id,
+                    existing.contains(id) ? BatchItemStatus.DELETED : BatchItemStatus.NOT_FOUND));
+        }
+        return results;
+    }
+
+    /**
+     * Удаляет все продукты, подходящие под фильтры, одним оператором DELETE. Если под фильтры
+     * подходит больше {@code limit} строк, ничего не удаляется. Если между подсчётом и удалением
+     * подходящих строк стало больше лимита, транзакция откатывается.
+     */
+    public BulkDeleteResult deleteMatching(ProductStatus status, String center, String productId,
+                                           long limit, boolean dryRun) {
+        long matched = productJdbcRepository.countMatching(status, center, productId);
+        if (dryRun || matched > limit || matched == 0) {
+            return new BulkDeleteResult(matched, 0, limit, dryRun);
+        }
+        List<Product> deleted = productJdbcRepository.deleteMatching(status, center, productId);
+        if (deleted.size() > limit) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return new BulkDeleteResult(deleted.size(), 0, limit, false);
+        }
+        if (!deleted.isEmpty()) {
+            List<ProductChange> changes = new ArrayList<>(deleted.size());
+            deleted.forEach(product -> changes.add(ProductChange.deleted(ProductSnapshot.of(product))));
+            eventPublisher.publishEvent(new ProductChangeEvent(changes));
+        }
+        return new BulkDeleteResult(deleted.size(), deleted.size(), limit, false);
+    }
+}
@@ -0,0 +1,49 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.event.ProductChange;
+import com.propvuebrand.fulfillmentcenters.event.ProductChangeEvent;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Вытесняет продукты из кэша второго уровня после записей в обход Hibernate
+ * (JDBC batch, COPY, отложенная запись количеств). Записи через Hibernate кэш
+ * обновляет сам; для них вытеснение лишь стоит одного лишнего промаха.
+ * <p>
+ * Hibernate не знает о таких записях и не ставит на строку мягкую блокировку, поэтому строка
+ * вытесняется дважды: перед фиксацией и после неё. Чтение, которое успело между ними положить
+ * в кэш старую строку, снимается вторым вытеснением. Кэш запросов выключен: его метки времени
+ * обновления JDBC-записи тоже обходят.
+ */
+@Component
+public class ProductCacheInvalidator {
+
+    private final Cache cache;
+
+    @Autowired
+    public ProductCacheInvalidator(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void beforeCommit(ProductChangeEvent event) {
+        evict(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        evict(event);
+    }
+
+    private void evict(ProductChangeEvent event) {
+        for (ProductChange change : event.changes()) {
+            cache.evictEntityData(Product.class, change.id());
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.opencsv.CSVReader;
+import com.propvuebrand.fulfillmentcenters.dto.ImportJobStatus;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.util.BulkLoadReport;
+import com.propvuebrand.fulfillmentcenters.util.BulkProductLoader;
+import com.propvuebrand.fulfillmentcenters.util.ProductCsvParser;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Импорт CSV в формате data.csv во время работы приложения. Загруженный файл сохраняется
+ * во временный файл и обрабатывается в фоне конвейером:
+ * <ol>
+ *     <li>один поток читает файл (при необходимости распаковывая gzip) и режет его на пачки
+ *     по {@code fulfillment.import.chunk-size} строк;</li>
+ *     <li>пачки разбираются и проверяются параллельно в {@code fulfillment.import.parse-threads} потоках;</li>
+ *     <li>поток задачи записывает разобранные пачки в исходном порядке через
+ *     {@link BulkProductLoader#writeChunk}, каждую в своей транзакции.</li>
+ * </ol>
+ * Между чтением и записью не больше {@code fulfillment.import.max-pending-chunks} пачек: если запись
+ * отстаёт, чтение ждёт. Некорректные строки не прерывают импорт и попадают в отчёт задачи.
+ * Если импорт прерван ошибкой, уже записанные пачки остаются в базе.
+ * <p>
+ * Одновременно выполняется не больше {@code fulfillment.import.max-concurrent-jobs} задач, и ещё
+ * {@code fulfillment.import.max-queued-jobs} ждут в очереди; сверх этого {@link #submit} бросает
+ * {@link RejectedExecutionException}, а временный файл удаляется.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final int MAX_REPORTED_REJECTS = 1000;
+
+    private final BulkProductLoader bulkProductLoader;
+    private final int chunkSize;
+    private final int maxPendingChunks;
+    private final int retainedJobs;
+
+    private final ThreadPoolExecutor jobExecutor;
+    private final ExecutorService readerExecutor;
+    private final ExecutorService parseExecutor;
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ProductImportService(BulkProductLoader bulkProductLoader,
+                                @Value("${fulfillment.import.chunk-size:5000}") int chunkSize,
+                                @Value("${fulfillment.import.parse-threads:0}") int parseThreads,
+                                @Value("${fulfillment.import.max-pending-chunks:8}") int maxPendingChunks,
+                                @Value("${fulfillment.import.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                                @Value("${fulfillment.import.max-queued-jobs:8}") int maxQueuedJobs,
+                                @Value("${fulfillment.import.retained-jobs:100}") int retainedJobs) {
+        this.bulkProductLoader = bulkProductLoader;
+        this.chunkSize = chunkSize;
+        this.maxPendingChunks = maxPendingChunks;
+        this.retainedJobs = retainedJobs;
+        this.jobExecutor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0, TimeUnit.MILLISECONDS,
+                maxQueuedJobs > 0 ? new ArrayBlockingQueue<>(maxQueuedJobs) : new SynchronousQueue<>(),
+                threadFactory("import-job-"));
+        this.readerExecutor = Executors.newCachedThreadPool(threadFactory("import-reader-"));
+        this.parseExecutor = Executors.newFixedThreadPool(
+                parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors(),
+                threadFactory("import-parse-"));
+    }
+
+    /**
+     * Сохраняет файл и ставит задачу в очередь. Файл может быть сжат gzip, это определяется по содержимому.
+     *
+     * @throws RejectedExecutionException если очередь задач заполнена
+     */
+    public ImportJobStatus submit(MultipartFile file) throws IOException {
+        Path temp = Files.createTempFile("product-import-", ".csv");
+        try {
+            file.transferTo(temp);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Job job = new Job(UUID.randomUUID().toString(), file.getOriginalFilename(), temp, Files.size(temp));
+        evictFinishedJobs();
+        jobs.put(job.id, job);
+        try {
+            jobExecutor.execute(new ImportTask(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            deleteFile(job);
+            throw e;
+        }
+        return job.status();
+    }
+
+    public Optional<ImportJobStatus> getStatus(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(Job::status);
+    }
+
+    public List<ImportJobStatus> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((Job job) -> job.submittedAt).reversed())
+                .map(Job::status)
+                .toList();
+    }
+
+    /**
+     * Останавливает выполняемые задачи; задачи из очереди завершаются ошибкой, их временные файлы удаляются.
+     */
+    @PreDestroy
+    public void shutdown() {
+        List<Runnable> queued = jobExecutor.shutdownNow();
+        readerExecutor.shutdownNow();
+        parseExecutor.shutdownNow();
+        for (Runnable task : queued) {
+            if (task instanceof ImportTask importTask) {
+                importTask.job.finish(ImportJobStatus.State.FAILED, "application shut down before the import started");
+                deleteFile(importTask.job);
+            }
+        }
+    }
+
+    private void run(Job job) {
+        job.state = ImportJobStatus.State.RUNNING;
+        job.startedNanos = System.nanoTime();
+        BlockingQueue<CompletableFuture<ParsedChunk>> pending = new ArrayBlockingQueue<>(maxPendingChunks);
+        CompletableFuture<Void> reader = CompletableFuture.runAsync(() -> read(job, pending), readerExecutor);
+        try {
+            while (true) {
+                ParsedChunk chunk = pending.take().join();
+                if (chunk == ParsedChunk.END) {
+                    break;
+                }
+                job.reject(chunk.rejected);
+                job.loadedRows.addAndGet(bulkProductLoader.writeChunk(chunk.products));
+            }
+            reader.join();
+            job.finish(ImportJobStatus.State.COMPLETED, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish(ImportJobStatus.State.FAILED, "interrupted");
+        } catch (RuntimeException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("Import {} of {} failed", job.id, job.filename, cause);
+            job.finish(ImportJobStatus.State.FAILED, cause.getMessage());
+        } finally {
+            // Освобождаем читателя, если он ждёт места в очереди
+            job.cancelled = true;
+            pending.clear();
+            reader.cancel(true);
+            deleteFile(job);
+        }
+        log.info("Import {} of {} {}: {} rows loaded, {} rejected, {} rows/s",
+                job.id, job.filename, job.state, job.loadedRows.get(), job.rejectedRows.get(),
+                Math.round(job.status().rowsPerSecond()));
+    }
+
+    /**
+     * Читает файл и отправляет пачки на разбор. Конец файла и ошибка чтения передаются
+     * писателю через ту же очередь, чтобы он не ждал бесконечно.
+     */
+    private void read(Job job, BlockingQueue<CompletableFuture<ParsedChunk>> pending) {
+        try (CSVReader reader = new CSVReader(new InputStreamReader(open(job), StandardCharsets.UTF_8))) {
+            // Пропускаем заголовок
+            reader.readNext();
+
+            List<String[]> lines = new ArrayList<>(chunkSize);
+            long[] lineNumbers = new long[chunkSize];
+            String[] line;
+            while (!job.cancelled && (line = reader.readNext()) != null) {
+                lineNumbers[lines.size()] = reader.getLinesRead();
+                lines.add(line);
+                job.readRows.incrementAndGet();
+                if (lines.size() == chunkSize) {
+                    submitChunk(lines, lineNumbers, pending);
+                    lines = new ArrayList<>(chunkSize);
+                    lineNumbers = new long[chunkSize];
+                }
+            }
+            if (!lines.isEmpty()) {
+                submitChunk(lines, lineNumbers, pending);
+            }
+            signal(job, pending, CompletableFuture.completedFuture(ParsedChunk.END));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            try {
+                signal(job, pending, CompletableFuture.failedFuture(e));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Кладёт последний элемент в очередь, пока писатель ещё ждёт; после отмены задачи выходит сразу.
+     */
+    private static void signal(Job job, BlockingQueue<CompletableFuture<ParsedChunk>> pending,
+                               CompletableFuture<ParsedChunk> last) throws InterruptedException {
+        while (!job.cancelled && !pending.offer(last, 100, TimeUnit.MILLISECONDS)) {
+            // писатель занят записью, ждём места
+        }
+    }
+
+    private void submitChunk(List<String[]> lines, long[] lineNumbers,
+                             BlockingQueue<CompletableFuture<ParsedChunk>> pending) throws InterruptedException {
+        pending.put(CompletableFuture.supplyAsync(() -> parse(lines, lineNumbers), parseExecutor));
+    }
+
+    private static ParsedChunk parse(List<String[]> lines, long[] lineNumbers) {
+        List<Product> products = new ArrayList<>(lines.size());
+        List<BulkLoadReport.RejectedLine> rejected = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            try {
+                products.add(ProductCsvParser.parse(lines.get(i)));
+            } catch (IllegalArgumentException e) {
+                rejected.add(new BulkLoadReport.RejectedLine(lineNumbers[i], e.getMessage()));
+            }
+        }
+        return new ParsedChunk(products, rejected);
+    }
+
+    private static InputStream open(Job job) throws IOException {
+        InputStream in = new BufferedInputStream(new CountingInputStream(Files.newInputStream(job.file), job.bytesRead));
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        if (first == 0x1f && second == 0x8b) {
+            return new GZIPInputStream(in, 64 * 1024);
+        }
+        return in;
+    }
+
+    private static void deleteFile(Job job) {
+        try {
+            Files.deleteIfExists(job.file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}", job.file, e);
+        }
+    }
+
+    private void evictFinishedJobs() {
+        if (jobs.size() < retainedJobs) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.state == ImportJobStatus.State.COMPLETED || job.state == ImportJobStatus.State.FAILED)
+                .sorted(Comparator.comparing((Job job) -> job.submittedAt))
+                .limit(jobs.size() - retainedJobs + 1L)
+                .forEach(job -> jobs.remove(job.id));
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Задача в очереди исполнителя; по ней {@link #shutdown} находит файлы задач, которые так и не начались.
+     */
+    private final class ImportTask implements Runnable {
+        final Job job;
+
+        ImportTask(Job job) {
+            this.job = job;
+        }
+
+        @Override
+        public void run() {
+            ProductImportService.this.run(job);
+        }
+    }
+
+    private record ParsedChunk(List<Product> products, List<BulkLoadReport.RejectedLine> rejected) {
+        static final ParsedChunk END = new ParsedChunk(List.of(), List.of());
+    }
+
+    private static final class Job {
+        final String id;
+        final String filename;
+        final Path file;
+        final long size;
+        final Instant submittedAt = Instant.now();
+        final AtomicLong bytesRead = new AtomicLong();
+        final AtomicLong readRows = new AtomicLong();
+        final AtomicLong loadedRows = new AtomicLong();
+        final AtomicLong rejectedRows = new AtomicLong();
+        final List<BulkLoadReport.RejectedLine> rejectedLines = Collections.synchronizedList(new ArrayList<>());
+        volatile ImportJobStatus.State state = ImportJobStatus.State.QUEUED;
+        volatile long startedNanos;
+        volatile long finishedNanos;
+        volatile Instant finishedAt;
+        volatile String error;
+        volatile boolean cancelled;
+
+        Job(String id, String filename, Path file, long size) {
+            this.id = id;
+            this.filename = filename;
+            this.file = file;
+            this.size = size;
+        }
+
+        void reject(List<BulkLoadReport.RejectedLine> rejected) {
+            rejectedRows.addAndGet(rejected.size());
+            for (BulkLoadReport.RejectedLine line : rejected) {
+                if (rejectedLines.size() >= MAX_REPORTED_REJECTS) {
+                    break;
+                }
+                rejectedLines.add(line);
+            }
+        }
+
+        void finish(ImportJobStatus.State finalState, String message) {
+            finishedNanos = System.nanoTime();
+            finishedAt = Instant.now();
+            error = message;
+            state = finalState;
+        }
+
+        ImportJobStatus status() {
+            long elapsedNanos = startedNanos == 0 ? 0
+                    : (finishedNanos != 0 ? finishedNanos : System.nanoTime()) - startedNanos;
+            double rowsPerSecond = elapsedNanos == 0 ? 0 : loadedRows.get() * 1e9 / elapsedNanos;
+            double progress = state == ImportJobStatus.State.COMPLETED ? 1.0
+                    : size == 0 ? 0 : Math.min(1.0, (double) bytesRead.get() / size);
+            List<BulkLoadReport.RejectedLine> rejected;
+            synchronized (rejectedLines) {
+                rejected = List.copyOf(rejectedLines);
+            }
+            return new ImportJobStatus(id, state, filename, submittedAt, finishedAt, readRows.get(),
+                    loadedRows.get(), rejectedRows.get(), progress, rowsPerSecond, error, rejected);
+        }
+    }
+
+    /**
+     * Считает прочитанные байты исходного файла для оценки прогресса.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicLong counter;
+
+        CountingInputStream(InputStream in, AtomicLong counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counter.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                counter.addAndGet(n);
+            }
+            return n;
+        }
+    }
+}
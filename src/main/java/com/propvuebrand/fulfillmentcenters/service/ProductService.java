@@ -1,73 +1,259 @@
 package com.propvuebrand.fulfillmentcenters.service;
 
+import com.propvuebrand.fulfillmentcenters.dto.InventorySummaryRow;
+import com.propvuebrand.fulfillmentcenters.dto.ProductView;
+import com.propvuebrand.fulfillmentcenters.dto.QuantityAdjustment;
+import com.propvuebrand.fulfillmentcenters.event.ProductChange;
+import com.propvuebrand.fulfillmentcenters.event.ProductChangeEvent;
 import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
 import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.ProductJdbcRepository;
 import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 @Transactional
 public class ProductService {
     private final ProductRepository productRepository;
+    private final ProductJdbcRepository productJdbcRepository;
+    private final InventoryAggregateService inventoryAggregateService;
+    private final ColumnarInventory columnarInventory;
+    private final QuantityWriteBuffer quantityWriteBuffer;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository,
+                          ProductJdbcRepository productJdbcRepository,
+                          InventoryAggregateService inventoryAggregateService,
+                          ColumnarInventory columnarInventory,
+                          QuantityWriteBuffer quantityWriteBuffer,
+                          ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
+        this.productJdbcRepository = productJdbcRepository;
+        this.inventoryAggregateService = inventoryAggregateService;
+        this.columnarInventory = columnarInventory;
+        this.quantityWriteBuffer = quantityWriteBuffer;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true)
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    public List<ProductView> getAllProducts() {
+        return productRepository.findAllViews();
     }
 
     @Transactional(readOnly = true)
+    public List<ProductView> getAllProducts(long after, int limit) {
+        return productRepository.findViewsAfter(after, Limit.of(limit));
+    }
+
+    /**
+     * Передаёт продукты, подходящие под необязательные фильтры, по одному в {@code consumer}
+     * прямо из курсора JDBC, так что память не зависит от размера таблицы.
+     */
+    @Transactional(readOnly = true)
+    public void streamProducts(ProductStatus status, String productId, Consumer<ProductView> consumer) {
+        streamProducts(status, null, productId, consumer);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamProducts(ProductStatus status, String center, String productId, Consumer<ProductView> consumer) {
+        productJdbcRepository.streamProducts(status, center, productId, ProductJdbcRepository.PRODUCT_VIEW_ROW_MAPPER, consumer);
+    }
+
+    /**
+     * В режиме отложенной записи количество включает ещё не записанные изменения; строка тогда читается
+     * через JDBC, мимо кэша и контекста персистентности, чтобы повторное чтение в {@code readThrough} видело базу.
+     * Своей транзакции нет: пока {@code readThrough} ждёт фиксацию сброса, соединение из пула не занято.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Optional<Product> getProduct(Long id) {
+        if (quantityWriteBuffer.isEnabled()) {
+            return quantityWriteBuffer.readThrough(id, () -> productJdbcRepository.findById(id));
+        }
         return productRepository.findById(id);
     }
 
+    /**
+     * Колоночная копия отвечает без базы, поэтому своя транзакция (и соединение из пула) не открывается;
+     * запрос к базе, пока копия не загружена, идёт в транзакции репозитория. Так же устроены
+     * {@link #getProductsByStatus(ProductStatus)} и итоги по стоимости.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ProductView> getProductByProductId(String productId) {
+        if (columnarInventory.isReady()) {
+            return columnarInventory.getProductsByProductId(productId);
+        }
+        return productRepository.findViewsByProductId(productId);
+    }
+
     @Transactional(readOnly = true)
-    public List<Product> getProductByProductId(String productId) {
-        return productRepository.findByProductId(productId);
+    public List<ProductView> getProductByProductId(String productId, long after, int limit) {
+        return productRepository.findViewsByProductIdAfter(productId, after, Limit.of(limit));
     }
 
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        // Создание не должно перезаписывать существующую запись через merge
+        product.setId(null);
+        product.setVersion(null);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangeEvent.of(ProductChange.created(ProductSnapshot.of(saved))));
+        return saved;
     }
 
     public Optional<Product> updateProduct(Long id, Product product) {
+        return updateProduct(id, product, null);
+    }
+
+    /**
+     * Если {@code expectedVersion} задана, UPDATE выполняется только при совпадении версии,
+     * иначе бросается {@link ObjectOptimisticLockingFailureException}. Строка сначала читается через
+     * {@code findById} (из кэша второго уровня, если она там есть), а несовпадение версии обнаруживает
+     * UPDATE с условием по версии при flush.
+     */
+    public Optional<Product> updateProduct(Long id, Product product, Long expectedVersion) {
         return productRepository.findById(id)
                 .map(existingProduct -> {
+                    // Снимок до save: merge переносит новые значения в управляемый existingProduct
+                    ProductSnapshot before = ProductSnapshot.of(existingProduct);
                     product.setId(id);
-                    product.setVersion(existingProduct.getVersion());
-                    return productRepository.save(product);
+                    product.setVersion(expectedVersion != null ? expectedVersion : existingProduct.getVersion());
+                    Product saved = productRepository.save(product);
+                    // flush увеличивает version, чтобы снимок и ответ содержали новую версию
+                    productRepository.flush();
+                    eventPublisher.publishEvent(ProductChangeEvent.of(
+                            ProductChange.updated(before, ProductSnapshot.of(saved))));
+                    return saved;
                 });
     }
 
+    /**
+     * Меняет количество одним условным UPDATE без чтения и без проверки версии, поэтому
+     * параллельные списания по одной строке не конфликтуют, а только ждут блокировку строки.
+     * UPDATE идёт через JDBC: массовый JPQL UPDATE сбросил бы весь регион кэша продуктов,
+     * а так из кэша вытесняется только эта строка (см. {@link ProductCacheInvalidator}).
+     * Строка перечитывается после UPDATE для ответа и события; состояние «до» выводится из неё.
+     */
+    public QuantityAdjustment adjustQuantity(Long id, int delta) {
+        if (quantityWriteBuffer.isEnabled()) {
+            return bufferQuantityAdjustment(id, delta);
+        }
+        if (productJdbcRepository.adjustQuantity(id, delta) == 0) {
+            return productJdbcRepository.findById(id)
+                    .map(QuantityAdjustment::insufficient)
+                    .orElseGet(QuantityAdjustment::notFound);
+        }
+        Product adjusted = productJdbcRepository.findById(id).orElseThrow();
+        ProductSnapshot after = ProductSnapshot.of(adjusted);
+        ProductSnapshot before = after.withQuantity(after.quantity() - delta, after.version() - 1);
+        eventPublisher.publishEvent(ProductChangeEvent.of(ProductChange.updated(before, after)));
+        return QuantityAdjustment.adjusted(adjusted);
+    }
+
+    /**
+     * Проверяет остаток с учётом незаписанных дельт и откладывает изменение в буфер.
+     * Проверка не атомарна с записью: конкурирующие списания отсеиваются условием UPDATE при сбросе.
+     */
+    private QuantityAdjustment bufferQuantityAdjustment(Long id, int delta) {
+        Optional<Product> current = getProduct(id);
+        if (current.isEmpty()) {
+            return QuantityAdjustment.notFound();
+        }
+        Product product = current.get();
+        if (product.getQuantity() + delta < 0) {
+            return QuantityAdjustment.insufficient(product);
+        }
+        quantityWriteBuffer.submit(id, delta);
+        Product projected = new Product(product.getProductId(), product.getStatus(),
+                product.getFulfillmentCenter(), product.getQuantity() + delta, product.getValue());
+        projected.setId(product.getId());
+        projected.setVersion(product.getVersion());
+        return QuantityAdjustment.accepted(projected);
+    }
+
     public boolean deleteProduct(Long id) {
-        if (productRepository.existsById(id)) {
-            productRepository.deleteById(id);
-            return true;
+        return deleteProduct(id, null);
+    }
+
+    /**
+     * Удаляет продукт одним оператором DELETE, который сам возвращает удалённую строку для события.
+     * Если задана {@code expectedVersion}, строка удаляется только при совпадении версии;
+     * при несовпадении бросается {@link ObjectOptimisticLockingFailureException}.
+     */
+    public boolean deleteProduct(Long id, Long expectedVersion) {
+        List<Product> deleted = productJdbcRepository.deleteById(id, expectedVersion);
+        if (deleted.isEmpty()) {
+            // Второй запрос только на редком пути, чтобы отличить конфликт версий от отсутствия строки
+            if (expectedVersion != null && productJdbcRepository.findById(id).isPresent()) {
+                throw new ObjectOptimisticLockingFailureException(Product.class, id);
+            }
+            return false;
         }
-        return false;
+        eventPublisher.publishEvent(ProductChangeEvent.of(
+                ProductChange.deleted(ProductSnapshot.of(deleted.getFirst()))));
+        return true;
     }
 
-    @Transactional(readOnly = true)
-    public List<Product> getProductsByStatus(ProductStatus status) {
-        return productRepository.findByStatus(status);
+    /**
+     * Незаписанное изменение количества в режиме отложенной записи; 0, если режим выключен.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long getPendingQuantityDelta(Long id) {
+        return quantityWriteBuffer.isEnabled() ? quantityWriteBuffer.pendingDelta(id) : 0;
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ProductView> getProductsByStatus(ProductStatus status) {
+        if (columnarInventory.isReady()) {
+            return columnarInventory.getProductsByStatus(status);
+        }
+        return productRepository.findViewsByStatus(status);
     }
 
     @Transactional(readOnly = true)
+    public List<ProductView> getProductsByStatus(ProductStatus status, long after, int limit) {
+        return productRepository.findViewsByStatusAfter(status, after, Limit.of(limit));
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Double getTotalSellableValue() {
+        if (columnarInventory.isReady()) {
+            return columnarInventory.getTotalValueByStatus(ProductStatus.SELLABLE);
+        }
+        if (inventoryAggregateService.isEnabled()) {
+            return inventoryAggregateService.getTotalValueByStatus(ProductStatus.SELLABLE.name());
+        }
         return productRepository.getTotalSellableValue(ProductStatus.SELLABLE);
     }
 
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Double getTotalValueByFulfillmentCenter(String center) {
+        if (columnarInventory.isReady()) {
+            return columnarInventory.getTotalValueByCenter(center);
+        }
+        if (inventoryAggregateService.isEnabled()) {
+            return inventoryAggregateService.getTotalValueByCenter(center);
+        }
         return productRepository.getTotalValueByFulfillmentCenter(center);
     }
-}
\ No newline at end of file
+
+    /**
+     * Количество, число партий и стоимость для каждой пары (центр, статус) одним запросом GROUP BY.
+     */
+    @Transactional(readOnly = true)
+    public List<InventorySummaryRow> getInventorySummary(String productId) {
+        return productId == null
+                ? productRepository.summarizeByCenterAndStatus()
+                : productRepository.summarizeByCenterAndStatus(productId);
+    }
+}
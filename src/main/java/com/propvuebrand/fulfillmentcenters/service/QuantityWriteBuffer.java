@@ -0,0 +1,346 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.WriteBehindStats;
+import com.propvuebrand.fulfillmentcenters.event.ProductChange;
+import com.propvuebrand.fulfillmentcenters.event.ProductChangeEvent;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
+import com.propvuebrand.fulfillmentcenters.repository.ProductJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Отложенная запись изменений количества. Дельты по одному продукту складываются в памяти
+ * ({@link ConcurrentHashMap#merge} блокирует только свою корзину таблицы) и записываются
+ * одним JDBC batch раз в {@code fulfillment.write-behind.flush-interval-ms} или как только
+ * накопится {@code fulfillment.write-behind.max-pending} изменений. Сброс всегда идёт в своём потоке
+ * и своей транзакции: вызывающий только ставит дельту в буфер и не ждёт ни сброса, ни его соединения.
+ * <p>
+ * Незаписанные дельты теряются при аварийной остановке процесса, поэтому режим включается явно.
+ * Дельта, которая при сбросе увела бы остаток в минус, отбрасывается целиком и учитывается в
+ * {@code rejectedDeltas}.
+ */
+@Service
+public class QuantityWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(QuantityWriteBuffer.class);
+
+    private final ProductJdbcRepository productJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final long maxPending;
+
+    /**
+     * Незаписанные дельты по продуктам. Переход дельты из буфера в сбрасываемые и обратно меняет одну запись
+     * атомарно, так что {@link #pendingDelta} никогда не видит дельту дважды или ни разу.
+     */
+    private final ConcurrentHashMap<Long, Delta> pending = new ConcurrentHashMap<>();
+    private final AtomicLong pendingDeltas = new AtomicLong();
+    private final AtomicLong oldestPendingNanos = new AtomicLong();
+    /**
+     * Нечётное значение — сброс фиксируется, и строка в базе может уже содержать сбрасываемые дельты,
+     * а может ещё нет. {@link #readThrough} принимает прочитанную строку, только если за время чтения
+     * значение было чётным и не изменилось. Возврат к чётному значению сигналится через {@link #epochEven}.
+     */
+    private final AtomicLong commitEpoch = new AtomicLong();
+    private final ReentrantLock epochLock = new ReentrantLock();
+    private final Condition epochEven = epochLock.newCondition();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "write-behind-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedDeltas = new AtomicLong();
+    private final AtomicLong rejectedDeltas = new AtomicLong();
+    private volatile long lastFlushLagMillis;
+
+    @Autowired
+    public QuantityWriteBuffer(ProductJdbcRepository productJdbcRepository,
+                               PlatformTransactionManager transactionManager,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${fulfillment.write-behind.enabled:false}") boolean enabled,
+                               @Value("${fulfillment.write-behind.max-pending:1000}") long maxPending) {
+        this.productJdbcRepository = productJdbcRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.maxPending = maxPending;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Принимает дельту к записи. Если накопилось {@code max-pending} изменений, ставит внеочередной сброс
+     * в поток сброса; вызывающий поток его не ждёт.
+     */
+    public void submit(Long id, int delta) {
+        oldestPendingNanos.compareAndSet(0, System.nanoTime());
+        pending.merge(id, new Delta(delta, 0), Delta::plus);
+        if (pendingDeltas.incrementAndGet() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushRequested.set(false);
+                try {
+                    flush();
+                } catch (RuntimeException e) {
+                    log.warn("Write-behind flush failed, deltas stay buffered until the next flush", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Количество, которое ещё не записано в базу для продукта {@code id}.
+     */
+    public long pendingDelta(Long id) {
+        Delta delta = pending.get(id);
+        return delta == null ? 0 : delta.buffered() + delta.inFlight();
+    }
+
+    /**
+     * Читает продукт через {@code loader} и возвращает копию с учётом незаписанных дельт.
+     * Управляемая сущность не меняется, чтобы наложение не попало в базу при flush. {@code loader} должен
+     * каждый раз читать базу (не контекст персистентности и не кэш): чтение, попавшее на фиксацию сброса,
+     * повторяется. Пока сброс фиксируется, читатель спит на {@link #epochEven}; сброс к этому моменту уже
+     * держит своё соединение, поэтому ожидание не может стоять за соединением читателя.
+     */
+    public Optional<Product> readThrough(Long id, Supplier<Optional<Product>> loader) {
+        while (true) {
+            long epoch = awaitEvenEpoch();
+            long delta = pendingDelta(id);
+            Optional<Product> loaded = loader.get();
+            if (commitEpoch.get() != epoch) {
+                continue;
+            }
+            return loaded.map(product -> {
+                if (delta == 0) {
+                    return product;
+                }
+                Product copy = new Product(product.getProductId(), product.getStatus(),
+                        product.getFulfillmentCenter(), (int) (product.getQuantity() + delta), product.getValue());
+                copy.setId(product.getId());
+                copy.setVersion(product.getVersion());
+                return copy;
+            });
+        }
+    }
+
+    private long awaitEvenEpoch() {
+        long epoch = commitEpoch.get();
+        if ((epoch & 1) == 0) {
+            return epoch;
+        }
+        epochLock.lock();
+        try {
+            while (((epoch = commitEpoch.get()) & 1) != 0) {
+                epochEven.awaitUninterruptibly();
+            }
+            return epoch;
+        } finally {
+            epochLock.unlock();
+        }
+    }
+
+    /**
+     * Закрывает нечётный интервал и будит читателей, ждущих в {@link #awaitEvenEpoch}.
+     */
+    private void endCommitEpoch() {
+        epochLock.lock();
+        try {
+            commitEpoch.incrementAndGet();
+            epochEven.signalAll();
+        } finally {
+            epochLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fulfillment.write-behind.flush-interval-ms:50}")
+    public void scheduledFlush() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushExecutor.shutdownNow();
+        if (enabled) {
+            flush();
+        }
+    }
+
+    /**
+     * Записывает все накопленные дельты одним batch UPDATE в одной транзакции
+     * и публикует событие с изменёнными продуктами.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushLocked();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public WriteBehindStats getStats() {
+        long oldest = oldestPendingNanos.get();
+        return new WriteBehindStats(enabled, pendingDeltas.get(), pending.size(),
+                oldest == 0 ? 0 : (System.nanoTime() - oldest) / 1_000_000,
+                lastFlushLagMillis, flushes.get(), flushedDeltas.get(), rejectedDeltas.get());
+    }
+
+    private void flushLocked() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long oldest = oldestPendingNanos.getAndSet(0);
+        long drainedDeltas = pendingDeltas.getAndSet(0);
+        List<Long> ids = new ArrayList<>(pending.size());
+        List<Long> deltas = new ArrayList<>(pending.size());
+        for (Long id : pending.keySet()) {
+            long[] drained = new long[1];
+            pending.computeIfPresent(id, (key, delta) -> {
+                drained[0] = delta.buffered();
+                if (delta.buffered() == 0) {
+                    return delta.inFlight() == 0 ? null : delta;
+                }
+                return new Delta(0, delta.inFlight() + delta.buffered());
+            });
+            if (drained[0] != 0) {
+                ids.add(id);
+                deltas.add(drained[0]);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                write(ids, deltas);
+                commitEpoch.incrementAndGet();
+                TransactionSynchronizationManager.registerSynchronization(new CommitEpochSynchronization(ids));
+            });
+        } catch (RuntimeException e) {
+            // Транзакция откатилась: возвращаем дельты в буфер до следующего сброса
+            restore(ids);
+            pendingDeltas.addAndGet(drainedDeltas);
+            oldestPendingNanos.compareAndSet(0, oldest);
+            throw e;
+        }
+
+        flushes.incrementAndGet();
+        flushedDeltas.addAndGet(drainedDeltas);
+        lastFlushLagMillis = oldest == 0 ? 0 : (System.nanoTime() - oldest) / 1_000_000;
+    }
+
+    private void write(List<Long> ids, List<Long> deltas) {
+        int[] counts = productJdbcRepository.adjustQuantities(ids, deltas);
+        List<Long> appliedIds = new ArrayList<>(ids.size());
+        Map<Long, Long> applied = new HashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                rejectedDeltas.incrementAndGet();
+                log.warn("Dropped pending quantity delta {} for product {}: row is missing or stock would go negative",
+                        deltas.get(i), ids.get(i));
+            } else {
+                appliedIds.add(ids.get(i));
+                applied.put(ids.get(i), deltas.get(i));
+            }
+        }
+        if (appliedIds.isEmpty()) {
+            return;
+        }
+        List<ProductChange> changes = new ArrayList<>(appliedIds.size());
+        for (Product product : productJdbcRepository.findAllByIds(appliedIds)) {
+            ProductSnapshot after = ProductSnapshot.of(product);
+            long delta = applied.get(product.getId());
+            changes.add(ProductChange.updated(
+                    after.withQuantity((int) (after.quantity() - delta), after.version() - 1), after));
+        }
+        eventPublisher.publishEvent(new ProductChangeEvent(changes));
+    }
+
+    private void restore(List<Long> ids) {
+        ids.forEach(id -> pending.computeIfPresent(id, (key, delta) ->
+                new Delta(delta.buffered() + delta.inFlight(), 0)));
+    }
+
+    /**
+     * Закрывает нечётный интервал {@link #commitEpoch} сразу после COMMIT, раньше остальных обработчиков
+     * фиксации: читатели не должны ждать, пока те отработают.
+     */
+    private final class CommitEpochSynchronization implements TransactionSynchronization {
+        private final List<Long> ids;
+        private boolean done;
+
+        CommitEpochSynchronization(List<Long> ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void afterCommit() {
+            ids.forEach(id -> pending.computeIfPresent(id, (key, delta) ->
+                    delta.buffered() == 0 ? null : new Delta(delta.buffered(), 0)));
+            done = true;
+            endCommitEpoch();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (!done) {
+                restore(ids);
+                done = true;
+                endCommitEpoch();
+            }
+        }
+    }
+
+    /**
+     * Дельты продукта: ещё в буфере и уже забранные текущим сбросом, но не зафиксированные.
+     */
+    private record Delta(long buffered, long inFlight) {
+        Delta plus(Delta other) {
+            return new Delta(buffered + other.buffered, inFlight + other.inFlight);
+        }
+    }
+}
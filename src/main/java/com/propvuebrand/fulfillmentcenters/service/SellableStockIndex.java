@@ -0,0 +1,213 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.event.ChangeType;
+import com.propvuebrand.fulfillmentcenters.event.ProductChange;
+import com.propvuebrand.fulfillmentcenters.event.ProductChangeEvent;
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.ProductJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Остаток SELLABLE по парам (productId, центр выполнения) в памяти для подбора центров под заказ.
+ * Хранятся партии SELLABLE с положительным остатком и суммы по парам; суммы меняются на разницу
+ * при каждом изменении партии. Версии помнятся для всех существующих строк, в том числе не SELLABLE, а версии
+ * удалённых — {@value #TOMBSTONE_TTL_MINUTES} минут ({@link DeletedVersions}), чтобы запоздавшее старое изменение
+ * не вернуло в индекс уже проданную или удалённую партию.
+ * <p>
+ * Индекс загружается после старта и обновляется после фиксации каждой записи, так же как
+ * {@link ColumnarInventory}: изменения, пришедшие во время загрузки, применяются повторно с проверкой версии.
+ * Пока загрузка не завершена, {@link #isReady()} возвращает false.
+ */
+@Service
+public class SellableStockIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SellableStockIndex.class);
+
+    private static final long TOMBSTONE_TTL_MINUTES = 10;
+
+    private final ProductJdbcRepository productJdbcRepository;
+    private final TransactionTemplate readTransaction;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Lot> lots = new HashMap<>();
+    /** Последняя применённая версия каждой существующей строки. */
+    private final Map<Long, Long> versions = new HashMap<>();
+    private final DeletedVersions deletedVersions = new DeletedVersions(Duration.ofMinutes(TOMBSTONE_TTL_MINUTES));
+    private final Map<String, Map<String, long[]>> stock = new HashMap<>();
+
+    /** Изменения, пришедшие во время загрузки; применяются повторно после неё. */
+    private List<ProductChange> changesDuringLoad;
+    private volatile boolean ready;
+
+    @Autowired
+    public SellableStockIndex(ProductJdbcRepository productJdbcRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${fulfillment.allocation.index-enabled:true}") boolean enabled) {
+        this.productJdbcRepository = productJdbcRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    public void reload() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            changesDuringLoad = new ArrayList<>();
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            readTransaction.executeWithoutResult(status ->
+                    productJdbcRepository.streamProducts(null, null, null, product -> {
+                        lock.writeLock().lock();
+                        try {
+                            upsert(ProductSnapshot.of(product));
+                        } finally {
+                            lock.writeLock().unlock();
+                        }
+                    }));
+        } catch (RuntimeException e) {
+            // Индекс остаётся неготовым, подбор идёт по базе; изменения больше не копятся
+            lock.writeLock().lock();
+            try {
+                changesDuringLoad = null;
+                clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            changesDuringLoad.forEach(this::apply);
+            changesDuringLoad = null;
+            ready = true;
+            log.info("Sellable stock index loaded {} lots in {} ms", lots.size(), (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (changesDuringLoad != null) {
+                changesDuringLoad.addAll(event.changes());
+            }
+            event.changes().forEach(this::apply);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Копия остатков по центрам для каждого из {@code productIds}; продукты без остатка не попадают в результат.
+     */
+    public Map<String, Map<String, Long>> availability(Collection<String> productIds) {
+        lock.readLock().lock();
+        try {
+            Map<String, Map<String, Long>> result = new HashMap<>();
+            for (String productId : productIds) {
+                Map<String, long[]> byCenter = stock.get(productId);
+                if (byCenter != null) {
+                    Map<String, Long> copy = new HashMap<>(byCenter.size() * 2);
+                    byCenter.forEach((center, quantity) -> copy.put(center, quantity[0]));
+                    result.put(productId, copy);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(ProductChange change) {
+        if (change.type() == ChangeType.DELETED) {
+            deletedVersions.put(change.id(), change.before().version());
+            versions.remove(change.id());
+            remove(change.id());
+        } else {
+            upsert(change.after());
+        }
+    }
+
+    private void upsert(ProductSnapshot snapshot) {
+        Long known = versions.get(snapshot.id());
+        if (known != null && known > snapshot.version() || deletedVersions.isDeleted(snapshot.id(), snapshot.version())) {
+            return;
+        }
+        versions.put(snapshot.id(), snapshot.version());
+        remove(snapshot.id());
+        if (snapshot.status() == ProductStatus.SELLABLE && snapshot.quantity() > 0) {
+            Lot lot = new Lot(snapshot.productId(), snapshot.fulfillmentCenter(), snapshot.quantity());
+            lots.put(snapshot.id(), lot);
+            stock.computeIfAbsent(lot.productId, key -> new HashMap<>())
+                    .computeIfAbsent(lot.center, key -> new long[1])[0] += lot.quantity;
+        }
+    }
+
+    private void remove(Long id) {
+        Lot lot = lots.remove(id);
+        if (lot == null) {
+            return;
+        }
+        Map<String, long[]> byCenter = stock.get(lot.productId);
+        long[] quantity = byCenter.get(lot.center);
+        quantity[0] -= lot.quantity;
+        if (quantity[0] <= 0) {
+            byCenter.remove(lot.center);
+            if (byCenter.isEmpty()) {
+                stock.remove(lot.productId);
+            }
+        }
+    }
+
+    private void clear() {
+        lots.clear();
+        versions.clear();
+        deletedVersions.clear();
+        stock.clear();
+    }
+
+    private record Lot(String productId, String center, int quantity) {
+    }
+}
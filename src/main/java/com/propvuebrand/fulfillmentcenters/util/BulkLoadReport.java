@@ -0,0 +1,19 @@
+package com.propvuebrand.fulfillmentcenters.util;
+
+import java.util.List;
+
+/**
+ * Итог потоковой загрузки CSV: сколько строк записано, сколько отклонено и с какой скоростью.
+ */
+public record BulkLoadReport(long loadedRows,
+                             long rejectedRows,
+                             List<RejectedLine> rejectedLines,
+                             long elapsedMillis) {
+
+    public double rowsPerSecond() {
+        return elapsedMillis == 0 ? loadedRows * 1000.0 : loadedRows * 1000.0 / elapsedMillis;
+    }
+
+    public record RejectedLine(long lineNumber, String reason) {
+    }
+}
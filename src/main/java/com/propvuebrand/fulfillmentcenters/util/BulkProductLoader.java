@@ -0,0 +1,103 @@
+package com.propvuebrand.fulfillmentcenters.util;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import com.propvuebrand.fulfillmentcenters.event.ProductChange;
+import com.propvuebrand.fulfillmentcenters.event.ProductChangeEvent;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
+import com.propvuebrand.fulfillmentcenters.repository.ProductJdbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковая загрузка CSV большими пачками: файл читается построчно, строки копятся
+ * в пачку по {@code fulfillment.loader.chunk-size} и каждая пачка вставляется
+ * одним COPY/JDBC batch в отдельной транзакции. Некорректные строки не прерывают загрузку,
+ * а попадают в отчёт.
+ */
+@Component
+public class BulkProductLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkProductLoader.class);
+
+    private static final int MAX_REPORTED_REJECTS = 1000;
+
+    private final ProductJdbcRepository productJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    @Autowired
+    public BulkProductLoader(ProductJdbcRepository productJdbcRepository,
+                             PlatformTransactionManager transactionManager,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${fulfillment.loader.chunk-size:10000}") int chunkSize) {
+        this.productJdbcRepository = productJdbcRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    public BulkLoadReport load(Reader source) throws IOException, CsvValidationException {
+        long started = System.nanoTime();
+        long loaded = 0;
+        long rejected = 0;
+        List<BulkLoadReport.RejectedLine> rejectedLines = new ArrayList<>();
+        List<Product> chunk = new ArrayList<>(chunkSize);
+
+        try (CSVReader reader = new CSVReader(source)) {
+            // Пропускаем заголовок
+            reader.readNext();
+
+            String[] line;
+            while ((line = reader.readNext()) != null) {
+                try {
+                    chunk.add(ProductCsvParser.parse(line));
+                } catch (IllegalArgumentException e) {
+                    rejected++;
+                    if (rejectedLines.size() < MAX_REPORTED_REJECTS) {
+                        rejectedLines.add(new BulkLoadReport.RejectedLine(reader.getLinesRead(), e.getMessage()));
+                    }
+                }
+                if (chunk.size() >= chunkSize) {
+                    loaded += writeChunk(chunk);
+                    chunk.clear();
+                }
+            }
+            loaded += writeChunk(chunk);
+        }
+
+        BulkLoadReport report = new BulkLoadReport(loaded, rejected, List.copyOf(rejectedLines),
+                (System.nanoTime() - started) / 1_000_000);
+        log.info("Bulk load finished: {} rows loaded, {} rejected, {} ms ({} rows/s)",
+                report.loadedRows(), report.rejectedRows(), report.elapsedMillis(),
+                Math.round(report.rowsPerSecond()));
+        return report;
+    }
+
+    public long writeChunk(List<Product> chunk) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        Long written = transactionTemplate.execute(status -> {
+            long inserted = productJdbcRepository.insertAll(chunk);
+            List<ProductChange> changes = new ArrayList<>(chunk.size());
+            chunk.forEach(product -> changes.add(ProductChange.created(ProductSnapshot.of(product))));
+            eventPublisher.publishEvent(new ProductChangeEvent(changes));
+            return inserted;
+        });
+        return written == null ? 0 : written;
+    }
+}
@@ -3,30 +3,110 @@ package com.propvuebrand.fulfillmentcenters.util;
 import com.opencsv.CSVReader;
 import com.opencsv.exceptions.CsvException;
 import com.propvuebrand.fulfillmentcenters.model.Product;
-import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.ProductJdbcRepository;
 import com.propvuebrand.fulfillmentcenters.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.Objects;
+import java.nio.charset.StandardCharsets;
 
 @Component
 public class DataLoader implements CommandLineRunner {
 
+    private static final Logger log = LoggerFactory.getLogger(DataLoader.class);
+
+    /**
+     * ROW — построчно через {@link ProductService}, BULK — потоково через {@link BulkProductLoader},
+     * NONE — не загружать.
+     */
+    public enum Mode {
+        ROW, BULK, NONE
+    }
+
     private final ProductService productService;
+    private final BulkProductLoader bulkProductLoader;
+    private final ProductJdbcRepository productJdbcRepository;
+    private final Resource location;
+    private final Mode mode;
+    private final boolean async;
+    private final boolean skipIfPresent;
 
     @Autowired
-    public DataLoader(ProductService productService) {
+    public DataLoader(ProductService productService,
+                      BulkProductLoader bulkProductLoader,
+                      ProductJdbcRepository productJdbcRepository,
+                      @Value("${fulfillment.loader.location:classpath:data.csv}") Resource location,
+                      @Value("${fulfillment.loader.mode:ROW}") Mode mode,
+                      @Value("${fulfillment.loader.async:false}") boolean async,
+                      @Value("${fulfillment.loader.skip-if-present:false}") boolean skipIfPresent) {
         this.productService = productService;
+        this.bulkProductLoader = bulkProductLoader;
+        this.productJdbcRepository = productJdbcRepository;
+        this.location = location;
+        this.mode = mode;
+        this.async = async;
+        this.skipIfPresent = skipIfPresent;
     }
 
+    /**
+     * При {@code fulfillment.loader.async=true} загрузка идёт в отдельном потоке и не задерживает
+     * готовность приложения: запросы, пришедшие раньше, видят уже загруженную часть.
+     */
     @Override
     public void run(String... args) {
-        try (CSVReader reader = new CSVReader(new InputStreamReader(
-                Objects.requireNonNull(getClass().getResourceAsStream("/data.csv"))))) {
+        if (mode == Mode.NONE) {
+            log.info("Data loading is disabled");
+        } else if (async) {
+            Thread.ofPlatform().name("data-loader").start(() -> {
+                try {
+                    load();
+                } catch (RuntimeException e) {
+                    log.error("Failed to load {}", location, e);
+                }
+            });
+        } else {
+            load();
+        }
+    }
+
+    private void load() {
+        if (skipIfPresent) {
+            long existing = productJdbcRepository.countMatching(null, null, null);
+            if (existing > 0) {
+                log.info("Products table already has {} rows, skipping {}", existing, location);
+                return;
+            }
+        }
+        long started = System.nanoTime();
+        switch (mode) {
+            case ROW -> loadRowByRow();
+            case BULK -> loadBulk();
+            case NONE -> {
+                return;
+            }
+        }
+        log.info("Loaded {} in {} ms", location, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void loadBulk() {
+        try (InputStreamReader source = new InputStreamReader(location.getInputStream(), StandardCharsets.UTF_8)) {
+            BulkLoadReport report = bulkProductLoader.load(source);
+            report.rejectedLines().forEach(rejected ->
+                    log.warn("Rejected line {}: {}", rejected.lineNumber(), rejected.reason()));
+        } catch (IOException | CsvException e) {
+            log.error("Failed to load {}", location, e);
+        }
+    }
+
+    private void loadRowByRow() {
+        try (CSVReader reader = new CSVReader(new InputStreamReader(location.getInputStream(), StandardCharsets.UTF_8))) {
 
             // Пропускаем заголовок
             reader.readNext();
@@ -34,18 +114,13 @@ public class DataLoader implements CommandLineRunner {
             // Читаем данные
             String[] line;
             while ((line = reader.readNext()) != null) {
-                Product product = new Product();
-                product.setProductId(line[0]);
-                product.setStatus(ProductStatus.valueOf(line[1].toUpperCase()));
-                product.setFulfillmentCenter(line[2]);
-                product.setQuantity(Integer.parseInt(line[3]));
-                product.setValue(Double.parseDouble(line[4]));
+                Product product = ProductCsvParser.parse(line);
 
                 productService.createProduct(product);
             }
 
         } catch (IOException | CsvException e) {
-            e.printStackTrace();
+            log.error("Failed to load {}", location, e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,212 @@
+package com.propvuebrand.fulfillmentcenters.util;
+
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Двоичный снимок строк products в файле. Формат (big-endian):
+ * <pre>
+ * заголовок  magic, версия формата, водяной знак, время события на знаке, id строки на знаке,
+ *            число строк, смещение словарей
+ * строки     по {@value #RECORD_SIZE} байт: id, код productId, код центра, код статуса, quantity, value, version
+ * словари    productId, центры, имена статусов: число значений, затем длина и UTF-8 каждого
+ * CRC32      всех предыдущих байт
+ * </pre>
+ * Водяной знак — номер в ленте изменений, до которого включительно все изменения есть в снимке;
+ * событие на знаке позволяет убедиться, что лента та же, что и при записи снимка.
+ */
+public final class InventorySnapshotFile {
+
+    public static final int RECORD_SIZE = 8 + 4 + 4 + 1 + 4 + 8 + 8;
+
+    private static final int MAGIC = 0x46435356;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8 + 4 + 8;
+
+    private InventorySnapshotFile() {
+    }
+
+    public record Header(long watermark, long watermarkChangedAt, long watermarkRowId, int rows) {
+    }
+
+    /**
+     * Кодирует строки в память; сам файл пишется позже {@link #writeTo}, вне блокировок источника.
+     */
+    public static final class Encoder {
+        private final ByteArrayOutputStream records = new ByteArrayOutputStream(1 << 16);
+        private final DataOutputStream out = new DataOutputStream(records);
+        private final Dictionary productIds = new Dictionary();
+        private final Dictionary centers = new Dictionary();
+        private int rows;
+
+        public void add(ProductSnapshot snapshot) {
+            try {
+                out.writeLong(snapshot.id());
+                out.writeInt(productIds.encode(snapshot.productId()));
+                out.writeInt(centers.encode(snapshot.fulfillmentCenter()));
+                out.writeByte(snapshot.status().ordinal());
+                out.writeInt(snapshot.quantity());
+                out.writeDouble(snapshot.value());
+                out.writeLong(snapshot.version());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+
+        public int rows() {
+            return rows;
+        }
+
+        /**
+         * Пишет файл рядом с целевым и переименовывает его, так что читатель видит либо старый снимок, либо новый.
+         */
+        public void writeTo(Path file, long watermark, long watermarkChangedAt, long watermarkRowId) throws IOException {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try {
+                CRC32 crc = new CRC32();
+                try (OutputStream stream = Files.newOutputStream(temp, StandardOpenOption.WRITE);
+                     DataOutputStream data = new DataOutputStream(
+                             new CheckedOutputStream(new BufferedOutputStream(stream, 1 << 16), crc))) {
+                    data.writeInt(MAGIC);
+                    data.writeInt(FORMAT_VERSION);
+                    data.writeLong(watermark);
+                    data.writeLong(watermarkChangedAt);
+                    data.writeLong(watermarkRowId);
+                    data.writeInt(rows);
+                    data.writeLong(HEADER_SIZE + (long) rows * RECORD_SIZE);
+                    records.writeTo(data);
+                    productIds.writeTo(data);
+                    centers.writeTo(data);
+                    data.writeInt(ProductStatus.values().length);
+                    for (ProductStatus status : ProductStatus.values()) {
+                        writeString(data, status.name());
+                    }
+                    data.flush();
+                    // Контрольная сумма не входит сама в себя
+                    new DataOutputStream(stream).writeLong(crc.getValue());
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    public static Header readHeader(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return header(channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), HEADER_SIZE)), file);
+        }
+    }
+
+    /**
+     * Отображает файл в память, проверяет контрольную сумму и передаёт строки в {@code rows}.
+     */
+    public static Header read(Path file, Consumer<ProductSnapshot> rows) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + 8) {
+                throw new IOException("Snapshot " + file + " is truncated");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " is larger than 2 GB");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) (size - 8)));
+            if (crc.getValue() != buffer.getLong((int) (size - 8))) {
+                throw new IOException("Snapshot " + file + " is corrupted: checksum mismatch");
+            }
+            Header header = header(buffer, file);
+            buffer.position((int) buffer.getLong(HEADER_SIZE - 8));
+            String[] productIds = readStrings(buffer);
+            String[] centers = readStrings(buffer);
+            String[] statusNames = readStrings(buffer);
+            ProductStatus[] statuses = new ProductStatus[statusNames.length];
+            for (int i = 0; i < statusNames.length; i++) {
+                statuses[i] = ProductStatus.valueOf(statusNames[i]);
+            }
+            int position = HEADER_SIZE;
+            for (int row = 0; row < header.rows(); row++, position += RECORD_SIZE) {
+                rows.accept(new ProductSnapshot(
+                        buffer.getLong(position),
+                        productIds[buffer.getInt(position + 8)],
+                        statuses[buffer.get(position + 16)],
+                        centers[buffer.getInt(position + 12)],
+                        buffer.getInt(position + 17),
+                        buffer.getDouble(position + 21),
+                        buffer.getLong(position + 29)));
+            }
+            return header;
+        }
+    }
+
+    private static Header header(ByteBuffer buffer, Path file) throws IOException {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not an inventory snapshot");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot format " + buffer.getInt(4) + " in " + file);
+        }
+        return new Header(buffer.getLong(8), buffer.getLong(16), buffer.getLong(24), buffer.getInt(32));
+    }
+
+    private static String[] readStrings(ByteBuffer buffer) {
+        String[] values = new String[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> entries = new ArrayList<>();
+
+        int encode(String value) {
+            return codes.computeIfAbsent(value, key -> {
+                entries.add(key);
+                return entries.size() - 1;
+            });
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(entries.size());
+            for (String entry : entries) {
+                writeString(out, entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.propvuebrand.fulfillmentcenters.util;
+
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+
+/**
+ * Разбор строки CSV в формате data.csv: {@code Product,Status,Fulfilment center,Qty,Value}.
+ */
+public final class ProductCsvParser {
+
+    public static final String[] HEADER = {"Product", "Status", "Fulfilment center", "Qty", "Value"};
+
+    private ProductCsvParser() {
+    }
+
+    /**
+     * @throws IllegalArgumentException если строка не может быть преобразована в корректный продукт
+     */
+    public static Product parse(String[] line) {
+        if (line.length < HEADER.length) {
+            throw new IllegalArgumentException("expected " + HEADER.length + " columns but got " + line.length);
+        }
+        String productId = line[0].trim();
+        String center = line[2].trim();
+        if (productId.isEmpty()) {
+            throw new IllegalArgumentException("empty product id");
+        }
+        if (center.isEmpty()) {
+            throw new IllegalArgumentException("empty fulfillment center");
+        }
+
+        ProductStatus status;
+        try {
+            status = ProductStatus.valueOf(line[1].trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown status '" + line[1] + "'");
+        }
+
+        int quantity = parseInt(line[3], "quantity");
+        double value = parseDouble(line[4], "value");
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive: " + quantity);
+        }
+        if (value <= 0) {
+            throw new IllegalArgumentException("value must be positive: " + value);
+        }
+
+        return new Product(productId, status, center, quantity, value);
+    }
+
+    private static int parseInt(String raw, String column) {
+        try {
+            return Integer.parseInt(raw.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + column + " '" + raw + "'");
+        }
+    }
+
+    private static double parseDouble(String raw, String column) {
+        try {
+            return Double.parseDouble(raw.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid " + column + " '" + raw + "'");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.propvuebrand.fulfillmentcenters.util;
+
+import com.opencsv.CSVWriterBuilder;
+import com.opencsv.ICSVWriter;
+import com.propvuebrand.fulfillmentcenters.dto.ProductView;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Запись продуктов в CSV в формате data.csv, который читает {@link ProductCsvParser}:
+ * {@code Product,Status,Fulfilment center,Qty,Value}. Строки пишутся сразу в {@link Writer},
+ * буферизация остаётся за вызывающим кодом.
+ */
+public final class ProductCsvWriter implements Flushable {
+
+    private static final String[] STATUS_LABELS = statusLabels();
+
+    private final ICSVWriter writer;
+    private final String[] line = new String[ProductCsvParser.HEADER.length];
+
+    public ProductCsvWriter(Writer out) {
+        this.writer = new CSVWriterBuilder(out).build();
+    }
+
+    public void writeHeader() {
+        writer.writeNext(ProductCsvParser.HEADER, false);
+    }
+
+    public void write(ProductView product) {
+        line[0] = product.productId();
+        line[1] = STATUS_LABELS[product.status().ordinal()];
+        line[2] = product.fulfillmentCenter();
+        line[3] = Integer.toString(product.quantity());
+        line[4] = formatValue(product.value());
+        writer.writeNext(line, false);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Целые стоимости пишутся без дробной части, как в исходном файле ({@code 400}, а не {@code 400.0}).
+     */
+    static String formatValue(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String[] statusLabels() {
+        ProductStatus[] statuses = ProductStatus.values();
+        String[] labels = new String[statuses.length];
+        for (ProductStatus status : statuses) {
+            String name = status.name();
+            labels[status.ordinal()] = name.charAt(0) + name.substring(1).toLowerCase();
+        }
+        return labels;
+    }
+}
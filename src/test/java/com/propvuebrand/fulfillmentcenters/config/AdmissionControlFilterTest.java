@@ -0,0 +1,107 @@
+package com.propvuebrand.fulfillmentcenters.config;
+
+import com.propvuebrand.fulfillmentcenters.config.AdmissionControlFilter.EndpointClass;
+import com.propvuebrand.fulfillmentcenters.dto.AdmissionStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlFilterTest {
+
+    @Test
+    void classify_ShouldSeparateCheapAndExpensiveEndpoints() {
+        assertThat(AdmissionControlFilter.classify("GET", "/api/products/42")).isEqualTo(EndpointClass.POINT);
+        assertThat(AdmissionControlFilter.classify("GET", "/api/products")).isEqualTo(EndpointClass.LIST);
+        assertThat(AdmissionControlFilter.classify("GET", "/api/products/status/SELLABLE")).isEqualTo(EndpointClass.LIST);
+        assertThat(AdmissionControlFilter.classify("GET", "/api/products/sellable/total-value"))
+                .isEqualTo(EndpointClass.AGGREGATE);
+        assertThat(AdmissionControlFilter.classify("GET", "/api/products/status/SELLABLE/stream"))
+                .isEqualTo(EndpointClass.STREAM);
+        assertThat(AdmissionControlFilter.classify("PUT", "/api/products/42")).isEqualTo(EndpointClass.WRITE);
+        assertThat(AdmissionControlFilter.classify("GET", "/api/products/changes")).isNull();
+        assertThat(AdmissionControlFilter.classify("GET", "/api/admin/admission")).isNull();
+    }
+
+    @Test
+    void filter_WhenClassIsSaturated_ShouldRejectWithRetryAfterButAdmitOtherClasses() throws Exception {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("fulfillment.admission.point.initial-limit", "1")
+                .withProperty("fulfillment.admission.point.min-limit", "1")
+                .withProperty("fulfillment.admission.point.max-limit", "1");
+        AdmissionControlFilter filter = new AdmissionControlFilter(environment, true, 0, 2, 100);
+        MockHttpServletResponse pointResponse = new MockHttpServletResponse();
+        MockHttpServletResponse listResponse = new MockHttpServletResponse();
+
+        // Второй и третий запросы приходят, пока первый ещё обрабатывается
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/products/1"), new MockHttpServletResponse(),
+                (request, response) -> {
+                    filter.doFilter(new MockHttpServletRequest("GET", "/api/products/2"), pointResponse,
+                            (innerRequest, innerResponse) -> { });
+                    filter.doFilter(new MockHttpServletRequest("GET", "/api/products/status/SELLABLE"), listResponse,
+                            (innerRequest, innerResponse) -> { });
+                });
+
+        assertThat(pointResponse.getStatus()).isEqualTo(429);
+        assertThat(pointResponse.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(listResponse.getStatus()).isEqualTo(200);
+        AdmissionStats.EndpointLimit point = filter.getStats().endpoints().getFirst();
+        assertThat(point.name()).isEqualTo("point");
+        assertThat(point.accepted()).isEqualTo(1);
+        assertThat(point.rejected()).isEqualTo(1);
+        assertThat(point.inFlight()).isZero();
+    }
+
+    @Test
+    void limit_ShouldGrowWhileLatencyIsStableAndShrinkWhenItRises() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("test", 20, 1, 100, 0);
+        for (int i = 0; i < 20; i++) {
+            assertThat(limit.tryAcquire(0)).isTrue();
+        }
+        for (int i = 0; i < 5; i++) {
+            window(limit, 1);
+        }
+        int grown = limit.currentLimit();
+        assertThat(grown).isGreaterThan(20);
+
+        for (int i = 0; i < 10; i++) {
+            window(limit, 20);
+        }
+
+        assertThat(limit.currentLimit()).isLessThanOrEqualTo(grown * 2 / 3);
+    }
+
+    @Test
+    void limit_ShouldBackOffOnServerErrorsOncePerWindow() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit("test", 10, 1, 100, 0);
+        for (int i = 0; i < 3; i++) {
+            assertThat(limit.tryAcquire(0)).isTrue();
+        }
+
+        for (int i = 0; i < 3; i++) {
+            limit.release(TimeUnit.MILLISECONDS.toNanos(1), true);
+        }
+        assertThat(limit.currentLimit()).isEqualTo(9);
+
+        // Окно закрывается после MIN_SAMPLES ответов, и следующая ошибка снова снижает лимит
+        assertThat(limit.tryAcquire(0)).isTrue();
+        for (int i = 3; i < AdaptiveConcurrencyLimit.MIN_SAMPLES; i++) {
+            limit.release(TimeUnit.MILLISECONDS.toNanos(1), false);
+            limit.tryAcquire(0);
+        }
+        limit.release(TimeUnit.MILLISECONDS.toNanos(1), true);
+
+        assertThat(limit.currentLimit()).isEqualTo(8);
+    }
+
+    private static void window(AdaptiveConcurrencyLimit limit, long rttMillis) throws InterruptedException {
+        for (int i = 0; i < AdaptiveConcurrencyLimit.MIN_SAMPLES; i++) {
+            limit.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), false);
+            limit.tryAcquire(0);
+        }
+    }
+}
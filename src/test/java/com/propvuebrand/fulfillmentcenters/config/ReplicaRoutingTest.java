@@ -0,0 +1,133 @@
+package com.propvuebrand.fulfillmentcenters.config;
+
+import com.propvuebrand.fulfillmentcenters.dto.DataSourceStats;
+import com.propvuebrand.fulfillmentcenters.dto.ProductView;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.service.DataSourceStatsService;
+import com.propvuebrand.fulfillmentcenters.service.ProductService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "fulfillment.replica.enabled=true",
+        "fulfillment.replica.datasource.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "fulfillment.replica.datasource.username=sa",
+        "fulfillment.replica.max-staleness-ms.export=5000",
+        "fulfillment.replica.max-staleness-ms.primary-only=0"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replicadb;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+            + "DEFAULT_NULL_ORDERING=HIGH;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ReplicaReadRouting readRouting;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DataSourceStatsService dataSourceStatsService;
+
+    @BeforeAll
+    static void createReplica() {
+        // Отдельная база вместо реплики: строка есть только в ней
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        replica.execute("CREATE TABLE IF NOT EXISTS products (id BIGINT PRIMARY KEY, product_id VARCHAR(255), "
+                + "status VARCHAR(255), fulfillment_center VARCHAR(255), quantity INTEGER, value DOUBLE PRECISION, "
+                + "version BIGINT)");
+        replica.update("MERGE INTO products KEY (id) VALUES (900001, 'replica-only', 'SELLABLE', 'fc-replica', 1, 1.0, 0)");
+    }
+
+    @Test
+    void readOnlyCalls_ShouldGoToReplicaOnlyWhenEndpointAllowsIt() throws SQLException {
+        assertThat(dataSource.unwrap(ReplicaRoutingDataSource.class)).isInstanceOf(ReplicaRoutingDataSource.class);
+        productService.createProduct(new Product("primary-only", ProductStatus.SELLABLE, "fc-replica", 1, 1.0));
+
+        List<String> fromExport = new ArrayList<>();
+        readRouting.run("export", () -> productService.streamProducts(null, "fc-replica", null,
+                view -> fromExport.add(view.productId())));
+        assertThat(fromExport).containsExactly("replica-only");
+
+        List<String> unrouted = new ArrayList<>();
+        productService.streamProducts(null, "fc-replica", null, view -> unrouted.add(view.productId()));
+        assertThat(unrouted).containsExactly("primary-only");
+
+        List<String> disabled = readRouting.call("primary-only", () -> {
+            List<String> ids = new ArrayList<>();
+            productService.streamProducts(null, "fc-replica", null, view -> ids.add(view.productId()));
+            return ids;
+        });
+        assertThat(disabled).containsExactly("primary-only");
+    }
+
+    @Test
+    void writes_ShouldStayOnPrimaryInsideRoutedCall() {
+        Product created = readRouting.call("export",
+                () -> productService.createProduct(new Product("routed-write", ProductStatus.INBOUND, "fc-write", 2, 3.0)));
+
+        assertThat(productService.getProduct(created.getId())).isPresent();
+        DataSourceStats stats = dataSourceStatsService.getStats();
+        assertThat(stats.replicaEnabled()).isTrue();
+        assertThat(stats.pools()).extracting(DataSourceStats.Pool::name).containsExactly("primary", "replica");
+    }
+
+    @Test
+    void streamedViews_ShouldMapReplicaRows() {
+        List<ProductView> views = new ArrayList<>();
+        readRouting.run("export", () -> productService.streamProducts(ProductStatus.SELLABLE, "fc-replica", null, views::add));
+
+        assertThat(views).extracting(ProductView::id).containsExactly(900001L);
+    }
+
+    @Test
+    void lagProbeFailure_ShouldReturnReplicaConnectionToPool() throws SQLException {
+        HikariDataSource primary = pool("jdbc:h2:mem:lagprimary;DB_CLOSE_DELAY=-1");
+        HikariDataSource replica = pool(REPLICA_URL);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, readRouting,
+                "SELECT no_such_column", 0, 0);
+        try {
+            for (int i = 0; i < 3; i++) {
+                readRouting.run("export", () -> {
+                    try (Connection connection = routing.getConnection()) {
+                        connection.setReadOnly(true);
+                        connection.createStatement().close();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }
+
+            assertThat(routing.getPrimaryFallbacks()).isEqualTo(3);
+            assertThat(replica.getHikariPoolMXBean().getActiveConnections()).isZero();
+        } finally {
+            routing.destroy();
+        }
+    }
+
+    private static HikariDataSource pool(String url) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(url);
+        pool.setUsername("sa");
+        return pool;
+    }
+}
@@ -0,0 +1,35 @@
+package com.propvuebrand.fulfillmentcenters.config;
+
+import com.propvuebrand.fulfillmentcenters.dto.SqlStatementStats;
+
+/**
+ * Бюджет SQL-команд для вызова в тесте: MockMvc выполняет запрос в потоке теста, поэтому в счёт попадает
+ * всё, что выполнили фильтры, контроллер и сервисы.
+ */
+public final class SqlStatementAssertions {
+
+    private SqlStatementAssertions() {
+    }
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    /**
+     * Выполняет {@code action} и падает, если он выполнил больше {@code maxStatements} команд.
+     */
+    public static SqlStatementStats assertMaxStatements(SqlStatementRecorder recorder, long maxStatements,
+                                                        Action action) throws Exception {
+        SqlStatementStats stats;
+        try (SqlStatementRecorder.Scope scope = recorder.open("test", true)) {
+            action.run();
+            stats = scope.stats();
+        }
+        if (stats.statements() > maxStatements) {
+            throw new AssertionError("Expected at most " + maxStatements + " SQL statements, but " + stats.statements()
+                    + " SQL statements were executed:\n  " + String.join("\n  ", stats.queries()));
+        }
+        return stats;
+    }
+}
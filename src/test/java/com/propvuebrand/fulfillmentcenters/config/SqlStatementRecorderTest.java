@@ -0,0 +1,79 @@
+package com.propvuebrand.fulfillmentcenters.config;
+
+import com.propvuebrand.fulfillmentcenters.dto.SqlStatementStats;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.propvuebrand.fulfillmentcenters.config.SqlStatementAssertions.assertMaxStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SqlStatementRecorderTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlStatementRecorder recorder;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void scope_ShouldCountStatementsAndFetchedRows() throws Exception {
+        productService.createProduct(new Product("sql-count", ProductStatus.SELLABLE, "fc-sql", 1, 1.0));
+        productService.createProduct(new Product("sql-count", ProductStatus.INBOUND, "fc-sql", 2, 2.0));
+
+        SqlStatementStats stats = assertMaxStatements(recorder, 1, () ->
+                assertThat(jdbcTemplate.queryForList("SELECT id FROM products WHERE product_id = ?", Long.class,
+                        "sql-count")).hasSize(2));
+
+        assertThat(stats.statements()).isEqualTo(1);
+        assertThat(stats.rows()).isEqualTo(2);
+    }
+
+    @Test
+    void getProduct_ShouldStayWithinStatementBudgetAndPublishMetrics() throws Exception {
+        Product product = productService.createProduct(
+                new Product("sql-budget", ProductStatus.SELLABLE, "fc-sql", 1, 1.0));
+
+        assertMaxStatements(recorder, 1, () ->
+                mockMvc.perform(get("/api/products/{id}", product.getId())).andExpect(status().isOk()));
+
+        assertThat(meterRegistry.find("fulfillment.sql.statements")
+                .tags("scope", "http", "name", "GET /api/products/{id}").summary()).isNotNull();
+        assertThat(meterRegistry.find("fulfillment.sql.statements")
+                .tags("scope", "service", "name", "ProductService.getProduct").summary()).isNotNull();
+    }
+
+    @Test
+    void assertMaxStatements_WhenBudgetIsExceeded_ShouldListStatements() {
+        assertThatThrownBy(() -> assertMaxStatements(recorder, 1, () -> {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Long.class);
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products", Long.class);
+        }))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("2 SQL statements")
+                .hasMessageContaining("SELECT COUNT(*) FROM products");
+    }
+}
@@ -1,27 +1,63 @@
 package com.propvuebrand.fulfillmentcenters.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.propvuebrand.fulfillmentcenters.config.BinaryContentConfig;
+import com.propvuebrand.fulfillmentcenters.config.ReplicaReadRouting;
+import com.propvuebrand.fulfillmentcenters.dto.BatchItemResult;
+import com.propvuebrand.fulfillmentcenters.dto.BatchItemStatus;
+import com.propvuebrand.fulfillmentcenters.dto.BulkDeleteResult;
+import com.propvuebrand.fulfillmentcenters.dto.InventorySummaryRow;
+import com.propvuebrand.fulfillmentcenters.dto.ProductView;
+import com.propvuebrand.fulfillmentcenters.dto.QuantityAdjustment;
 import com.propvuebrand.fulfillmentcenters.model.Product;
 import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.ProductChangeLogRepository;
+import com.propvuebrand.fulfillmentcenters.service.ChangeSequenceTracker;
+import com.propvuebrand.fulfillmentcenters.service.OptimisticRetry;
+import com.propvuebrand.fulfillmentcenters.service.ProductBatchService;
 import com.propvuebrand.fulfillmentcenters.service.ProductService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ProductController.class)
+@Import({OptimisticRetry.class, ChangeSequenceTracker.class, ReplicaReadRouting.class, BinaryContentConfig.class})
 class ProductControllerTest {
 
     @Autowired
@@ -30,11 +66,22 @@ class ProductControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ChangeSequenceTracker changeSequenceTracker;
+
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private ProductBatchService productBatchService;
+
+    @MockBean
+    private ProductChangeLogRepository changeLogRepository;
+
     private Product testProduct;
 
+    private ProductView testView;
+
     @BeforeEach
     void setUp() {
         testProduct = new Product();
@@ -44,11 +91,17 @@ class ProductControllerTest {
         testProduct.setFulfillmentCenter("fc1");
         testProduct.setQuantity(10);
         testProduct.setValue(100.0);
+        testView = ProductView.of(testProduct);
+
+        when(productBatchService.getMaxBatchSize()).thenReturn(100);
+        when(productBatchService.getMaxDeleteRows()).thenReturn(1000L);
+        when(changeLogRepository.head(any())).thenReturn(new ProductChangeLogRepository.Head(12, 0));
+        when(changeLogRepository.centerHead(any(), any())).thenReturn(new ProductChangeLogRepository.Head(7, 0));
     }
 
     @Test
     void getAllProducts_ShouldReturnList() throws Exception {
-        when(productService.getAllProducts()).thenReturn(List.of(testProduct));
+        when(productService.getAllProducts()).thenReturn(List.of(testView));
 
         mockMvc.perform(get("/api/products"))
                 .andExpect(status().isOk())
@@ -58,7 +111,104 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$[0].status").value("SELLABLE"))
                 .andExpect(jsonPath("$[0].fulfillmentCenter").value("fc1"))
                 .andExpect(jsonPath("$[0].quantity").value(10))
-                .andExpect(jsonPath("$[0].value").value(100.0));
+                .andExpect(jsonPath("$[0].value").value(100.0))
+                .andExpect(jsonPath("$[0].version").doesNotExist());
+    }
+
+    @Test
+    void getAllProducts_WithLimit_ShouldReturnPageWithNextCursor() throws Exception {
+        when(productService.getAllProducts(0L, 1)).thenReturn(List.of(testView));
+
+        mockMvc.perform(get("/api/products").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ProductController.NEXT_CURSOR_HEADER, "1"))
+                .andExpect(header().string("Link", containsString("after=1")))
+                .andExpect(jsonPath("$[0].id").value(1));
+    }
+
+    @Test
+    void getProductsByStatus_WhenLastPage_ShouldOmitNextCursor() throws Exception {
+        when(productService.getProductsByStatus(ProductStatus.SELLABLE, 1L, 10)).thenReturn(List.of(testView));
+
+        mockMvc.perform(get("/api/products/status/SELLABLE").param("after", "1").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(ProductController.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$[0].id").value(1));
+    }
+
+    @Test
+    void getAllProducts_WithNonPositiveLimit_ShouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/products").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamAllProducts_ShouldWriteOneJsonObjectPerLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ProductView> consumer = invocation.getArgument(2);
+            consumer.accept(testView);
+            consumer.accept(testView);
+            return null;
+        }).when(productService).streamProducts(isNull(), isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/products/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[1], Product.class).getProductId()).isEqualTo("p1");
+    }
+
+    @Test
+    void exportCsv_ShouldWriteDataCsvLayout() throws Exception {
+        testProduct.setValue(12.5);
+        doAnswer(invocation -> {
+            Consumer<ProductView> consumer = invocation.getArgument(3);
+            consumer.accept(testView);
+            consumer.accept(ProductView.of(testProduct));
+            return null;
+        }).when(productService).streamProducts(eq(ProductStatus.SELLABLE), eq("fc1"), isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/products/export.csv")
+                        .param("status", "sellable")
+                        .param("center", "fc1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(content().string("""
+                        Product,Status,Fulfilment center,Qty,Value
+                        p1,Sellable,fc1,10,100
+                        p1,Sellable,fc1,10,12.5
+                        """));
+    }
+
+    @Test
+    void exportCsv_WithGzip_ShouldCompressBody() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ProductView> consumer = invocation.getArgument(3);
+            consumer.accept(testView);
+            return null;
+        }).when(productService).streamProducts(isNull(), isNull(), isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/products/export.csv").param("gzip", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("products.csv.gz")));
+        byte[] body = result.getResponse().getContentAsByteArray();
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8))
+                    .isEqualTo("Product,Status,Fulfilment center,Qty,Value\np1,Sellable,fc1,10,100\n");
+        }
     }
 
     @Test
@@ -72,6 +222,50 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.productId").value("p1"));
     }
 
+    @Test
+    void getProduct_ShouldUseVersionAsETag() throws Exception {
+        testProduct.setVersion(3L);
+        when(productService.getProduct(1L)).thenReturn(Optional.of(testProduct));
+
+        mockMvc.perform(get("/api/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        mockMvc.perform(get("/api/products/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getProduct_WhenCborAccepted_ShouldUseSeparateETag() throws Exception {
+        testProduct.setVersion(3L);
+        when(productService.getProduct(1L)).thenReturn(Optional.of(testProduct));
+
+        mockMvc.perform(get("/api/products/1").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3+cbor\""));
+        // JSON-тег не должен дать 304 на запрос CBOR
+        mockMvc.perform(get("/api/products/1").accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getAllProducts_WhenTagMatches_ShouldReturn304WithoutQuery() throws Exception {
+        String etag = changeSequenceTracker.globalTag();
+
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        mockMvc.perform(get("/api/products/center/fc1/total-value")
+                        .header(HttpHeaders.IF_NONE_MATCH, changeSequenceTracker.centerTag("fc1")))
+                .andExpect(status().isNotModified());
+
+        verify(productService, never()).getAllProducts();
+        verify(productService, never()).getTotalValueByFulfillmentCenter(any());
+    }
+
     @Test
     void getProduct_WhenNotExists_ShouldReturn404() throws Exception {
         when(productService.getProduct(999L)).thenReturn(Optional.empty());
@@ -82,7 +276,7 @@ class ProductControllerTest {
 
     @Test
     void getProductByProductId_ShouldReturnList() throws Exception {
-        when(productService.getProductByProductId("p1")).thenReturn(List.of(testProduct));
+        when(productService.getProductByProductId("p1")).thenReturn(List.of(testView));
 
         mockMvc.perform(get("/api/products/product-id/p1"))
                 .andExpect(status().isOk())
@@ -125,6 +319,98 @@ class ProductControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void updateProduct_WhenVersionConflict_ShouldRetry() throws Exception {
+        when(productService.updateProduct(eq(1L), any(Product.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, 1L))
+                .thenReturn(Optional.of(testProduct));
+
+        mockMvc.perform(put("/api/products/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testProduct)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1));
+
+        verify(productService, times(2)).updateProduct(eq(1L), any(Product.class));
+    }
+
+    @Test
+    void adjustQuantity_ShouldReturnAdjustedProduct() throws Exception {
+        testProduct.setQuantity(7);
+        when(productService.adjustQuantity(1L, -3)).thenReturn(QuantityAdjustment.adjusted(testProduct));
+
+        mockMvc.perform(patch("/api/products/1/quantity")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":-3}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantity").value(7));
+    }
+
+    @Test
+    void adjustQuantity_WhenInsufficient_ShouldReturn409() throws Exception {
+        when(productService.adjustQuantity(1L, -30)).thenReturn(QuantityAdjustment.insufficient(testProduct));
+
+        mockMvc.perform(patch("/api/products/1/quantity")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":-30}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.quantity").value(10));
+    }
+
+    @Test
+    void adjustQuantity_WhenNotExists_ShouldReturn404() throws Exception {
+        when(productService.adjustQuantity(999L, 1)).thenReturn(QuantityAdjustment.notFound());
+
+        mockMvc.perform(patch("/api/products/999/quantity")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"delta\":1}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void adjustQuantity_WhenDeltaMissing_ShouldReturn400() throws Exception {
+        mockMvc.perform(patch("/api/products/1/quantity")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).adjustQuantity(any(), anyInt());
+    }
+
+    @Test
+    void updateProduct_WhenIfMatchIsStale_ShouldReturn412() throws Exception {
+        when(productService.updateProduct(eq(1L), any(Product.class), eq(2L)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, 1L));
+
+        mockMvc.perform(put("/api/products/1")
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(testProduct)))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(productService, times(1)).updateProduct(eq(1L), any(Product.class), eq(2L));
+    }
+
+    @Test
+    void deleteProduct_WithIfMatch_ShouldPassExpectedVersion() throws Exception {
+        when(productService.deleteProduct(1L, 4L)).thenReturn(true);
+
+        mockMvc.perform(delete("/api/products/1").header(HttpHeaders.IF_MATCH, "\"4\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/products/1").header(HttpHeaders.IF_MATCH, "W/\"4\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void deleteProduct_WithWriteBehindTagInIfMatch_ShouldUseVersionPrefix() throws Exception {
+        when(productService.deleteProduct(1L, 4L)).thenReturn(true);
+
+        mockMvc.perform(delete("/api/products/1").header(HttpHeaders.IF_MATCH, "\"4.-3\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/products/1").header(HttpHeaders.IF_MATCH, "\"4.-3+cbor\""))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void deleteProduct_WhenExists_ShouldReturn200() throws Exception {
         when(productService.deleteProduct(1L)).thenReturn(true);
@@ -144,7 +430,7 @@ class ProductControllerTest {
     @Test
     void getProductsByStatus_ShouldReturnFilteredList() throws Exception {
         when(productService.getProductsByStatus(ProductStatus.SELLABLE))
-                .thenReturn(List.of(testProduct));
+                .thenReturn(List.of(testView));
 
         mockMvc.perform(get("/api/products/status/SELLABLE"))
                 .andExpect(status().isOk())
@@ -152,6 +438,30 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$[0].status").value("SELLABLE"));
     }
 
+    @Test
+    void getProductsByStatus_WithLowerCaseStatus_ShouldReturnFilteredList() throws Exception {
+        when(productService.getProductsByStatus(ProductStatus.INBOUND)).thenReturn(List.of(testView));
+
+        mockMvc.perform(get("/api/products/status/inbound"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1));
+    }
+
+    @Test
+    void getProductsByStatus_WithUnknownStatus_ShouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/products/status/lost"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products/status/lost/stream"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products/export.csv").param("status", "lost"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/api/products").param("status", "lost"))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).getProductsByStatus(any());
+        verify(productBatchService, never()).deleteMatching(any(), any(), any(), anyLong(), anyBoolean());
+    }
+
     @Test
     void getTotalSellableValue_ShouldReturnValue() throws Exception {
         when(productService.getTotalSellableValue()).thenReturn(1000.0);
@@ -169,4 +479,173 @@ class ProductControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().string("2000.0"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getInventorySummary_ShouldReturnCenterStatusMatrix() throws Exception {
+        when(productService.getInventorySummary("p1")).thenReturn(List.of(
+                new InventorySummaryRow("fc1", ProductStatus.SELLABLE, 10L, 2L, 1000.0),
+                new InventorySummaryRow("fc1", ProductStatus.INBOUND, 3L, 1L, 300.0)));
+
+        mockMvc.perform(get("/api/products/summary").param("productId", "p1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].fulfillmentCenter").value("fc1"))
+                .andExpect(jsonPath("$[0].status").value("SELLABLE"))
+                .andExpect(jsonPath("$[0].quantity").value(10))
+                .andExpect(jsonPath("$[0].lotCount").value(2))
+                .andExpect(jsonPath("$[0].totalValue").value(1000.0))
+                .andExpect(jsonPath("$[1].status").value("INBOUND"));
+    }
+
+    @Test
+    void createProducts_WhenValid_ShouldReturnPerItemResults() throws Exception {
+        when(productBatchService.validate(anyList(), eq(false))).thenReturn(List.of());
+        when(productBatchService.createProducts(anyList()))
+                .thenReturn(List.of(BatchItemResult.of(0, 1L, BatchItemStatus.CREATED)));
+
+        mockMvc.perform(post("/api/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testProduct))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].status").value("CREATED"));
+    }
+
+    @Test
+    void getAllProducts_WhenCborAccepted_ShouldReturnCborWithVary() throws Exception {
+        when(productService.getAllProducts()).thenReturn(List.of(testView));
+
+        MvcResult result = mockMvc.perform(get("/api/products").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT)))
+                .andReturn();
+
+        List<ProductView> views = new CBORMapper().readValue(result.getResponse().getContentAsByteArray(),
+                new TypeReference<List<ProductView>>() { });
+        assertThat(views).containsExactly(testView);
+    }
+
+    @Test
+    void getAllProducts_WhenSmileTagMatches_ShouldReturn304OnlyForSmile() throws Exception {
+        String smileTag = changeSequenceTracker.globalTag().replaceFirst("\"$", "+smile\"");
+
+        mockMvc.perform(get("/api/products").accept("application/x-jackson-smile")
+                        .header(HttpHeaders.IF_NONE_MATCH, smileTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        mockMvc.perform(get("/api/products").accept(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, smileTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, changeSequenceTracker.globalTag()));
+    }
+
+    @Test
+    void createProducts_WithSmileBody_ShouldReadAndAnswerInSmile() throws Exception {
+        SmileMapper smileMapper = new SmileMapper();
+        when(productBatchService.validate(anyList(), eq(false))).thenReturn(List.of());
+        when(productBatchService.createProducts(anyList()))
+                .thenReturn(List.of(BatchItemResult.of(0, 1L, BatchItemStatus.CREATED)));
+
+        MvcResult result = mockMvc.perform(post("/api/products/batch")
+                        .contentType("application/x-jackson-smile")
+                        .accept("application/x-jackson-smile")
+                        .content(smileMapper.writeValueAsBytes(List.of(testProduct))))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn();
+
+        List<BatchItemResult> results = smileMapper.readValue(result.getResponse().getContentAsByteArray(),
+                new TypeReference<List<BatchItemResult>>() { });
+        assertThat(results).containsExactly(BatchItemResult.of(0, 1L, BatchItemStatus.CREATED));
+        verify(productBatchService).createProducts(anyList());
+    }
+
+    @Test
+    void createProducts_WhenInvalid_ShouldReturn400AndWriteNothing() throws Exception {
+        when(productBatchService.validate(anyList(), eq(false)))
+                .thenReturn(List.of(BatchItemResult.invalid(0, null, List.of("quantity must be greater than 0"))));
+
+        mockMvc.perform(post("/api/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testProduct))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].status").value("INVALID"));
+
+        verify(productBatchService, never()).createProducts(anyList());
+    }
+
+    @Test
+    void createProducts_WhenTooLarge_ShouldReturn413() throws Exception {
+        when(productBatchService.getMaxBatchSize()).thenReturn(1);
+
+        mockMvc.perform(post("/api/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testProduct, testProduct))))
+                .andExpect(status().isPayloadTooLarge());
+
+        verify(productBatchService, never()).validate(anyList(), anyBoolean());
+    }
+
+    @Test
+    void updateProducts_ShouldReturnPerItemResults() throws Exception {
+        when(productBatchService.validate(anyList(), eq(true))).thenReturn(List.of());
+        when(productBatchService.updateProducts(anyList()))
+                .thenReturn(List.of(BatchItemResult.of(0, 1L, BatchItemStatus.UPDATED)));
+
+        mockMvc.perform(put("/api/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testProduct))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("UPDATED"));
+    }
+
+    @Test
+    void deleteProducts_ShouldReturnPerItemResults() throws Exception {
+        when(productBatchService.deleteProducts(List.of(1L, 999L))).thenReturn(List.of(
+                BatchItemResult.of(0, 1L, BatchItemStatus.DELETED),
+                BatchItemResult.of(1, 999L, BatchItemStatus.NOT_FOUND)));
+
+        mockMvc.perform(delete("/api/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 999]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("DELETED"))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    void deleteMatching_WithoutFilter_ShouldReturn400() throws Exception {
+        mockMvc.perform(delete("/api/products"))
+                .andExpect(status().isBadRequest());
+
+        verify(productBatchService, never()).deleteMatching(any(), any(), any(), anyLong(), anyBoolean());
+    }
+
+    @Test
+    void deleteMatching_ShouldCapLimitAndReturnCounts() throws Exception {
+        when(productBatchService.deleteMatching(ProductStatus.INBOUND, "fc1", null, 1000L, false))
+                .thenReturn(new BulkDeleteResult(7, 7, 1000, false));
+
+        mockMvc.perform(delete("/api/products")
+                        .param("status", "inbound")
+                        .param("center", "fc1")
+                        .param("maxRows", "50000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.matched").value(7))
+                .andExpect(jsonPath("$.deleted").value(7));
+    }
+
+    @Test
+    void deleteMatching_WhenLimitExceeded_ShouldReturn422() throws Exception {
+        when(productBatchService.deleteMatching(null, "fc1", null, 10L, false))
+                .thenReturn(new BulkDeleteResult(25, 0, 10, false));
+
+        mockMvc.perform(delete("/api/products")
+                        .param("center", "fc1")
+                        .param("maxRows", "10"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.matched").value(25))
+                .andExpect(jsonPath("$.deleted").value(0));
+    }
+}
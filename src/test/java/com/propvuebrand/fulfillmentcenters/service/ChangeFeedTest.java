@@ -0,0 +1,161 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.ChangeFeedEntry;
+import com.propvuebrand.fulfillmentcenters.dto.ChangeFeedPage;
+import com.propvuebrand.fulfillmentcenters.event.ChangeType;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.ProductChangeLogRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ChangeFeedTest {
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductBatchService productBatchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void read_ShouldReturnContiguousSequence() {
+        long start = changeFeed.latestSequence();
+        Product product = productService.createProduct(new Product("feed1", ProductStatus.SELLABLE, "fc1", 5, 10.0));
+        productService.adjustQuantity(product.getId(), -2);
+        List<Product> batch = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            batch.add(new Product("feed-batch" + i, ProductStatus.INBOUND, "fc2", 1, 1.0));
+        }
+        productBatchService.createProducts(batch);
+        productService.deleteProduct(product.getId());
+
+        ChangeFeedPage page = changeFeed.read(start, 100);
+
+        assertThat(page.changes()).extracting(ChangeFeedEntry::sequence)
+                .containsExactlyElementsOf(LongStream.rangeClosed(start + 1, start + 9).boxed().toList());
+        assertThat(page.nextAfter()).isEqualTo(start + 9);
+        assertThat(page.changes().get(0).type()).isEqualTo(ChangeType.CREATED);
+        assertThat(page.changes().get(1).product().quantity()).isEqualTo(3);
+        ChangeFeedEntry deleted = page.changes().get(8);
+        assertThat(deleted.type()).isEqualTo(ChangeType.DELETED);
+        assertThat(deleted.product().productId()).isEqualTo("feed1");
+
+        assertThat(changeFeed.read(start + 7, 100).changes()).extracting(ChangeFeedEntry::sequence)
+                .containsExactly(start + 8, start + 9);
+        assertThat(changeFeed.read(start, 2).nextAfter()).isEqualTo(start + 2);
+    }
+
+    @Test
+    void read_ShouldStopAtGapUntilItTimesOut() {
+        long latest = changeFeed.latestSequence();
+        // Номер latest + 1 как будто выдан транзакции, которая ещё не зафиксирована
+        jdbcTemplate.update("INSERT INTO product_changes (sequence_number, change_type, row_id, product_id, status, "
+                        + "fulfillment_center, quantity, value, version, changed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                latest + 2, "UPDATED", 1L, "gap", "SELLABLE", "fc1", 1, 1.0, 1L, Timestamp.from(Instant.now()));
+        try {
+            assertThat(changeFeed.read(latest, 10).changes()).isEmpty();
+
+            jdbcTemplate.update("UPDATE product_changes SET changed_at = ? WHERE sequence_number = ?",
+                    Timestamp.from(Instant.now().minusSeconds(60)), latest + 2);
+
+            assertThat(changeFeed.read(latest, 10).changes()).extracting(ChangeFeedEntry::sequence)
+                    .containsExactly(latest + 2);
+        } finally {
+            jdbcTemplate.update("DELETE FROM product_changes WHERE sequence_number = ?", latest + 2);
+        }
+    }
+
+    @Test
+    void await_ShouldCompleteOnNextCommittedChange() throws InterruptedException {
+        long start = changeFeed.latestSequence();
+        DeferredResult<ChangeFeedPage> result = new DeferredResult<>(10_000L);
+
+        changeFeed.await(start, 10, result);
+        assertThat(result.hasResult()).isFalse();
+
+        productService.createProduct(new Product("feed2", ProductStatus.SELLABLE, "fc1", 1, 1.0));
+
+        // Ожидающего будит поток доставки, а не поток, зафиксировавший изменение
+        awaitResult(result);
+        ChangeFeedPage page = (ChangeFeedPage) result.getResult();
+        assertThat(page.changes()).hasSize(1);
+        assertThat(page.changes().getFirst().product().productId()).isEqualTo("feed2");
+    }
+
+    @Test
+    void read_NearHead_ShouldBeServedFromTail() throws InterruptedException {
+        ProductChangeLogRepository repository = mock(ProductChangeLogRepository.class);
+        when(repository.maxSequence()).thenReturn(3L);
+        ChangeFeed feed = new ChangeFeed(repository, true, 168, 5000, 1, 100);
+        try {
+            feed.poll();
+            // Первое дочитывание начинает хвост с номера 3
+            verify(repository, timeout(5000)).findAfter(3, 500);
+            DeferredResult<ChangeFeedPage> result = new DeferredResult<>(10_000L);
+            feed.await(3, 10, result);
+            when(repository.maxSequence()).thenReturn(5L);
+            when(repository.findAfter(3, 500)).thenReturn(List.of(entry(4), entry(5)));
+
+            feed.poll();
+            awaitResult(result);
+
+            assertThat(((ChangeFeedPage) result.getResult()).changes()).extracting(ChangeFeedEntry::sequence)
+                    .containsExactly(4L, 5L);
+            assertThat(feed.read(3, 10).changes()).extracting(ChangeFeedEntry::sequence).containsExactly(4L, 5L);
+            assertThat(feed.isExpired(3)).isFalse();
+            verify(repository, never()).findAfter(3, 10);
+            verify(repository, never()).minSequence();
+        } finally {
+            feed.shutdown();
+        }
+    }
+
+    @Test
+    void isExpired_ShouldRejectSequencesAheadOfFeed() {
+        long latest = changeFeed.latestSequence();
+
+        assertThat(changeFeed.isExpired(latest)).isFalse();
+        assertThat(changeFeed.isExpired(0)).isFalse();
+        assertThat(changeFeed.isExpired(latest + 1)).isTrue();
+    }
+
+    private static ChangeFeedEntry entry(long sequence) {
+        return new ChangeFeedEntry(sequence, ChangeType.UPDATED,
+                new ProductSnapshot(1L, "tail", ProductStatus.SELLABLE, "fc1", 1, 1.0, sequence), Instant.now());
+    }
+
+    private static void awaitResult(DeferredResult<ChangeFeedPage> result) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!result.hasResult() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(result.hasResult()).isTrue();
+    }
+}
@@ -0,0 +1,78 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ChangeSequenceTrackerTest {
+
+    @Autowired
+    private ChangeSequenceTracker changeSequenceTracker;
+
+    @Autowired
+    private ChangeFeed changeFeed;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void globalTag_WhenAnotherInstanceWrites_ShouldChange() {
+        String before = changeSequenceTracker.globalTag();
+        long sequence = changeFeed.latestSequence() + 1;
+        // Запись другого экземпляра видна только в общем журнале
+        insertChange(sequence, "fc-other");
+        try {
+            assertThat(changeSequenceTracker.globalTag()).isNotEqualTo(before);
+            assertThat(changeSequenceTracker.centerTag("fc-other")).isEqualTo("\"c" + sequence + "-1\"");
+        } finally {
+            jdbcTemplate.update("DELETE FROM product_changes WHERE sequence_number = ?", sequence);
+        }
+    }
+
+    @Test
+    void globalTag_WhenLowerSequenceCommitsLate_ShouldChange() {
+        long latest = changeFeed.latestSequence();
+        insertChange(latest + 2, "fc-gap");
+        try {
+            String withGap = changeSequenceTracker.globalTag();
+
+            insertChange(latest + 1, "fc-gap");
+
+            assertThat(changeSequenceTracker.globalTag()).isNotEqualTo(withGap);
+        } finally {
+            jdbcTemplate.update("DELETE FROM product_changes WHERE sequence_number IN (?, ?)", latest + 1, latest + 2);
+        }
+    }
+
+    @Test
+    void centerTag_WhenProductMovesOut_ShouldChange() {
+        Product product = productService.createProduct(new Product("tag1", ProductStatus.SELLABLE, "fc-from", 1, 1.0));
+        String from = changeSequenceTracker.centerTag("fc-from");
+
+        productService.updateProduct(product.getId(),
+                new Product("tag1", ProductStatus.SELLABLE, "fc-to", 1, 1.0), null);
+
+        assertThat(changeSequenceTracker.centerTag("fc-from")).isNotEqualTo(from);
+        productService.deleteProduct(product.getId());
+    }
+
+    private void insertChange(long sequence, String center) {
+        jdbcTemplate.update("INSERT INTO product_changes (sequence_number, change_type, row_id, product_id, status, "
+                        + "fulfillment_center, quantity, value, version, changed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                sequence, "UPDATED", 1L, "tag", "SELLABLE", center, 1, 1.0, 1L, Timestamp.from(Instant.now()));
+    }
+}
@@ -0,0 +1,115 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.ProductView;
+import com.propvuebrand.fulfillmentcenters.event.ProductChange;
+import com.propvuebrand.fulfillmentcenters.event.ProductChangeEvent;
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ColumnarInventoryTest {
+
+    private ColumnarInventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        inventory = new ColumnarInventory(null, mock(PlatformTransactionManager.class), true);
+    }
+
+    @Test
+    void created_ShouldBeVisibleInFiltersAndTotals() {
+        create(snapshot(1L, "p1", ProductStatus.SELLABLE, "fc1", 4, 100.0, 0));
+        create(snapshot(2L, "p1", ProductStatus.INBOUND, "fc2", 2, 50.0, 0));
+        create(snapshot(3L, "p2", ProductStatus.SELLABLE, "fc2", 1, 10.0, 0));
+
+        assertThat(inventory.getProductsByStatus(ProductStatus.SELLABLE))
+                .extracting(ProductView::id).containsExactly(1L, 3L);
+        assertThat(inventory.getProductsByProductId("p1"))
+                .extracting(ProductView::fulfillmentCenter).containsExactly("fc1", "fc2");
+        assertThat(inventory.getTotalValueByStatus(ProductStatus.SELLABLE)).isEqualTo(410.0);
+        assertThat(inventory.getTotalValueByCenter("fc2")).isEqualTo(110.0);
+        assertThat(inventory.getTotalValueByStatus(ProductStatus.UNFULFILLABLE)).isNull();
+        assertThat(inventory.getTotalValueByCenter("unknown")).isNull();
+        assertThat(inventory.getProductsByProductId("unknown")).isEmpty();
+    }
+
+    @Test
+    void updatedAndDeleted_ShouldMoveBetweenBitmaps() {
+        ProductSnapshot original = snapshot(1L, "p1", ProductStatus.SELLABLE, "fc1", 4, 100.0, 0);
+        ProductSnapshot moved = snapshot(1L, "p1", ProductStatus.UNFULFILLABLE, "fc3", 4, 100.0, 1);
+        create(original);
+        create(snapshot(2L, "p2", ProductStatus.SELLABLE, "fc1", 1, 5.0, 0));
+
+        inventory.onProductChange(ProductChangeEvent.of(ProductChange.updated(original, moved)));
+        inventory.onProductChange(ProductChangeEvent.of(
+                ProductChange.deleted(snapshot(2L, "p2", ProductStatus.SELLABLE, "fc1", 1, 5.0, 0))));
+
+        assertThat(inventory.getProductsByStatus(ProductStatus.SELLABLE)).isEmpty();
+        assertThat(inventory.getProductsByStatus(ProductStatus.UNFULFILLABLE))
+                .extracting(ProductView::fulfillmentCenter).containsExactly("fc3");
+        assertThat(inventory.getTotalValueByCenter("fc1")).isNull();
+        assertThat(inventory.getTotalValueByCenter("fc3")).isEqualTo(400.0);
+        assertThat(inventory.liveRows()).isEqualTo(1);
+    }
+
+    @Test
+    void staleUpdate_ShouldBeIgnored() {
+        ProductSnapshot current = snapshot(1L, "p1", ProductStatus.SELLABLE, "fc1", 4, 100.0, 5);
+        create(current);
+
+        inventory.onProductChange(ProductChangeEvent.of(ProductChange.updated(current,
+                snapshot(1L, "p1", ProductStatus.INBOUND, "fc1", 4, 100.0, 3))));
+
+        assertThat(inventory.getProductsByStatus(ProductStatus.SELLABLE)).hasSize(1);
+    }
+
+    @Test
+    void staleUpdate_AfterDelete_ShouldNotReturnRow() {
+        ProductSnapshot v1 = snapshot(1L, "p1", ProductStatus.SELLABLE, "fc1", 4, 100.0, 1);
+        ProductSnapshot v2 = snapshot(1L, "p1", ProductStatus.SELLABLE, "fc1", 3, 100.0, 2);
+        create(v1);
+
+        // Удаление версии 2 применено раньше, чем событие обновления 1 -> 2
+        inventory.onProductChange(ProductChangeEvent.of(ProductChange.deleted(v2)));
+        inventory.onProductChange(ProductChangeEvent.of(ProductChange.updated(v1, v2)));
+
+        assertThat(inventory.liveRows()).isZero();
+        assertThat(inventory.getTotalValueByCenter("fc1")).isNull();
+    }
+
+    @Test
+    void manyDeletes_ShouldCompactWithoutLosingRows() {
+        List<ProductChange> created = new ArrayList<>();
+        for (long id = 1; id <= 10_000; id++) {
+            created.add(ProductChange.created(snapshot(id, "p" + (id % 100), ProductStatus.SELLABLE, "fc1", 1, 1.0, 0)));
+        }
+        inventory.onProductChange(new ProductChangeEvent(created));
+
+        List<ProductChange> deleted = new ArrayList<>();
+        for (long id = 1; id <= 6_000; id++) {
+            deleted.add(ProductChange.deleted(snapshot(id, "p" + (id % 100), ProductStatus.SELLABLE, "fc1", 1, 1.0, 0)));
+        }
+        inventory.onProductChange(new ProductChangeEvent(deleted));
+
+        assertThat(inventory.liveRows()).isEqualTo(4_000);
+        assertThat(inventory.getTotalValueByStatus(ProductStatus.SELLABLE)).isEqualTo(4_000.0);
+        assertThat(inventory.getProductsByStatus(ProductStatus.SELLABLE).getFirst().id()).isEqualTo(6_001L);
+    }
+
+    private void create(ProductSnapshot snapshot) {
+        inventory.onProductChange(ProductChangeEvent.of(ProductChange.created(snapshot)));
+    }
+
+    private static ProductSnapshot snapshot(long id, String productId, ProductStatus status, String center,
+                                            int quantity, double value, long version) {
+        return new ProductSnapshot(id, productId, status, center, quantity, value, version);
+    }
+}
@@ -0,0 +1,98 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.AggregateDriftReport;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.InventoryAggregateRepository;
+import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class InventoryAggregateServiceTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductBatchService productBatchService;
+
+    @Autowired
+    private InventoryAggregateService inventoryAggregateService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryAggregateRepository aggregateRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch();
+        aggregateRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void writes_ShouldKeepTotalsEqualToFullScan() {
+        Product first = productService.createProduct(new Product("p1", ProductStatus.SELLABLE, "fc1", 4, 100.0));
+        productService.createProduct(new Product("p2", ProductStatus.SELLABLE, "fc2", 2, 50.0));
+        Product third = productService.createProduct(new Product("p3", ProductStatus.INBOUND, "fc1", 1, 10.0));
+
+        productService.updateProduct(first.getId(), new Product("p1", ProductStatus.UNFULFILLABLE, "fc2", 3, 100.0));
+        productService.deleteProduct(third.getId());
+        productBatchService.createProducts(List.of(
+                new Product("p4", ProductStatus.SELLABLE, "fc3", 10, 1.5),
+                new Product("p5", ProductStatus.SELLABLE, "fc1", 1, 7.0)));
+
+        assertThat(productService.getTotalSellableValue())
+                .isCloseTo(productRepository.getTotalSellableValue(ProductStatus.SELLABLE), within(1e-9));
+        for (String center : List.of("fc1", "fc2", "fc3")) {
+            assertThat(productService.getTotalValueByFulfillmentCenter(center))
+                    .isCloseTo(productRepository.getTotalValueByFulfillmentCenter(center), within(1e-9));
+        }
+        assertThat(inventoryAggregateService.checkConsistency().consistent()).isTrue();
+    }
+
+    @Test
+    void getTotalValue_WhenNoLots_ShouldReturnNullLikeSum() {
+        Product product = productService.createProduct(new Product("p1", ProductStatus.SELLABLE, "fc1", 4, 100.0));
+        productService.deleteProduct(product.getId());
+
+        assertThat(productService.getTotalSellableValue()).isNull();
+        assertThat(productService.getTotalValueByFulfillmentCenter("fc1")).isNull();
+        assertThat(productService.getTotalValueByFulfillmentCenter("unknown")).isNull();
+    }
+
+    @Test
+    void checkConsistency_ShouldReportAndRepairDrift() {
+        productService.createProduct(new Product("p1", ProductStatus.SELLABLE, "fc1", 4, 100.0));
+        // Запись в обход сервиса не обновляет итоги
+        transactionTemplate.executeWithoutResult(status ->
+                productRepository.save(new Product("p2", ProductStatus.SELLABLE, "fc1", 1, 25.0)));
+
+        AggregateDriftReport report = inventoryAggregateService.checkConsistency();
+
+        assertThat(report.consistent()).isFalse();
+        assertThat(report.drifts())
+                .extracting(AggregateDriftReport.Drift::aggregateKey)
+                .containsExactlyInAnyOrder("STATUS:SELLABLE", "CENTER:fc1");
+
+        inventoryAggregateService.repair();
+
+        assertThat(inventoryAggregateService.checkConsistency().consistent()).isTrue();
+        assertThat(productService.getTotalSellableValue()).isEqualTo(425.0);
+    }
+}
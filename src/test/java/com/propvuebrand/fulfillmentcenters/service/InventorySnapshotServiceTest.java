@@ -0,0 +1,161 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.ChangeFeedEntry;
+import com.propvuebrand.fulfillmentcenters.dto.ChangeFeedPage;
+import com.propvuebrand.fulfillmentcenters.dto.InventoryChecksum;
+import com.propvuebrand.fulfillmentcenters.dto.ProductView;
+import com.propvuebrand.fulfillmentcenters.event.ChangeType;
+import com.propvuebrand.fulfillmentcenters.event.ProductChange;
+import com.propvuebrand.fulfillmentcenters.event.ProductChangeEvent;
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.ProductJdbcRepository;
+import com.propvuebrand.fulfillmentcenters.util.InventorySnapshotFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InventorySnapshotServiceTest {
+
+    private static final Instant MARKER_TIME = Instant.parse("2026-01-01T00:00:00Z");
+
+    @TempDir
+    private Path directory;
+
+    private Path file;
+    private ChangeFeed changeFeed;
+    private ProductJdbcRepository productJdbcRepository;
+
+    @BeforeEach
+    void setUp() {
+        file = directory.resolve("inventory.snapshot");
+        changeFeed = mock(ChangeFeed.class);
+        productJdbcRepository = mock(ProductJdbcRepository.class);
+        when(changeFeed.isEnabled()).thenReturn(true);
+        when(changeFeed.latestSequence()).thenReturn(5L);
+        when(changeFeed.read(4L, 1)).thenReturn(page(5, entry(5, ChangeType.CREATED,
+                snapshot(3L, "p2", ProductStatus.INBOUND, "fc2", 7, 3.5, 0))));
+    }
+
+    @Test
+    void warmStart_ShouldLoadSnapshotAndReplayOnlyNewerChanges() {
+        ColumnarInventory source = inventory();
+        source.onProductChange(new ProductChangeEvent(List.of(
+                ProductChange.created(snapshot(1L, "p1", ProductStatus.SELLABLE, "fc1", 4, 100.0, 0)),
+                ProductChange.created(snapshot(2L, "p1", ProductStatus.SELLABLE, "fc2", 2, 50.0, 0)),
+                ProductChange.created(snapshot(3L, "p2", ProductStatus.INBOUND, "fc2", 7, 3.5, 0)))));
+        assertThat(service(source).write()).isTrue();
+
+        when(changeFeed.read(5L, 1000)).thenReturn(page(7,
+                entry(6, ChangeType.UPDATED, snapshot(1L, "p1", ProductStatus.SELLABLE, "fc1", 1, 100.0, 1)),
+                entry(7, ChangeType.DELETED, snapshot(2L, "p1", ProductStatus.SELLABLE, "fc2", 2, 50.0, 0))));
+        when(changeFeed.read(7L, 1000)).thenReturn(page(7));
+        when(productJdbcRepository.checksum()).thenReturn(new InventoryChecksum(2, 8, 1));
+        ColumnarInventory restarted = inventory();
+
+        assertThat(service(restarted).warmStart()).isTrue();
+
+        assertThat(restarted.isReady()).isTrue();
+        assertThat(restarted.getProductsByStatus(ProductStatus.SELLABLE))
+                .containsExactly(new ProductView(1L, "p1", ProductStatus.SELLABLE, "fc1", 1, 100.0));
+        assertThat(restarted.getTotalValueByCenter("fc2")).isEqualTo(24.5);
+    }
+
+    @Test
+    void warmStart_WhenTableDoesNotMatchReplay_ShouldIgnoreSnapshot() {
+        ColumnarInventory source = inventory();
+        source.onProductChange(ProductChangeEvent.of(
+                ProductChange.created(snapshot(3L, "p2", ProductStatus.INBOUND, "fc2", 7, 3.5, 0))));
+        assertThat(service(source).write()).isTrue();
+
+        // Изменение с номером до знака зафиксировалось после записи файла и в ленту после знака не попало
+        when(changeFeed.read(5L, 1000)).thenReturn(page(5));
+        when(productJdbcRepository.checksum()).thenReturn(new InventoryChecksum(1, 4, 1));
+        ColumnarInventory restarted = inventory();
+
+        assertThat(service(restarted).warmStart()).isFalse();
+        assertThat(restarted.isReady()).isFalse();
+    }
+
+    @Test
+    void warmStart_WhenMarkerDiffers_ShouldIgnoreSnapshot() {
+        ColumnarInventory source = inventory();
+        source.onProductChange(ProductChangeEvent.of(
+                ProductChange.created(snapshot(3L, "p2", ProductStatus.INBOUND, "fc2", 7, 3.5, 0))));
+        assertThat(service(source).write()).isTrue();
+
+        // База пересоздана: номер тот же, но событие на нём другое
+        when(changeFeed.read(4L, 1)).thenReturn(page(5, entry(5, ChangeType.CREATED,
+                snapshot(99L, "p9", ProductStatus.INBOUND, "fc9", 1, 1.0, 0))));
+        ColumnarInventory restarted = inventory();
+
+        assertThat(service(restarted).warmStart()).isFalse();
+        assertThat(restarted.isReady()).isFalse();
+    }
+
+    @Test
+    void write_WhileCommitIsNotYetApplied_ShouldSkipSnapshot() {
+        ColumnarInventory source = inventory();
+        ProductChangeEvent event = ProductChangeEvent.of(
+                ProductChange.created(snapshot(3L, "p2", ProductStatus.INBOUND, "fc2", 7, 3.5, 0)));
+        source.onProductChange(ProductChangeEvent.of(
+                ProductChange.created(snapshot(1L, "p1", ProductStatus.SELLABLE, "fc1", 4, 100.0, 0))));
+
+        // Изменение 5 уже в журнале, но колоночный снимок его ещё не видел
+        source.onCommitStarting(event);
+        assertThat(service(source).write()).isFalse();
+        assertThat(Files.exists(file)).isFalse();
+
+        source.onProductChange(event);
+        source.onCommitFinished(event);
+        assertThat(service(source).write()).isTrue();
+    }
+
+    @Test
+    void read_WhenFileIsCorrupted_ShouldFail() throws IOException {
+        InventorySnapshotFile.Encoder encoder = new InventorySnapshotFile.Encoder();
+        encoder.add(snapshot(1L, "p1", ProductStatus.SELLABLE, "fc1", 4, 100.0, 0));
+        encoder.writeTo(file, 5, 0, 1);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[50] ^= 1;
+        Files.write(file, bytes);
+
+        assertThatThrownBy(() -> InventorySnapshotFile.read(file, row -> { }))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("checksum");
+    }
+
+    private InventorySnapshotService service(ColumnarInventory inventory) {
+        return new InventorySnapshotService(inventory, changeFeed, productJdbcRepository, true, file);
+    }
+
+    private static ColumnarInventory inventory() {
+        return new ColumnarInventory(null, mock(PlatformTransactionManager.class), true);
+    }
+
+    private static ChangeFeedPage page(long latest, ChangeFeedEntry... entries) {
+        long next = entries.length == 0 ? latest : entries[entries.length - 1].sequence();
+        return new ChangeFeedPage(List.of(entries), next, latest);
+    }
+
+    private static ChangeFeedEntry entry(long sequence, ChangeType type, ProductSnapshot product) {
+        return new ChangeFeedEntry(sequence, type, product, MARKER_TIME.plusSeconds(sequence));
+    }
+
+    private static ProductSnapshot snapshot(long id, String productId, ProductStatus status, String center,
+                                            int quantity, double value, long version) {
+        return new ProductSnapshot(id, productId, status, center, quantity, value, version);
+    }
+}
@@ -0,0 +1,112 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.AllocationResult;
+import com.propvuebrand.fulfillmentcenters.event.ProductChange;
+import com.propvuebrand.fulfillmentcenters.event.ProductChangeEvent;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductSnapshot;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderAllocationServiceTest {
+
+    @Autowired
+    private OrderAllocationService orderAllocationService;
+
+    @Autowired
+    private SellableStockIndex sellableStockIndex;
+
+    @Autowired
+    private ProductBatchService productBatchService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch();
+        sellableStockIndex.reload();
+        productBatchService.createProducts(List.of(
+                new Product("p1", ProductStatus.SELLABLE, "fc1", 5, 10.0),
+                new Product("p2", ProductStatus.SELLABLE, "fc1", 5, 10.0),
+                new Product("p1", ProductStatus.SELLABLE, "fc2", 6, 10.0),
+                new Product("p1", ProductStatus.SELLABLE, "fc2", 4, 10.0),
+                new Product("p2", ProductStatus.SELLABLE, "fc3", 10, 10.0),
+                new Product("p3", ProductStatus.INBOUND, "fc1", 50, 10.0)));
+    }
+
+    @Test
+    void allocate_ShouldPreferSingleCenter() {
+        AllocationResult result = orderAllocationService.allocate(Map.of("p1", 4, "p2", 4));
+
+        assertThat(result.fulfillable()).isTrue();
+        assertThat(result.shipments()).containsExactly(
+                new AllocationResult.Shipment("fc1", Map.of("p1", 4, "p2", 4)));
+    }
+
+    @Test
+    void allocate_ShouldSplitAcrossFewestCenters() {
+        AllocationResult result = orderAllocationService.allocate(Map.of("p1", 12, "p2", 12));
+
+        assertThat(result.fulfillable()).isTrue();
+        assertThat(result.shipments()).extracting(AllocationResult.Shipment::fulfillmentCenter)
+                .containsExactly("fc1", "fc2", "fc3");
+        assertThat(result.shipments().get(1).lines()).isEqualTo(Map.of("p1", 7));
+    }
+
+    @Test
+    void allocate_ShouldReportUnallocatedQuantityAndIgnoreOtherStatuses() {
+        AllocationResult result = orderAllocationService.allocate(Map.of("p1", 16, "p3", 1));
+
+        assertThat(result.fulfillable()).isFalse();
+        assertThat(result.unallocated()).isEqualTo(Map.of("p1", 1, "p3", 1));
+    }
+
+    @Test
+    void reserve_ShouldDecrementLotsAndKeepIndexCurrent() {
+        AllocationResult result = orderAllocationService.reserve(Map.of("p1", 9));
+
+        assertThat(result.reserved()).isTrue();
+        assertThat(result.shipments()).containsExactly(new AllocationResult.Shipment("fc2", Map.of("p1", 9)));
+        assertThat(productRepository.findByProductId("p1")).extracting(Product::getQuantity)
+                .containsExactlyInAnyOrder(5, 0, 1);
+        assertThat(sellableStockIndex.availability(List.of("p1")))
+                .isEqualTo(Map.of("p1", Map.of("fc1", 5L, "fc2", 1L)));
+    }
+
+    @Test
+    void reserve_WhenNotFulfillable_ShouldNotChangeStock() {
+        AllocationResult result = orderAllocationService.reserve(Map.of("p1", 100));
+
+        assertThat(result.fulfillable()).isFalse();
+        assertThat(result.reserved()).isFalse();
+        assertThat(productRepository.findByProductId("p1")).extracting(Product::getQuantity)
+                .containsExactlyInAnyOrder(5, 6, 4);
+    }
+
+    @Test
+    void staleChange_AfterLotWasSoldOut_ShouldNotReturnItToIndex() {
+        List<ProductChange> stale = productRepository.findByProductId("p1").stream()
+                .map(product -> ProductChange.created(ProductSnapshot.of(product)))
+                .toList();
+        orderAllocationService.reserve(Map.of("p1", 9));
+
+        // Запоздавшие события о партиях до резервирования, в том числе о распроданной
+        sellableStockIndex.onProductChange(new ProductChangeEvent(stale));
+
+        assertThat(sellableStockIndex.availability(List.of("p1")))
+                .isEqualTo(Map.of("p1", Map.of("fc1", 5L, "fc2", 1L)));
+    }
+}
@@ -0,0 +1,150 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.BatchItemResult;
+import com.propvuebrand.fulfillmentcenters.dto.BatchItemStatus;
+import com.propvuebrand.fulfillmentcenters.dto.BulkDeleteResult;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductBatchServiceTest {
+
+    @Autowired
+    private ProductBatchService productBatchService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryAggregateService inventoryAggregateService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void createProducts_ShouldInsertWithStatementBatching() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            products.add(new Product("p" + i, ProductStatus.SELLABLE, "fc" + (i % 5), 1 + i, 10.0));
+        }
+
+        List<BatchItemResult> results = productBatchService.createProducts(products);
+
+        assertThat(results).hasSize(200).allMatch(r -> r.status() == BatchItemStatus.CREATED && r.id() != null);
+        assertThat(productRepository.count()).isEqualTo(200);
+        // 200 вставок при batch_size=100 — это 2 пакета плюс несколько обращений к последовательности
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(20);
+    }
+
+    @Test
+    void validate_ShouldReportEveryInvalidItem() {
+        Product valid = new Product("p1", ProductStatus.SELLABLE, "fc1", 1, 10.0);
+        Product invalid = new Product("p2", ProductStatus.SELLABLE, null, 0, 10.0);
+
+        List<BatchItemResult> failures = productBatchService.validate(List.of(valid, invalid), false);
+
+        assertThat(failures).hasSize(1);
+        assertThat(failures.getFirst().index()).isEqualTo(1);
+        assertThat(failures.getFirst().errors()).hasSize(2);
+    }
+
+    @Test
+    void updateProducts_ShouldReportNotFoundAndConflicts() {
+        Product first = productRepository.save(new Product("p1", ProductStatus.SELLABLE, "fc1", 1, 10.0));
+        Product second = productRepository.save(new Product("p2", ProductStatus.SELLABLE, "fc1", 1, 10.0));
+
+        Product update = new Product("p1", ProductStatus.INBOUND, "fc2", 5, 20.0);
+        update.setId(first.getId());
+        Product stale = new Product("p2", ProductStatus.INBOUND, "fc2", 5, 20.0);
+        stale.setId(second.getId());
+        stale.setVersion(second.getVersion() + 1);
+        Product missing = new Product("p3", ProductStatus.INBOUND, "fc2", 5, 20.0);
+        missing.setId(-1L);
+
+        List<BatchItemResult> results = productBatchService.updateProducts(List.of(update, stale, missing));
+
+        assertThat(results).extracting(BatchItemResult::status)
+                .containsExactly(BatchItemStatus.UPDATED, BatchItemStatus.CONFLICT, BatchItemStatus.NOT_FOUND);
+        assertThat(productRepository.findById(first.getId())).get()
+                .extracting(Product::getStatus, Product::getQuantity)
+                .containsExactly(ProductStatus.INBOUND, 5);
+        assertThat(productRepository.findById(second.getId())).get()
+                .extracting(Product::getStatus)
+                .isEqualTo(ProductStatus.SELLABLE);
+    }
+
+    @Test
+    void deleteProducts_ShouldDeleteExistingAndReportMissing() {
+        Product product = productRepository.save(new Product("p1", ProductStatus.SELLABLE, "fc1", 1, 10.0));
+
+        List<BatchItemResult> results = productBatchService.deleteProducts(List.of(product.getId(), -1L));
+
+        assertThat(results).extracting(BatchItemResult::status)
+                .containsExactly(BatchItemStatus.DELETED, BatchItemStatus.NOT_FOUND);
+        assertThat(productRepository.count()).isZero();
+    }
+
+    @Test
+    void deleteMatching_ShouldDeleteInOneStatementAndKeepAggregates() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            products.add(new Product("p" + i, i % 3 == 0 ? ProductStatus.INBOUND : ProductStatus.SELLABLE,
+                    "fc" + (i % 2), 1, 10.0));
+        }
+        productBatchService.createProducts(products);
+        inventoryAggregateService.repair();
+
+        BulkDeleteResult dryRun = productBatchService.deleteMatching(ProductStatus.INBOUND, "fc0", null, 1000, true);
+        assertThat(dryRun.matched()).isEqualTo(50);
+        assertThat(dryRun.deleted()).isZero();
+
+        BulkDeleteResult tooMany = productBatchService.deleteMatching(ProductStatus.INBOUND, null, null, 10, false);
+        assertThat(tooMany.limitExceeded()).isTrue();
+        assertThat(tooMany.deleted()).isZero();
+        assertThat(productRepository.count()).isEqualTo(300);
+
+        BulkDeleteResult result = productBatchService.deleteMatching(ProductStatus.INBOUND, "fc0", null, 1000, false);
+
+        assertThat(result.deleted()).isEqualTo(50);
+        assertThat(productRepository.count()).isEqualTo(250);
+        assertThat(inventoryAggregateService.checkConsistency().consistent()).isTrue();
+    }
+
+    @Test
+    void deleteProduct_ShouldNotLoadEntity() {
+        Product product = productRepository.save(new Product("p1", ProductStatus.SELLABLE, "fc1", 1, 10.0));
+        statistics.clear();
+
+        assertThat(productService.deleteProduct(product.getId())).isTrue();
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(productRepository.existsById(product.getId())).isFalse();
+    }
+}
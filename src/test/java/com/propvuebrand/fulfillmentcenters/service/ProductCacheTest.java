@@ -0,0 +1,105 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.ProductView;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.InventoryAggregateRepository;
+import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductCacheTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryAggregateRepository aggregateRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch();
+        aggregateRepository.deleteAllInBatch();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void repeatedProductReads_ShouldNotIssueSql() {
+        Product product = productService.createProduct(new Product("p1", ProductStatus.SELLABLE, "fc1", 4, 10.0));
+        productService.getProduct(product.getId());
+        statistics.clear();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(productService.getProduct(product.getId())).isPresent();
+        }
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isGreaterThanOrEqualTo(10);
+    }
+
+    @Test
+    void listReads_ShouldNotUseQueryCache() {
+        productService.createProduct(new Product("p1", ProductStatus.SELLABLE, "fc1", 4, 10.0));
+        statistics.clear();
+
+        productService.getProductByProductId("p1");
+        productService.getProductsByStatus(ProductStatus.SELLABLE);
+
+        assertThat(statistics.getQueryCachePutCount()).isZero();
+    }
+
+    @Test
+    void writes_ShouldInvalidateCachedReads() {
+        Product product = productService.createProduct(new Product("p1", ProductStatus.SELLABLE, "fc1", 4, 10.0));
+        Long id = product.getId();
+        warm(id);
+
+        productService.updateProduct(id, new Product("p1", ProductStatus.INBOUND, "fc1", 5, 10.0));
+        assertThat(productService.getProduct(id)).get().extracting(Product::getQuantity).isEqualTo(5);
+        assertThat(productService.getProductByProductId("p1")).extracting(ProductView::status)
+                .containsExactly(ProductStatus.INBOUND);
+        assertThat(productService.getProductsByStatus(ProductStatus.SELLABLE)).isEmpty();
+
+        warm(id);
+        // Обновление через JDBC в обход Hibernate
+        productService.adjustQuantity(id, -2);
+        assertThat(productService.getProduct(id)).get().extracting(Product::getQuantity).isEqualTo(3);
+        assertThat(productService.getProductByProductId("p1")).extracting(ProductView::quantity)
+                .containsExactly(3);
+
+        Product second = productService.createProduct(new Product("p1", ProductStatus.INBOUND, "fc2", 1, 10.0));
+        assertThat(productService.getProductByProductId("p1")).hasSize(2);
+
+        productService.deleteProduct(id);
+        assertThat(productService.getProduct(id)).isEmpty();
+        assertThat(productService.getProductByProductId("p1")).extracting(ProductView::id)
+                .containsExactly(second.getId());
+    }
+
+    private void warm(Long id) {
+        productService.getProduct(id);
+        List<ProductView> byProductId = productService.getProductByProductId("p1");
+        productService.getProductsByStatus(ProductStatus.INBOUND);
+        assertThat(byProductId).isNotEmpty();
+    }
+}
@@ -0,0 +1,128 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.ImportJobStatus;
+import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
+import com.propvuebrand.fulfillmentcenters.util.BulkLoadReport;
+import com.propvuebrand.fulfillmentcenters.util.BulkProductLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "fulfillment.import.chunk-size=500",
+        "fulfillment.import.max-pending-chunks=2"
+})
+@ActiveProfiles("test")
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryAggregateService inventoryAggregateService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch();
+        inventoryAggregateService.repair();
+    }
+
+    @Test
+    void submit_ShouldLoadValidRowsAndReportRejectedLines() throws Exception {
+        StringBuilder csv = new StringBuilder("Product,Status,Fulfilment center,Qty,Value\n");
+        for (int i = 0; i < 5000; i++) {
+            csv.append('p').append(i).append(",Sellable,fc").append(i % 7).append(",3,10\n");
+        }
+        csv.append("bad,Lost,fc1,3,10\n");          // строка 5002
+        csv.append("p1,Inbound,fc1,-3,10\n");       // строка 5003
+        csv.append("p2,Inbound,fc1,4,40\n");
+
+        ImportJobStatus status = await(productImportService.submit(new MockMultipartFile(
+                "file", "supplier.csv", "text/csv", csv.toString().getBytes(StandardCharsets.UTF_8))).id());
+
+        assertThat(status.state()).isEqualTo(ImportJobStatus.State.COMPLETED);
+        assertThat(status.readRows()).isEqualTo(5003);
+        assertThat(status.loadedRows()).isEqualTo(5001);
+        assertThat(status.rejectedRows()).isEqualTo(2);
+        assertThat(status.rejectedLines()).extracting(BulkLoadReport.RejectedLine::lineNumber)
+                .containsExactly(5002L, 5003L);
+        assertThat(status.progress()).isEqualTo(1.0);
+        assertThat(productRepository.count()).isEqualTo(5001);
+        assertThat(inventoryAggregateService.checkConsistency().consistent()).isTrue();
+    }
+
+    @Test
+    void submit_ShouldAcceptGzippedFile() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write("Product,Status,Fulfilment center,Qty,Value\np1,Sellable,fc5,4,400\np2,Inbound,fc3,5,550\n"
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+
+        ImportJobStatus status = await(productImportService.submit(new MockMultipartFile(
+                "file", "supplier.csv.gz", "application/gzip", bytes.toByteArray())).id());
+
+        assertThat(status.state()).isEqualTo(ImportJobStatus.State.COMPLETED);
+        assertThat(status.loadedRows()).isEqualTo(2);
+        assertThat(productRepository.findByProductId("p2")).hasSize(1);
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_ShouldRejectAndFailQueuedJobsOnShutdown() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        BulkProductLoader loader = mock(BulkProductLoader.class);
+        when(loader.writeChunk(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return 1L;
+        });
+        ProductImportService service = new ProductImportService(loader, 500, 1, 2, 1, 1, 100);
+        try {
+            String running = service.submit(csvFile()).id();
+            String queued = service.submit(csvFile()).id();
+
+            assertThatThrownBy(() -> service.submit(csvFile())).isInstanceOf(RejectedExecutionException.class);
+            assertThat(service.getJobs()).extracting(ImportJobStatus::id).containsExactlyInAnyOrder(running, queued);
+
+            service.shutdown();
+
+            ImportJobStatus status = service.getStatus(queued).orElseThrow();
+            assertThat(status.state()).isEqualTo(ImportJobStatus.State.FAILED);
+        } finally {
+            release.countDown();
+            service.shutdown();
+        }
+    }
+
+    private static MockMultipartFile csvFile() {
+        return new MockMultipartFile("file", "supplier.csv", "text/csv",
+                "Product,Status,Fulfilment center,Qty,Value\np1,Sellable,fc1,1,10\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ImportJobStatus await(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        ImportJobStatus status = productImportService.getStatus(jobId).orElseThrow();
+        while (!status.finished() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            status = productImportService.getStatus(jobId).orElseThrow();
+        }
+        return status;
+    }
+}
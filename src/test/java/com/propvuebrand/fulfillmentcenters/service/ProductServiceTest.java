@@ -1,14 +1,22 @@
 package com.propvuebrand.fulfillmentcenters.service;
 
+import com.propvuebrand.fulfillmentcenters.dto.InventorySummaryRow;
+import com.propvuebrand.fulfillmentcenters.dto.ProductView;
+import com.propvuebrand.fulfillmentcenters.dto.QuantityAdjustment;
+import com.propvuebrand.fulfillmentcenters.event.ChangeType;
+import com.propvuebrand.fulfillmentcenters.event.ProductChangeEvent;
 import com.propvuebrand.fulfillmentcenters.model.Product;
 import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.ProductJdbcRepository;
 import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.util.List;
@@ -25,6 +33,21 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private ProductJdbcRepository productJdbcRepository;
+
+    @Mock
+    private InventoryAggregateService inventoryAggregateService;
+
+    @Mock
+    private ColumnarInventory columnarInventory;
+
+    @Mock
+    private QuantityWriteBuffer quantityWriteBuffer;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private ProductService productService;
 
@@ -44,13 +67,13 @@ class ProductServiceTest {
 
     @Test
     void getAllProducts_ShouldReturnAllProducts() {
-        when(productRepository.findAll()).thenReturn(List.of(testProduct));
+        when(productRepository.findAllViews()).thenReturn(List.of(ProductView.of(testProduct)));
 
-        List<Product> result = productService.getAllProducts();
+        List<ProductView> result = productService.getAllProducts();
 
-        assertThat(result).hasSize(1);
-        assertThat(result.getFirst()).usingRecursiveComparison().isEqualTo(testProduct);
-        verify(productRepository).findAll();
+        assertThat(result).containsExactly(ProductView.of(testProduct));
+        verify(productRepository).findAllViews();
+        verify(productRepository, never()).findAll();
     }
 
     @Test
@@ -66,13 +89,13 @@ class ProductServiceTest {
 
     @Test
     void getProductByProductId_ShouldReturnProducts() {
-        when(productRepository.findByProductId("p1")).thenReturn(List.of(testProduct));
+        when(productRepository.findViewsByProductId("p1")).thenReturn(List.of(ProductView.of(testProduct)));
 
-        List<Product> result = productService.getProductByProductId("p1");
+        List<ProductView> result = productService.getProductByProductId("p1");
 
         assertThat(result).hasSize(1);
-        assertThat(result.get(0)).usingRecursiveComparison().isEqualTo(testProduct);
-        verify(productRepository).findByProductId("p1");
+        assertThat(result.get(0)).isEqualTo(ProductView.of(testProduct));
+        verify(productRepository).findViewsByProductId("p1");
     }
 
     @Test
@@ -83,6 +106,7 @@ class ProductServiceTest {
 
         assertThat(result).usingRecursiveComparison().isEqualTo(testProduct);
         verify(productRepository).save(testProduct);
+        assertThat(publishedEvent().changes().getFirst().type()).isEqualTo(ChangeType.CREATED);
     }
 
     @Test
@@ -96,6 +120,7 @@ class ProductServiceTest {
         assertThat(result.get()).usingRecursiveComparison().isEqualTo(testProduct);
         verify(productRepository).findById(1L);
         verify(productRepository).save(any(Product.class));
+        assertThat(publishedEvent().changes().getFirst().type()).isEqualTo(ChangeType.UPDATED);
     }
 
     @Test
@@ -111,37 +136,38 @@ class ProductServiceTest {
 
     @Test
     void deleteProduct_WhenExists_ShouldReturnTrue() {
-        when(productRepository.existsById(1L)).thenReturn(true);
-        doNothing().when(productRepository).deleteById(1L);
+        when(productJdbcRepository.deleteById(1L, null)).thenReturn(List.of(testProduct));
 
         boolean result = productService.deleteProduct(1L);
 
         assertThat(result).isTrue();
-        verify(productRepository).existsById(1L);
-        verify(productRepository).deleteById(1L);
+        // Один DELETE, без предварительного чтения
+        verify(productJdbcRepository).deleteById(1L, null);
+        verifyNoInteractions(productRepository);
+        assertThat(publishedEvent().changes().getFirst().before().id()).isEqualTo(1L);
     }
 
     @Test
     void deleteProduct_WhenNotExists_ShouldReturnFalse() {
-        when(productRepository.existsById(1L)).thenReturn(false);
+        when(productJdbcRepository.deleteById(1L, null)).thenReturn(List.of());
 
         boolean result = productService.deleteProduct(1L);
 
         assertThat(result).isFalse();
-        verify(productRepository).existsById(1L);
-        verify(productRepository, never()).deleteById(any());
+        verify(productJdbcRepository, never()).findById(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
     void getProductsByStatus_ShouldReturnFilteredProducts() {
-        when(productRepository.findByStatus(ProductStatus.SELLABLE))
-                .thenReturn(List.of(testProduct));
+        when(productRepository.findViewsByStatus(ProductStatus.SELLABLE))
+                .thenReturn(List.of(ProductView.of(testProduct)));
 
-        List<Product> result = productService.getProductsByStatus(ProductStatus.SELLABLE);
+        List<ProductView> result = productService.getProductsByStatus(ProductStatus.SELLABLE);
 
         assertThat(result).hasSize(1);
-        assertThat(result.get(0)).usingRecursiveComparison().isEqualTo(testProduct);
-        verify(productRepository).findByStatus(ProductStatus.SELLABLE);
+        assertThat(result.get(0)).isEqualTo(ProductView.of(testProduct));
+        verify(productRepository).findViewsByStatus(ProductStatus.SELLABLE);
     }
 
     @Test
@@ -167,6 +193,84 @@ class ProductServiceTest {
         verify(productRepository).getTotalValueByFulfillmentCenter(center);
     }
 
+    @Test
+    void getProductsByStatus_WhenColumnarReady_ShouldNotQueryRepository() {
+        when(columnarInventory.isReady()).thenReturn(true);
+        when(columnarInventory.getProductsByStatus(ProductStatus.SELLABLE))
+                .thenReturn(List.of(ProductView.of(testProduct)));
+
+        List<ProductView> result = productService.getProductsByStatus(ProductStatus.SELLABLE);
+
+        assertThat(result).containsExactly(ProductView.of(testProduct));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void getTotalSellableValue_WhenAggregatesEnabled_ShouldReadAggregate() {
+        when(inventoryAggregateService.isEnabled()).thenReturn(true);
+        when(inventoryAggregateService.getTotalValueByStatus("SELLABLE")).thenReturn(500.0);
+
+        Double result = productService.getTotalSellableValue();
+
+        assertThat(result).isEqualTo(500.0);
+        verify(productRepository, never()).getTotalSellableValue(any());
+    }
+
+    @Test
+    void getInventorySummary_ShouldUseSingleGroupByQuery() {
+        InventorySummaryRow row = new InventorySummaryRow("fc1", ProductStatus.SELLABLE, 10L, 1L, 1000.0);
+        when(productRepository.summarizeByCenterAndStatus()).thenReturn(List.of(row));
+        when(productRepository.summarizeByCenterAndStatus("p1")).thenReturn(List.of());
+
+        assertThat(productService.getInventorySummary(null)).containsExactly(row);
+        assertThat(productService.getInventorySummary("p1")).isEmpty();
+        verify(productRepository).summarizeByCenterAndStatus();
+        verify(productRepository).summarizeByCenterAndStatus("p1");
+    }
+
+    @Test
+    void adjustQuantity_ShouldPublishBeforeAndAfterSnapshots() {
+        testProduct.setQuantity(7);
+        testProduct.setVersion(2L);
+        when(productJdbcRepository.adjustQuantity(1L, -3)).thenReturn(1);
+        when(productJdbcRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+
+        QuantityAdjustment result = productService.adjustQuantity(1L, -3);
+
+        assertThat(result.outcome()).isEqualTo(QuantityAdjustment.Outcome.ADJUSTED);
+        assertThat(result.product().getQuantity()).isEqualTo(7);
+        ProductChangeEvent event = publishedEvent();
+        assertThat(event.changes().getFirst().type()).isEqualTo(ChangeType.UPDATED);
+        assertThat(event.changes().getFirst().before().quantity()).isEqualTo(10);
+        assertThat(event.changes().getFirst().before().version()).isEqualTo(1L);
+        assertThat(event.changes().getFirst().after().quantity()).isEqualTo(7);
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    void adjustQuantity_WhenConditionFails_ShouldDistinguishMissingFromInsufficient() {
+        when(productJdbcRepository.adjustQuantity(1L, -30)).thenReturn(0);
+        when(productJdbcRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+        when(productJdbcRepository.adjustQuantity(2L, -30)).thenReturn(0);
+        when(productJdbcRepository.findById(2L)).thenReturn(Optional.empty());
+
+        assertThat(productService.adjustQuantity(1L, -30).outcome())
+                .isEqualTo(QuantityAdjustment.Outcome.INSUFFICIENT_QUANTITY);
+        assertThat(productService.adjustQuantity(2L, -30).outcome())
+                .isEqualTo(QuantityAdjustment.Outcome.NOT_FOUND);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void deleteProduct_WhenVersionDiffers_ShouldThrowAndKeepProduct() {
+        when(productJdbcRepository.deleteById(1L, 5L)).thenReturn(List.of());
+        when(productJdbcRepository.findById(1L)).thenReturn(Optional.of(testProduct));
+
+        assertThatThrownBy(() -> productService.deleteProduct(1L, 5L))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        verifyNoInteractions(eventPublisher);
+    }
+
     @Test
     void whenConcurrentUpdate_ShouldThrowOptimisticLockingException() {
         when(productRepository.findById(1L)).thenReturn(Optional.of(testProduct));
@@ -176,4 +280,10 @@ class ProductServiceTest {
         assertThatThrownBy(() -> productService.updateProduct(1L, testProduct))
                 .isInstanceOf(ObjectOptimisticLockingFailureException.class);
     }
-}
\ No newline at end of file
+
+    private ProductChangeEvent publishedEvent() {
+        ArgumentCaptor<ProductChangeEvent> captor = ArgumentCaptor.forClass(ProductChangeEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,93 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.QuantityAdjustment;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.InventoryAggregateRepository;
+import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Много писателей одновременно списывают остаток одной строки.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class QuantityAdjustmentConcurrencyTest {
+
+    private static final int WRITERS = 64;
+    private static final int ADJUSTMENTS_PER_WRITER = 20;
+    private static final int INITIAL_QUANTITY = 1000;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InventoryAggregateService inventoryAggregateService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryAggregateRepository aggregateRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch();
+        aggregateRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void adjustQuantity_UnderContention_ShouldNeverLoseUpdatesOrGoNegative() throws Exception {
+        Long id = productService.createProduct(
+                new Product("hot", ProductStatus.SELLABLE, "fc1", INITIAL_QUANTITY, 2.0)).getId();
+        AtomicInteger adjusted = new AtomicInteger();
+        AtomicInteger insufficient = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ADJUSTMENTS_PER_WRITER; i++) {
+                    QuantityAdjustment result = productService.adjustQuantity(id, -1);
+                    if (result.outcome() == QuantityAdjustment.Outcome.ADJUSTED) {
+                        adjusted.incrementAndGet();
+                    } else {
+                        insufficient.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+
+        int attempts = WRITERS * ADJUSTMENTS_PER_WRITER;
+
+        // Остатка хватает ровно на INITIAL_QUANTITY списаний, остальные отклоняются условием UPDATE
+        assertThat(adjusted.get()).isEqualTo(INITIAL_QUANTITY);
+        assertThat(insufficient.get()).isEqualTo(attempts - INITIAL_QUANTITY);
+        Product product = productRepository.findById(id).orElseThrow();
+        assertThat(product.getQuantity()).isZero();
+        assertThat(product.getVersion()).isEqualTo((long) INITIAL_QUANTITY);
+        assertThat(inventoryAggregateService.checkConsistency().consistent()).isTrue();
+    }
+}
@@ -0,0 +1,86 @@
+package com.propvuebrand.fulfillmentcenters.service;
+
+import com.propvuebrand.fulfillmentcenters.dto.QuantityAdjustment;
+import com.propvuebrand.fulfillmentcenters.dto.WriteBehindStats;
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.InventoryAggregateRepository;
+import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "fulfillment.write-behind.enabled=true",
+        "fulfillment.write-behind.flush-interval-ms=3600000",
+        "fulfillment.write-behind.max-pending=1000000"
+})
+@ActiveProfiles("test")
+class QuantityWriteBufferTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private QuantityWriteBuffer quantityWriteBuffer;
+
+    @Autowired
+    private InventoryAggregateService inventoryAggregateService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryAggregateRepository aggregateRepository;
+
+    @BeforeEach
+    void setUp() {
+        quantityWriteBuffer.flush();
+        productRepository.deleteAllInBatch();
+        aggregateRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void adjustQuantity_ShouldBeVisibleBeforeFlushAndWrittenInOneUpdate() {
+        Product product = productService.createProduct(new Product("p1", ProductStatus.SELLABLE, "fc1", 10, 2.0));
+        Long id = product.getId();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(productService.adjustQuantity(id, 1).outcome())
+                    .isEqualTo(QuantityAdjustment.Outcome.ACCEPTED);
+        }
+        productService.adjustQuantity(id, -2);
+
+        // Чтение видит свои же изменения, база — ещё нет
+        assertThat(productService.getProduct(id)).get().extracting(Product::getQuantity).isEqualTo(13);
+        assertThat(productRepository.findById(id)).get().extracting(Product::getQuantity).isEqualTo(10);
+        WriteBehindStats stats = quantityWriteBuffer.getStats();
+        assertThat(stats.pendingDeltas()).isEqualTo(6);
+        assertThat(stats.pendingProducts()).isEqualTo(1);
+
+        quantityWriteBuffer.flush();
+
+        Product stored = productRepository.findById(id).orElseThrow();
+        assertThat(stored.getQuantity()).isEqualTo(13);
+        assertThat(stored.getVersion()).isEqualTo(product.getVersion() + 1);
+        assertThat(productService.getProduct(id)).get().extracting(Product::getQuantity).isEqualTo(13);
+        assertThat(quantityWriteBuffer.getStats().pendingDeltas()).isZero();
+        assertThat(inventoryAggregateService.checkConsistency().consistent()).isTrue();
+    }
+
+    @Test
+    void adjustQuantity_WhenPendingStockIsInsufficient_ShouldReject() {
+        Long id = productService.createProduct(new Product("p1", ProductStatus.SELLABLE, "fc1", 3, 2.0)).getId();
+
+        productService.adjustQuantity(id, -2);
+
+        assertThat(productService.adjustQuantity(id, -2).outcome())
+                .isEqualTo(QuantityAdjustment.Outcome.INSUFFICIENT_QUANTITY);
+        quantityWriteBuffer.flush();
+        assertThat(productRepository.findById(id)).get().extracting(Product::getQuantity).isEqualTo(1);
+    }
+}
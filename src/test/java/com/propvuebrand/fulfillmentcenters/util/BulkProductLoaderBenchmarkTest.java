@@ -0,0 +1,67 @@
+package com.propvuebrand.fulfillmentcenters.util;
+
+import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
+import com.propvuebrand.fulfillmentcenters.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение построчной загрузки через {@link ProductService} с потоковой загрузкой.
+ * Запуск: {@code ./gradlew benchmarkTest -Pbenchmark.rows=1000000}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkProductLoaderBenchmarkTest {
+
+    private static final int ROW_BY_ROW_ROWS = 10_000;
+
+    @Autowired
+    private BulkProductLoader bulkProductLoader;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void bulkLoadThroughput() throws Exception {
+        int rows = Integer.getInteger("benchmark.rows", 200_000);
+        String csv = GeneratedCsv.csv(rows);
+
+        BulkLoadReport report = bulkProductLoader.load(new StringReader(csv));
+
+        System.out.printf("bulk load: %d rows in %d ms, %.0f rows/s%n",
+                report.loadedRows(), report.elapsedMillis(), report.rowsPerSecond());
+        assertThat(report.loadedRows()).isEqualTo(rows);
+    }
+
+    @Test
+    void rowByRowThroughput() {
+        String[] statuses = {"Sellable", "Unfulfillable", "Inbound"};
+        long started = System.nanoTime();
+        for (int i = 0; i < ROW_BY_ROW_ROWS; i++) {
+            productService.createProduct(ProductCsvParser.parse(new String[]{
+                    "p" + i, statuses[i % 3], "fc" + (i % 10), "5", "100"}));
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+
+        System.out.printf("row-by-row load: %d rows in %d ms, %.0f rows/s%n",
+                ROW_BY_ROW_ROWS, elapsedMillis, ROW_BY_ROW_ROWS * 1000.0 / elapsedMillis);
+        assertThat(productRepository.count()).isEqualTo(ROW_BY_ROW_ROWS);
+    }
+}
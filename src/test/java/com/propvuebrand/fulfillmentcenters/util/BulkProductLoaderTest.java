@@ -0,0 +1,112 @@
+package com.propvuebrand.fulfillmentcenters.util;
+
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkProductLoaderTest {
+
+    @Autowired
+    private BulkProductLoader bulkProductLoader;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void load_ShouldInsertAllValidRows() throws Exception {
+        String csv = """
+                Product,Status,Fulfilment center,Qty,Value
+                p1,Sellable,fc5,4,400
+                p2,Unfulfillable,fc3,5,550
+                p3,Inbound,fc1,2,120.5
+                """;
+
+        BulkLoadReport report = bulkProductLoader.load(new StringReader(csv));
+
+        assertThat(report.loadedRows()).isEqualTo(3);
+        assertThat(report.rejectedRows()).isZero();
+        List<Product> products = productRepository.findByProductId("p3");
+        assertThat(products).hasSize(1);
+        assertThat(products.getFirst().getStatus()).isEqualTo(ProductStatus.INBOUND);
+        assertThat(products.getFirst().getValue()).isEqualTo(120.5);
+        assertThat(products.getFirst().getVersion()).isZero();
+    }
+
+    @Test
+    void load_ShouldReportRejectedLinesAndKeepGoing() throws Exception {
+        String csv = """
+                Product,Status,Fulfilment center,Qty,Value
+                p1,Sellable,fc5,4,400
+                p2,Lost,fc3,5,550
+                p3,Sellable,fc1,-2,120
+                p4,Sellable,fc1
+                p5,Inbound,fc2,7,70
+                """;
+
+        BulkLoadReport report = bulkProductLoader.load(new StringReader(csv));
+
+        assertThat(report.loadedRows()).isEqualTo(2);
+        assertThat(report.rejectedRows()).isEqualTo(3);
+        assertThat(report.rejectedLines())
+                .extracting(BulkLoadReport.RejectedLine::lineNumber)
+                .containsExactly(3L, 4L, 5L);
+        assertThat(productRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void load_ShouldCommitEveryChunk() throws Exception {
+        StringBuilder csv = new StringBuilder("Product,Status,Fulfilment center,Qty,Value\n");
+        for (int i = 0; i < 2500; i++) {
+            csv.append('p').append(i).append(",Sellable,fc").append(i % 7).append(",1,10\n");
+        }
+
+        // Источник обрывается после последней строки: третья пачка (chunk-size=1000 в профиле test)
+        // не записывается, а первые две уже зафиксированы
+        Reader broken = new FilterReader(new StringReader(csv.toString())) {
+            @Override
+            public int read() throws IOException {
+                return check(super.read());
+            }
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                return check(super.read(buffer, offset, length));
+            }
+
+            private int check(int read) throws IOException {
+                if (read < 0) {
+                    throw new IOException("Connection reset");
+                }
+                return read;
+            }
+        };
+
+        assertThatThrownBy(() -> bulkProductLoader.load(broken)).isInstanceOf(IOException.class);
+
+        assertThat(productRepository.count()).isEqualTo(2000);
+        assertThat(productRepository.findByProductId("p0")).hasSize(1);
+        assertThat(productRepository.findByProductId("p1999")).hasSize(1);
+        assertThat(productRepository.findByProductId("p2000")).isEmpty();
+    }
+}
@@ -0,0 +1,85 @@
+package com.propvuebrand.fulfillmentcenters.util;
+
+import com.propvuebrand.fulfillmentcenters.model.Product;
+import com.propvuebrand.fulfillmentcenters.model.ProductStatus;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Детерминированные тестовые данные в формате data.csv. {@link #reader(int)} генерирует строки
+ * по мере чтения, поэтому можно загружать миллионы строк, не держа весь CSV в памяти.
+ * Общие для тестов скорости и бенчмарков JMH ({@code jmh.includeTests}).
+ */
+public final class GeneratedCsv {
+
+    public static final int CENTERS = 20;
+    public static final int PRODUCT_IDS = 50_000;
+
+    private static final String HEADER = "Product,Status,Fulfilment center,Qty,Value\n";
+    private static final String[] STATUSES = {"Sellable", "Unfulfillable", "Inbound"};
+
+    private GeneratedCsv() {
+    }
+
+    public static String line(int i) {
+        return "p" + (i % PRODUCT_IDS) + ',' + STATUSES[i % 3] + ",fc" + (i % CENTERS) + ','
+                + (1 + i % 50) + ',' + (10 + i % 990) + '\n';
+    }
+
+    public static String csv(int rows) {
+        StringBuilder csv = new StringBuilder(rows * 32).append(HEADER);
+        for (int i = 0; i < rows; i++) {
+            csv.append(line(i));
+        }
+        return csv.toString();
+    }
+
+    public static List<Product> products(int rows) {
+        List<Product> products = new ArrayList<>(rows);
+        ProductStatus[] statuses = ProductStatus.values();
+        for (int i = 0; i < rows; i++) {
+            Product product = new Product("p" + (i % PRODUCT_IDS), statuses[i % 3], "fc" + (i % CENTERS),
+                    1 + i % 50, 10.0 + i % 990);
+            product.setId((long) i + 1);
+            product.setVersion(0L);
+            products.add(product);
+        }
+        return products;
+    }
+
+    public static Reader reader(int rows) {
+        return new Reader() {
+            private String current = HEADER;
+            private int position;
+            private int nextRow;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                if (length == 0) {
+                    return 0;
+                }
+                int written = 0;
+                while (written < length) {
+                    if (position == current.length()) {
+                        if (nextRow == rows) {
+                            break;
+                        }
+                        current = line(nextRow++);
+                        position = 0;
+                    }
+                    int count = Math.min(length - written, current.length() - position);
+                    current.getChars(position, position + count, buffer, offset + written);
+                    position += count;
+                    written += count;
+                }
+                return written == 0 ? -1 : written;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
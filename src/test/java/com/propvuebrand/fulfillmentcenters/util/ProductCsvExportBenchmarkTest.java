@@ -0,0 +1,114 @@
+package com.propvuebrand.fulfillmentcenters.util;
+
+import com.propvuebrand.fulfillmentcenters.repository.ProductRepository;
+import com.propvuebrand.fulfillmentcenters.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Скорость и память потоковой выгрузки в CSV.
+ * Запуск: {@code ./gradlew benchmarkTest -Pbenchmark.rows=1000000}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductCsvExportBenchmarkTest {
+
+    @Autowired
+    private BulkProductLoader bulkProductLoader;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private int rows;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        productRepository.deleteAllInBatch();
+        rows = Integer.getInteger("benchmark.rows", 200_000);
+        bulkProductLoader.load(GeneratedCsv.reader(rows));
+    }
+
+    @Test
+    void exportThroughput() throws Exception {
+        export(false);
+    }
+
+    @Test
+    void gzipExportThroughput() throws Exception {
+        export(true);
+    }
+
+    private void export(boolean gzip) throws Exception {
+        CountingOutputStream counter = new CountingOutputStream();
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(counter, 64 * 1024) : null;
+        var writer = new BufferedWriter(
+                new OutputStreamWriter(gzip ? gzipStream : counter, StandardCharsets.UTF_8), 64 * 1024);
+        ProductCsvWriter csv = new ProductCsvWriter(writer);
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long baseline = runtime.totalMemory() - runtime.freeMemory();
+        long[] exported = {0};
+        long[] peak = {baseline};
+
+        long started = System.nanoTime();
+        csv.writeHeader();
+        productService.streamProducts(null, null, null, product -> {
+            csv.write(product);
+            if (++exported[0] % 50_000 == 0) {
+                peak[0] = Math.max(peak[0], runtime.totalMemory() - runtime.freeMemory());
+            }
+        });
+        csv.flush();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+
+        System.out.printf("csv export%s: %d rows, %d bytes in %d ms, %.0f rows/s, heap growth %d MB%n",
+                gzip ? " (gzip)" : "", exported[0], counter.bytes, elapsedMillis,
+                exported[0] * 1000.0 / elapsedMillis, (peak[0] - baseline) / (1024 * 1024));
+        assertThat(exported[0]).isEqualTo(rows);
+        if (!gzip) {
+            assertThat(counter.newlines).isEqualTo(rows + 1);
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long bytes;
+        long newlines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                newlines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    newlines++;
+                }
+            }
+        }
+    }
+}